@@ -22,19 +22,28 @@ package org.verapdf.as;
 
 import org.verapdf.cos.filters.COSFilterASCIIHexEncode;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class represents predefined PDF name. Also it caches known PDF names.
  * Internally each ASAtom is represented as a byte array packed into Java String using ISO_8859_1 encoding
+ * Predefined names are kept in read-only tables, other names are kept in
+ * bounded cache that can be used from several threads. When two names fall
+ * into the same cache slot, older one is evicted, so equal non-predefined
+ * names are not guaranteed to be the same object.
  *
  * @author Timur Kamalov
  */
 public class ASAtom implements Comparable<ASAtom> {
 
-    private static final Map<String, ASAtom> PREDEFINED_PDF_NAMES = new HashMap<>();
-    private static final Map<String, ASAtom> CACHED_PDF_NAMES = new HashMap<>();
+    private static final int CACHE_SIZE = 1 << 13;
+
+    private static final Map<String, ASAtom> PREDEFINED_NAMES_BUILDER = new HashMap<>();
+    private static final AtomicReferenceArray<ASAtom> CACHED_PDF_NAMES = new AtomicReferenceArray<>(CACHE_SIZE);
 
     // 3
     public static final ASAtom key3D = new ASAtom("3D");
@@ -616,7 +625,12 @@ public class ASAtom implements Comparable<ASAtom> {
     // Z
     public static final ASAtom ZAPF_DINGBATS = new ASAtom("ZapfDingbats");
 
-    private String value;
+    private static final Map<String, ASAtom> PREDEFINED_PDF_NAMES =
+            Collections.unmodifiableMap(PREDEFINED_NAMES_BUILDER);
+    // open addressing table of predefined names for lookup by bytes
+    private static final ASAtom[] PREDEFINED_PDF_NAMES_TABLE = createPredefinedTable();
+
+    private final String value;
 
     private ASAtom(String value) {
         this(value, true);
@@ -625,12 +639,21 @@ public class ASAtom implements Comparable<ASAtom> {
     private ASAtom(String value, boolean predefinedValue) {
         this.value = value;
         if (predefinedValue) {
-            PREDEFINED_PDF_NAMES.put(value, this);
-        } else {
-            if (!CACHED_PDF_NAMES.containsKey(value)) {
-                CACHED_PDF_NAMES.put(value, this);
+            PREDEFINED_NAMES_BUILDER.put(value, this);
+        }
+    }
+
+    private static ASAtom[] createPredefinedTable() {
+        int size = Integer.highestOneBit(PREDEFINED_NAMES_BUILDER.size() * 4);
+        ASAtom[] table = new ASAtom[size];
+        for (ASAtom atom : PREDEFINED_NAMES_BUILDER.values()) {
+            int index = atom.value.hashCode() & (size - 1);
+            while (table[index] != null) {
+                index = (index + 1) & (size - 1);
             }
+            table[index] = atom;
         }
+        return table;
     }
 
     /**
@@ -644,15 +667,62 @@ public class ASAtom implements Comparable<ASAtom> {
             return null;
         }
 
-        if (PREDEFINED_PDF_NAMES.containsKey(value)) {
-            return PREDEFINED_PDF_NAMES.get(value);
-        } else if (CACHED_PDF_NAMES.containsKey(value)) {
-            return CACHED_PDF_NAMES.get(value);
-        } else {
-            ASAtom result = new ASAtom(value, false);
-            CACHED_PDF_NAMES.put(value, result);
+        ASAtom result = PREDEFINED_PDF_NAMES.get(value);
+        if (result != null) {
             return result;
         }
+        int index = value.hashCode() & (CACHE_SIZE - 1);
+        result = CACHED_PDF_NAMES.get(index);
+        if (result == null || !result.value.equals(value)) {
+            result = new ASAtom(value, false);
+            CACHED_PDF_NAMES.set(index, result);
+        }
+        return result;
+    }
+
+    /**
+     * Gets PDF name from bytes. String with name is created only if this name
+     * is neither predefined nor cached.
+     *
+     * @param bytes  is array containing PDF name.
+     * @param offset is offset of PDF name in array.
+     * @param length is length of PDF name.
+     * @return PDF name as ASAtom.
+     */
+    public static ASAtom getASAtom(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            hash = 31 * hash + (bytes[i] & 0xFF);
+        }
+        int mask = PREDEFINED_PDF_NAMES_TABLE.length - 1;
+        int predefinedIndex = hash & mask;
+        ASAtom result = PREDEFINED_PDF_NAMES_TABLE[predefinedIndex];
+        while (result != null) {
+            if (result.valueEquals(bytes, offset, length)) {
+                return result;
+            }
+            predefinedIndex = (predefinedIndex + 1) & mask;
+            result = PREDEFINED_PDF_NAMES_TABLE[predefinedIndex];
+        }
+        int index = hash & (CACHE_SIZE - 1);
+        result = CACHED_PDF_NAMES.get(index);
+        if (result == null || !result.valueEquals(bytes, offset, length)) {
+            result = new ASAtom(new String(bytes, offset, length, StandardCharsets.ISO_8859_1), false);
+            CACHED_PDF_NAMES.set(index, result);
+        }
+        return result;
+    }
+
+    private boolean valueEquals(byte[] bytes, int offset, int length) {
+        if (this.value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (this.value.charAt(i) != (bytes[offset + i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -662,10 +732,6 @@ public class ASAtom implements Comparable<ASAtom> {
         return value;
     }
 
-    private void setValue(String value) {
-        this.value = value;
-    }
-
     /**
      * @return string value of ASAtom with appended / character.
      */
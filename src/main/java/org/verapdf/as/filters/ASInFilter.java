@@ -90,6 +90,14 @@ public abstract class ASInFilter extends ASInputStream {
 		this.storedInStream.closeResource();
 	}
 
+	/**
+	 * Frees resources held by filter itself, such as buffers. It is called
+	 * once the filter is closed and no other stream uses it. Stream this
+	 * filter reads from is not affected.
+	 */
+	protected void closeFilterResource() {
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -125,11 +133,20 @@ public abstract class ASInFilter extends ASInputStream {
 	 */
 	@Override
 	public void incrementResourceUsers() {
+		this.resourceUsers.increment();
 		this.storedInStream.incrementResourceUsers();
 	}
 
 	@Override
 	public void decrementResourceUsers() {
+		// resource users of filter are counted apart from users of the
+		// stream it reads from, so own resources are freed by the last one
+		if (!this.resourceUsers.equals(0)) {
+			this.resourceUsers.decrement();
+			if (this.resourceUsers.equals(0)) {
+				closeFilterResource();
+			}
+		}
 		this.storedInStream.decrementResourceUsers();
 	}
 }
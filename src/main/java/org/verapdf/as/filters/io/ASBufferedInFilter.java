@@ -21,6 +21,7 @@
 package org.verapdf.as.filters.io;
 
 import org.verapdf.as.filters.ASInFilter;
+import org.verapdf.as.io.ASBufferPool;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.as.io.ASMemoryInStream;
 import org.verapdf.parser.NotSeekableBaseParser;
@@ -74,7 +75,7 @@ public class ASBufferedInFilter extends ASInFilter {
     public ASBufferedInFilter(ASInputStream stream, int buffCapacity) {
         super(stream);
         this.bufferCapacity = buffCapacity;
-        buffer = new byte[buffCapacity];
+        buffer = acquireBuffer(buffCapacity);
         bufferEnd = bufferBegin = 0;
         this.HALF = buffCapacity / 2;
         this.BUFFER_FEED_THRESHOLD = 3 * buffCapacity / 4;
@@ -86,6 +87,9 @@ public class ASBufferedInFilter extends ASInFilter {
      */
     public void initialize() throws IOException {
         this.initialized = true;
+        // pooled buffer can hold data of another stream, bytes before the
+        // first read ones are zeros as they can be unread
+        Arrays.fill(this.buffer, 0, HALF, (byte) 0);
         readFromStreamToBuffer(HALF, HALF);
         pos = HALF;
     }
@@ -128,6 +132,36 @@ public class ASBufferedInFilter extends ASInFilter {
         return read(buffer, buffer.length);
     }
 
+    /**
+     * Reads data of stream used as buffered stream, see {@link #initialize()},
+     * into given array. Data is copied from internal buffer, that is fed as
+     * it is emptied, so bytes read last can still be unread.
+     *
+     * @param buffer is array to read data into.
+     * @param offset is offset in array to put data at.
+     * @param size   is amount of bytes to read.
+     * @return amount of actually read bytes, that is less than size only at
+     * the end of data, or -1 if there is no data left.
+     */
+    public int readBuffered(byte[] buffer, int offset, int size) throws IOException {
+        if (eod != -1 && pos >= eod) {
+            return size > 0 ? -1 : 0;
+        }
+        int total = 0;
+        while (total < size && (eod == -1 || pos < eod)) {
+            int end = eod != -1 ? Math.min(eod, this.buffer.length) : this.buffer.length;
+            int read = Math.min(size - total, end - pos);
+            System.arraycopy(this.buffer, pos, buffer, offset + total, read);
+            pos += read;
+            total += read;
+            if (pos > BUFFER_FEED_THRESHOLD && eod == -1) {
+                feedBuffer();
+            }
+        }
+        readCounter += total;
+        return total;
+    }
+
     public byte readByte() throws IOException {
         if (eod != -1 && pos >= eod) {
             return -1;
@@ -265,7 +299,16 @@ public class ASBufferedInFilter extends ASInFilter {
     @Override
     public void closeResource() throws IOException {
         super.closeResource();
+        closeFilterResource();
+    }
+
+    /**
+     * Returns buffer to the pool, it is acquired again if filter is reset.
+     */
+    @Override
+    protected void closeFilterResource() {
         bufferEnd = bufferBegin = 0;
+        releaseBuffer();
     }
 
     /**
@@ -274,7 +317,9 @@ public class ASBufferedInFilter extends ASInFilter {
     @Override
     public void reset() throws IOException {
         super.reset();
-        this.buffer = new byte[this.bufferCapacity];
+        if (this.buffer == null) {
+            this.buffer = acquireBuffer(this.bufferCapacity);
+        }
         bufferEnd = bufferBegin = pos = readCounter = 0;
         eod = -1;
         if (initialized) {
@@ -310,17 +355,21 @@ public class ASBufferedInFilter extends ASInFilter {
      */
     @Override
     public int skip(int size) throws IOException {
-        byte[] temp = new byte[Math.min(BF_BUFFER_SIZE, size)];
-        int skipped = 0;
-        while (skipped != size) {
-            int read = this.read(temp, Math.min(size - skipped, BF_BUFFER_SIZE));
-            if (read == -1) {
-                return skipped;
-            } else {
-                skipped += read;
+        byte[] temp = ASBufferPool.acquire(BF_BUFFER_SIZE);
+        try {
+            int skipped = 0;
+            while (skipped != size) {
+                int read = this.read(temp, Math.min(size - skipped, BF_BUFFER_SIZE));
+                if (read == -1) {
+                    break;
+                } else {
+                    skipped += read;
+                }
             }
+            return skipped;
+        } finally {
+            ASBufferPool.release(temp);
         }
-        return skipped;
     }
 
     public byte peek() throws IOException {
@@ -363,6 +412,17 @@ public class ASBufferedInFilter extends ASInFilter {
         return readCounter;
     }
 
+    private static byte[] acquireBuffer(int size) {
+        return ASBufferPool.acquire(size);
+    }
+
+    private void releaseBuffer() {
+        if (this.buffer != null) {
+            ASBufferPool.release(this.buffer);
+            this.buffer = null;
+        }
+    }
+
     private void readFromStreamToBuffer(int offset, int len) throws IOException {
         int read = getInputStream().read(buffer, offset, len);
         this.bufferEnd = read;
@@ -0,0 +1,73 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+/**
+ * Holds buffer pool used by streams, filters and parsers. Default pool is
+ * {@link ThreadLocalBufferPool}, it can be replaced by any other
+ * {@link IBufferPool} implementation.
+ */
+public final class ASBufferPool {
+
+	private static volatile IBufferPool pool = new ThreadLocalBufferPool();
+
+	private ASBufferPool() {
+	}
+
+	/**
+	 * @return buffer pool that is used at the moment.
+	 */
+	public static IBufferPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Sets buffer pool. Buffers acquired from previous pool are released into
+	 * new pool.
+	 *
+	 * @param bufferPool is new buffer pool.
+	 */
+	public static void setPool(IBufferPool bufferPool) {
+		if (bufferPool == null) {
+			throw new IllegalArgumentException("Buffer pool can't be null");
+		}
+		pool = bufferPool;
+	}
+
+	/**
+	 * Gets buffer of exactly given length from current pool.
+	 *
+	 * @param size is length of buffer.
+	 * @return buffer with undefined contents.
+	 */
+	public static byte[] acquire(int size) {
+		return pool.acquire(size);
+	}
+
+	/**
+	 * Returns buffer to current pool.
+	 *
+	 * @param buffer is buffer to release.
+	 */
+	public static void release(byte[] buffer) {
+		pool.release(buffer);
+	}
+}
@@ -0,0 +1,232 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+import java.util.Arrays;
+
+/**
+ * Byte buffer that grows on appending data. Capacity is doubled when buffer
+ * is full, so accumulation of data takes time linear in its length. Data can
+ * be read at random positions and converted into {@link ASMemoryInStream}
+ * without copying.
+ */
+public class ASGrowableBuffer {
+
+    private static final int DEFAULT_CAPACITY = 2048;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private byte[] data;
+    private int size;
+
+    public ASGrowableBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param initialCapacity is initial capacity of buffer.
+     */
+    public ASGrowableBuffer(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Buffer capacity can't be negative");
+        }
+        this.data = new byte[initialCapacity];
+        this.size = 0;
+    }
+
+    /**
+     * Appends one byte to the end of buffer.
+     *
+     * @param b is byte to append.
+     */
+    public void append(int b) {
+        ensureCapacity(this.size + 1);
+        this.data[this.size++] = (byte) b;
+    }
+
+    /**
+     * Appends first length bytes of given array to the end of buffer.
+     *
+     * @param bytes  is array with data.
+     * @param length is amount of bytes to append.
+     */
+    public void append(byte[] bytes, int length) {
+        append(bytes, 0, length);
+    }
+
+    /**
+     * Appends part of given array to the end of buffer.
+     *
+     * @param bytes  is array with data.
+     * @param offset is offset of data in array.
+     * @param length is amount of bytes to append.
+     */
+    public void append(byte[] bytes, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        ensureCapacity(this.size + length);
+        System.arraycopy(bytes, offset, this.data, this.size, length);
+        this.size += length;
+    }
+
+    /**
+     * Gets byte at given position.
+     *
+     * @param index is position of byte.
+     * @return byte at given position.
+     */
+    public byte get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of buffer of size " + this.size);
+        }
+        return this.data[index];
+    }
+
+    /**
+     * Copies data starting from given position into array.
+     *
+     * @param index  is position of first byte to copy.
+     * @param dest   is array into which data is copied.
+     * @param offset is offset in destination array.
+     * @param length is maximal amount of bytes to copy.
+     * @return actual amount of bytes copied.
+     */
+    public int get(int index, byte[] dest, int offset, int length) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of buffer of size " + this.size);
+        }
+        int toCopy = Math.min(length, this.size - index);
+        System.arraycopy(this.data, index, dest, offset, toCopy);
+        return toCopy;
+    }
+
+    /**
+     * Removes given amount of bytes from the beginning of buffer.
+     *
+     * @param length is amount of bytes to remove.
+     */
+    public void discard(int length) {
+        if (length <= 0) {
+            return;
+        }
+        if (length >= this.size) {
+            this.size = 0;
+            return;
+        }
+        System.arraycopy(this.data, length, this.data, 0, this.size - length);
+        this.size -= length;
+    }
+
+    /**
+     * Removes all data from buffer. Capacity of buffer doesn't change.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * @return amount of bytes in buffer.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return amount of bytes that buffer can hold without growing.
+     */
+    public int capacity() {
+        return this.data.length;
+    }
+
+    /**
+     * Grows buffer so it can hold at least given amount of bytes.
+     *
+     * @param minCapacity is required capacity.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required buffer capacity is too big");
+        }
+        if (minCapacity > this.data.length) {
+            this.data = Arrays.copyOf(this.data, getGrownCapacity(minCapacity));
+        }
+    }
+
+    /**
+     * Sets capacity of buffer to exactly given value.
+     *
+     * @param capacity is new capacity, it shall be not less than amount of
+     *                 bytes in buffer.
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < this.size) {
+            throw new IllegalArgumentException("Buffer capacity can't be less than buffer size");
+        }
+        if (capacity != this.data.length) {
+            this.data = Arrays.copyOf(this.data, capacity);
+        }
+    }
+
+    /**
+     * Gets capacity that buffer will have after growing to hold given amount
+     * of bytes.
+     *
+     * @param minCapacity is required capacity.
+     * @return capacity after growing.
+     */
+    public int getGrownCapacity(int minCapacity) {
+        if (minCapacity <= this.data.length) {
+            return this.data.length;
+        }
+        long newCapacity = Math.max(2L * this.data.length, DEFAULT_CAPACITY);
+        newCapacity = Math.max(newCapacity, minCapacity);
+        return (int) Math.min(newCapacity, Math.max(MAX_CAPACITY, minCapacity));
+    }
+
+    /**
+     * @return copy of data in buffer.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.data, this.size);
+    }
+
+    /**
+     * Gets internal array of buffer. Only first {@link #size()} bytes of it
+     * contain data.
+     *
+     * @return internal array.
+     */
+    public byte[] getArray() {
+        return this.data;
+    }
+
+    /**
+     * Creates stream that reads data of this buffer. Data is not copied, so
+     * buffer should not be changed while stream is used.
+     *
+     * @return stream with data of buffer.
+     */
+    public ASMemoryInStream toASMemoryInStream() {
+        return new ASMemoryInStream(this.data, this.size, false);
+    }
+}
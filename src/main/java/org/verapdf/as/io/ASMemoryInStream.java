@@ -20,6 +20,7 @@
  */
 package org.verapdf.as.io;
 
+import org.verapdf.io.MemoryBudget;
 import org.verapdf.io.SeekableInputStream;
 import org.verapdf.tools.IntReference;
 
@@ -41,6 +42,7 @@ public class ASMemoryInStream extends SeekableInputStream {
     private boolean copiedBuffer;
     private int resetPosition = 0;
     private IntReference numOfBufferUsers;
+    private MemoryBudget memoryBudget;
 
     /**
      * Constructor from byte array. Buffer is copied while initializing
@@ -91,6 +93,7 @@ public class ASMemoryInStream extends SeekableInputStream {
         this.bufferSize = Math.min(stream.bufferSize, offset + length);
         this.numOfBufferUsers = stream.numOfBufferUsers;
         this.numOfBufferUsers.increment();
+        this.memoryBudget = stream.memoryBudget;
     }
 
     /**
@@ -127,6 +130,25 @@ public class ASMemoryInStream extends SeekableInputStream {
         }
     }
 
+    /**
+     * Constructor from byte array and actual data length. Buffer is not copied
+     * and is owned by this stream and its substreams. Memory of the whole
+     * buffer should be reserved in given memory budget, it is released when
+     * last stream that uses buffer is closed.
+     *
+     * @param buffer       byte array containing data.
+     * @param bufferSize   actual length of data in buffer.
+     * @param memoryBudget is budget in which memory for buffer was reserved.
+     */
+    public ASMemoryInStream(byte[] buffer, int bufferSize, MemoryBudget memoryBudget) {
+        this.bufferSize = bufferSize;
+        this.currentPosition = 0;
+        this.copiedBuffer = false;
+        this.buffer = buffer;
+        this.numOfBufferUsers = new IntReference(1);
+        this.memoryBudget = memoryBudget;
+    }
+
     /**
      * Reads up to size bytes of data into given array.
      *
@@ -200,6 +222,9 @@ public class ASMemoryInStream extends SeekableInputStream {
             isSourceClosed = true;
             this.numOfBufferUsers.decrement();
             if (numOfBufferUsers.equals(0)) {
+                if (memoryBudget != null) {
+                    memoryBudget.release(buffer.length);
+                }
                 buffer = null;
             }
         }
@@ -239,6 +264,41 @@ public class ASMemoryInStream extends SeekableInputStream {
         this.currentPosition = (int) offset;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getWindow() throws IOException {
+        if (this.buffer == null) {
+            throw new IOException("Reading can't be performed; stream is closed");
+        }
+        return this.buffer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWindowStart() {
+        return this.currentPosition;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWindowEnd() {
+        return this.bufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void advanceWindow(int count) {
+        this.currentPosition += count;
+    }
+
     /**
      * @return the amount of bytes left in stream.
      */
@@ -255,7 +315,7 @@ public class ASMemoryInStream extends SeekableInputStream {
 
     @Override
     public ASInputStream getStream(long startOffset, long length) throws IOException {
-        if (startOffset > 0 && startOffset < this.bufferSize &&
+        if (startOffset >= 0 && startOffset < this.bufferSize &&
                 startOffset + length <= this.bufferSize) {
             return new ASMemoryInStream(this, (int) startOffset, (int) length);
         } else {
@@ -0,0 +1,60 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+/**
+ * Pool of byte arrays used as scratch buffers by streams, filters and parsers.
+ * Buffers are acquired when stream is created and released when it is closed.
+ */
+public interface IBufferPool {
+
+	/**
+	 * Gets buffer of exactly given length. Contents of returned buffer are
+	 * undefined.
+	 *
+	 * @param size is length of buffer.
+	 * @return buffer.
+	 */
+	byte[] acquire(int size);
+
+	/**
+	 * Returns buffer to pool. Buffer must not be used after it was released.
+	 *
+	 * @param buffer is buffer obtained from {@link #acquire(int)}.
+	 */
+	void release(byte[] buffer);
+
+	/**
+	 * @return number of buffers acquired from this pool.
+	 */
+	long getAcquiredCount();
+
+	/**
+	 * @return number of buffers that were allocated because there was no
+	 * suitable buffer in pool.
+	 */
+	long getAllocatedCount();
+
+	/**
+	 * @return number of bytes in buffers allocated by this pool.
+	 */
+	long getAllocatedBytes();
+}
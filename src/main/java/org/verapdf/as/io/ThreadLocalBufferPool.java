@@ -0,0 +1,129 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffer pool that keeps released buffers in the pool of current thread, so
+ * no synchronization is needed to acquire and release buffers. Amount of
+ * memory kept by the pool of one thread is limited.
+ */
+public class ThreadLocalBufferPool implements IBufferPool {
+
+	public static final int DEFAULT_MAX_BUFFER_SIZE = 64 * 1024;
+	public static final int DEFAULT_MAX_BUFFERS_PER_SIZE = 16;
+	public static final long DEFAULT_MAX_POOLED_BYTES = 1024 * 1024;
+
+	private final int maxBufferSize;
+	private final int maxBuffersPerSize;
+	private final long maxPooledBytes;
+
+	private final AtomicLong acquiredCount = new AtomicLong();
+	private final AtomicLong allocatedCount = new AtomicLong();
+	private final AtomicLong allocatedBytes = new AtomicLong();
+
+	private final ThreadLocal<Buffers> buffers = new ThreadLocal<Buffers>() {
+		@Override
+		protected Buffers initialValue() {
+			return new Buffers();
+		}
+	};
+
+	public ThreadLocalBufferPool() {
+		this(DEFAULT_MAX_BUFFER_SIZE, DEFAULT_MAX_BUFFERS_PER_SIZE, DEFAULT_MAX_POOLED_BYTES);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxBufferSize     is maximal length of buffer that is kept in pool.
+	 * @param maxBuffersPerSize is maximal number of buffers of one length that
+	 *                          are kept in pool of one thread.
+	 * @param maxPooledBytes    is maximal total length of buffers that are kept
+	 *                          in pool of one thread.
+	 */
+	public ThreadLocalBufferPool(int maxBufferSize, int maxBuffersPerSize, long maxPooledBytes) {
+		this.maxBufferSize = maxBufferSize;
+		this.maxBuffersPerSize = maxBuffersPerSize;
+		this.maxPooledBytes = maxPooledBytes;
+	}
+
+	@Override
+	public byte[] acquire(int size) {
+		this.acquiredCount.incrementAndGet();
+		if (size <= this.maxBufferSize) {
+			Buffers threadBuffers = this.buffers.get();
+			ArrayDeque<byte[]> free = threadBuffers.free.get(Integer.valueOf(size));
+			if (free != null && !free.isEmpty()) {
+				threadBuffers.pooledBytes -= size;
+				return free.pollLast();
+			}
+		}
+		this.allocatedCount.incrementAndGet();
+		this.allocatedBytes.addAndGet(size);
+		return new byte[size];
+	}
+
+	@Override
+	public void release(byte[] buffer) {
+		if (buffer == null || buffer.length > this.maxBufferSize) {
+			return;
+		}
+		Buffers threadBuffers = this.buffers.get();
+		if (threadBuffers.pooledBytes + buffer.length > this.maxPooledBytes) {
+			return;
+		}
+		Integer size = Integer.valueOf(buffer.length);
+		ArrayDeque<byte[]> free = threadBuffers.free.get(size);
+		if (free == null) {
+			free = new ArrayDeque<>();
+			threadBuffers.free.put(size, free);
+		}
+		if (free.size() < this.maxBuffersPerSize) {
+			free.addLast(buffer);
+			threadBuffers.pooledBytes += buffer.length;
+		}
+	}
+
+	@Override
+	public long getAcquiredCount() {
+		return this.acquiredCount.get();
+	}
+
+	@Override
+	public long getAllocatedCount() {
+		return this.allocatedCount.get();
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return this.allocatedBytes.get();
+	}
+
+	private static class Buffers {
+		private final Map<Integer, ArrayDeque<byte[]>> free = new HashMap<>();
+		private long pooledBytes = 0;
+	}
+}
@@ -38,6 +38,13 @@ public class COSArray extends COSDirect implements Iterable<COSObject> {
     private static final Logger LOGGER = Logger.getLogger(COSArray.class.getCanonicalName());
 
     private List<COSObject> entries;
+    // elements that are not parsed yet, they are stored as null in entries
+    private List<ICOSLazyValue> lazyEntries;
+    // true if array ever had lazy elements. It is set while array is parsed,
+    // before it is published to other threads, and is never reset. All access
+    // to elements of such array is done under lock on entries list, as lazy
+    // elements can be loaded by any of threads reading array.
+    private boolean lazy;
 
     protected COSArray() {
         super();
@@ -105,15 +112,26 @@ public class COSArray extends COSDirect implements Iterable<COSObject> {
     }
 
     public Integer size() {
+        if (this.lazy) {
+            synchronized (this.entries) {
+                return this.entries.size();
+            }
+        }
         return this.entries.size();
     }
 
     //TODO : cosbase?
     public Iterator<COSObject> iterator() {
+        loadLazyEntries();
         return this.entries.iterator();
     }
 
     public COSObject at(final int i) {
+        if (this.lazy) {
+            synchronized (this.entries) {
+                return i >= this.entries.size() ? new COSObject() : _at(i);
+            }
+        }
         if (i >= this.entries.size()) {
             return new COSObject();
         }
@@ -122,51 +140,161 @@ public class COSArray extends COSDirect implements Iterable<COSObject> {
     }
 
     public boolean add(final COSObject value) {
-        this.entries.add(value);
+        if (this.lazy) {
+            synchronized (this.entries) {
+                this.entries.add(value);
+                if (this.lazyEntries != null) {
+                    this.lazyEntries.add(null);
+                }
+            }
+        } else {
+            this.entries.add(value);
+        }
         return true;
     }
 
+    /**
+     * Adds element that will be parsed on first access.
+     *
+     * @param value is not parsed element.
+     */
+    public void addLazy(final ICOSLazyValue value) {
+        this.lazy = true;
+        synchronized (this.entries) {
+            if (this.lazyEntries == null) {
+                this.lazyEntries = new ArrayList<>(Collections.<ICOSLazyValue>nCopies(this.entries.size(), null));
+            }
+            this.lazyEntries.add(value);
+            this.entries.add(null);
+        }
+    }
+
     public boolean set(final int i, final COSObject value) {
-        this.entries.set(i, value);
+        loadLazyEntries();
+        if (this.lazy) {
+            synchronized (this.entries) {
+                this.entries.set(i, value);
+            }
+        } else {
+            this.entries.set(i, value);
+        }
         return true;
     }
 
     public boolean insert(final int i, final COSObject value) {
-        this.entries.add(i, value);
+        loadLazyEntries();
+        if (this.lazy) {
+            synchronized (this.entries) {
+                this.entries.add(i, value);
+            }
+        } else {
+            this.entries.add(i, value);
+        }
         return true;
     }
 
     public void remove(final int i) {
-        if (entries.size() > i) {
-            this.entries.remove(i);
+        loadLazyEntries();
+        if (this.lazy) {
+            synchronized (this.entries) {
+                removeEntry(i);
+            }
+        } else {
+            removeEntry(i);
         }
     }
 
     public boolean setArray() {
-        this.entries.clear();
+        clearArray();
         return true;
     }
 
     public boolean setArray(final int size, final COSObject[] value) {
         //TODO : check this
-        this.entries.addAll(Arrays.asList(value));
+        loadLazyEntries();
+        if (this.lazy) {
+            synchronized (this.entries) {
+                this.entries.addAll(Arrays.asList(value));
+            }
+        } else {
+            this.entries.addAll(Arrays.asList(value));
+        }
         return true;
     }
 
     public boolean setArray(final int size, final double[] values) {
-        this.entries.clear();
-        for (double value : values) {
-            this.entries.add(COSReal.construct(value));
+        if (this.lazy) {
+            synchronized (this.entries) {
+                setEntries(values);
+            }
+        } else {
+            setEntries(values);
         }
         return true;
     }
 
     public void clearArray() {
+        if (this.lazy) {
+            synchronized (this.entries) {
+                this.lazyEntries = null;
+                this.entries.clear();
+            }
+        } else {
+            this.entries.clear();
+        }
+    }
+
+    private void removeEntry(final int i) {
+        if (entries.size() > i) {
+            this.entries.remove(i);
+        }
+    }
+
+    private void setEntries(final double[] values) {
+        this.lazyEntries = null;
         this.entries.clear();
+        for (double value : values) {
+            this.entries.add(COSReal.construct(value));
+        }
     }
 
     private COSObject _at(final int i) {
-        return this.entries.get(i);
+        COSObject value = this.entries.get(i);
+        if (value == null && this.lazyEntries != null) {
+            value = loadLazyEntry(i);
+        }
+        return value;
+    }
+
+    // shall be called under lock on entries
+    private COSObject loadLazyEntry(final int i) {
+        COSObject value = this.entries.get(i);
+        if (value == null && this.lazyEntries != null) {
+            ICOSLazyValue lazyValue = this.lazyEntries.get(i);
+            if (lazyValue != null) {
+                value = lazyValue.load();
+                this.entries.set(i, value);
+                this.lazyEntries.set(i, null);
+            }
+        }
+        return value;
+    }
+
+    // all elements are loaded before entries are iterated, after that entries
+    // are not changed by loading anymore
+    private void loadLazyEntries() {
+        if (!this.lazy) {
+            return;
+        }
+        synchronized (this.entries) {
+            if (this.lazyEntries == null) {
+                return;
+            }
+            for (int i = 0; i < this.entries.size(); ++i) {
+                loadLazyEntry(i);
+            }
+            this.lazyEntries = null;
+        }
     }
 
     @Override
@@ -222,6 +350,7 @@ public class COSArray extends COSDirect implements Iterable<COSObject> {
     @Override
     public ASInputStream getData(final COSStream.FilterFlags flags) {
         List<ASInputStream> streams = new ArrayList<>();
+        loadLazyEntries();
         try {
             for (COSObject object : entries) {
                 if (object.getType() == COSObjType.COS_STREAM) {
@@ -20,7 +20,9 @@
  */
 package org.verapdf.cos;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Timur Kamalov
@@ -29,8 +31,23 @@ public class COSBody {
 
 	private Map<COSKey, COSObject> table;
 
+	private final COSLoadingCoordinator coordinator;
+	// objects that are being loaded now, guarded by coordinator
+	private final Map<COSKey, COSLoadingCoordinator.Loading> loadings = new HashMap<>();
+
 	public COSBody() {
-		this.table = new HashMap<>();
+		this(new COSLoadingCoordinator());
+	}
+
+	/**
+	 * Constructor of body whose objects can depend on objects and tasks of
+	 * other documents of the same file.
+	 *
+	 * @param coordinator coordinates loadings of all documents of the file.
+	 */
+	public COSBody(final COSLoadingCoordinator coordinator) {
+		this.table = new ConcurrentHashMap<>();
+		this.coordinator = coordinator;
 	}
 
 	public List<COSObject> getAll() {
@@ -42,8 +59,52 @@ public class COSBody {
 		return value != null ? value : new COSObject();
 	}
 
+	/**
+	 * Gets object with given key, loading it if it is not in body yet. Each
+	 * object is loaded only once: if another thread is loading the same
+	 * object, this method waits for its result. The only exception are
+	 * objects that depend on each other and are requested by different
+	 * threads, waiting for them would never end, so they are loaded by every
+	 * such thread and the first loaded object is kept.
+	 *
+	 * @param key    is key of object.
+	 * @param loader is used to load object that is not in body.
+	 * @return object with given key or null if loader can't find it.
+	 */
+	public COSObject get(final COSKey key, final ICOSObjectLoader loader) throws IOException {
+		COSObject value = this.table.get(key);
+		if (value != null && !value.empty()) {
+			return value;
+		}
+		ObjectLoading loading = new ObjectLoading(key, loader);
+		this.coordinator.load(this.loadings, key, loading, true);
+		return loading.loaded ? loading.value : this.table.get(key);
+	}
+
 	public void set(final COSKey key, final COSObject object) {
-		table.put(key, object);
+		if (object != null) {
+			table.put(key, object);
+		} else {
+			table.remove(key);
+		}
+	}
+
+	/**
+	 * Puts object into body if there is no object with given key yet.
+	 *
+	 * @return object that is in body after this call.
+	 */
+	public COSObject setIfAbsent(final COSKey key, final COSObject object) {
+		while (true) {
+			COSObject value = this.table.get(key);
+			if (value != null && !value.empty()) {
+				return value;
+			}
+			if (value == null ? this.table.putIfAbsent(key, object) == null
+					: this.table.replace(key, value, object)) {
+				return object;
+			}
+		}
 	}
 
 	public COSKey getKeyForObject(COSObject obj) {
@@ -58,4 +119,30 @@ public class COSBody {
 			return null;
 		}
 	}
+
+	// loads object for get(COSKey, ICOSObjectLoader)
+	private class ObjectLoading implements ICOSLoadingTask {
+		private final COSKey key;
+		private final ICOSObjectLoader loader;
+		private COSObject value;
+		private boolean loaded;
+
+		private ObjectLoading(final COSKey key, final ICOSObjectLoader loader) {
+			this.key = key;
+			this.loader = loader;
+		}
+
+		@Override
+		public boolean isLoaded() {
+			COSObject value = COSBody.this.table.get(this.key);
+			return value != null && !value.empty();
+		}
+
+		@Override
+		public void load() throws IOException {
+			COSObject value = this.loader.load(this.key);
+			this.value = value != null ? setIfAbsent(this.key, value) : null;
+			this.loaded = true;
+		}
+	}
 }
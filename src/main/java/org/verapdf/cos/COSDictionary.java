@@ -32,6 +32,13 @@ import java.util.*;
 public class COSDictionary extends COSDirect {
 
     private Map<ASAtom, COSObject> entries;
+    // values that are not parsed yet, their keys are mapped to null in entries
+    private Map<ASAtom, ICOSLazyValue> lazyEntries;
+    // true if dictionary ever had lazy entries. It is set while dictionary is
+    // parsed, before it is published to other threads, and is never reset.
+    // All access to entries of such dictionary is done under lock on entries
+    // map, as lazy values can be loaded by any of threads reading dictionary.
+    private boolean lazy;
 
     protected COSDictionary() {
         super();
@@ -81,6 +88,8 @@ public class COSDictionary extends COSDirect {
     protected COSDictionary(final COSDictionary dict) {
         super();
         this.entries = dict.entries;
+        this.lazyEntries = dict.lazyEntries;
+        this.lazy = dict.lazy;
     }
 
     //! Object type
@@ -137,23 +146,62 @@ public class COSDictionary extends COSDirect {
     }
 
     public Integer size() {
+        if (this.lazy) {
+            synchronized (this.entries) {
+                return this.entries.size();
+            }
+        }
         return this.entries.size();
     }
 
     public Boolean knownKey(final ASAtom key) {
+        if (this.lazy) {
+            synchronized (this.entries) {
+                return this.entries.containsKey(key);
+            }
+        }
         return this.entries.containsKey(key);
     }
 
     public COSObject getKey(final ASAtom key) {
-        COSObject value = this.entries.get(key);
+        COSObject value;
+        if (this.lazy) {
+            synchronized (this.entries) {
+                value = this.entries.get(key);
+                if (value == null) {
+                    value = loadLazyEntry(key);
+                }
+            }
+        } else {
+            value = this.entries.get(key);
+        }
         return value != null ? value : new COSObject();
     }
 
+    /**
+     * Sets value of given key that will be parsed on first access.
+     *
+     * @param key   is key of entry.
+     * @param value is not parsed value.
+     */
+    public void setLazyKey(final ASAtom key, final ICOSLazyValue value) {
+        this.lazy = true;
+        synchronized (this.entries) {
+            if (this.lazyEntries == null) {
+                this.lazyEntries = new HashMap<>();
+            }
+            this.lazyEntries.put(key, value);
+            this.entries.put(key, null);
+        }
+    }
+
     public boolean setKey(final ASAtom key, final COSObject value) {
-        if (value.empty()) {
-            this.entries.remove(key);
+        if (this.lazy) {
+            synchronized (this.entries) {
+                setEntry(key, value);
+            }
         } else {
-            this.entries.put(key, value);
+            setEntry(key, value);
         }
         return true;
     }
@@ -165,7 +213,7 @@ public class COSDictionary extends COSDirect {
     public boolean setBooleanKey(final ASAtom key, final boolean value) {
         COSObject obj = new COSObject();
         obj.setBoolean(value);
-        this.entries.put(key, obj);
+        putEntry(key, obj);
         return true;
     }
 
@@ -177,7 +225,7 @@ public class COSDictionary extends COSDirect {
     public boolean setIntegerKey(final ASAtom key, final long value) {
         COSObject obj = new COSObject();
         obj.setInteger(value);
-        this.entries.put(key, obj);
+        putEntry(key, obj);
         return true;
     }
 
@@ -188,7 +236,7 @@ public class COSDictionary extends COSDirect {
     public boolean setRealKey(final ASAtom key, final double value) {
         COSObject obj = new COSObject();
         obj.setReal(value);
-        this.entries.put(key, obj);
+        putEntry(key, obj);
         return true;
     }
 
@@ -199,7 +247,7 @@ public class COSDictionary extends COSDirect {
     public boolean setStringKey(final ASAtom key, final String value) {
         COSObject obj = new COSObject();
         obj.setString(value);
-        this.entries.put(key, obj);
+        putEntry(key, obj);
         return true;
     }
 
@@ -210,53 +258,113 @@ public class COSDictionary extends COSDirect {
     public boolean setNameKey(final ASAtom key, final ASAtom value) {
         COSObject obj = new COSObject();
         obj.setName(value);
-        this.entries.put(key, obj);
+        putEntry(key, obj);
         return true;
     }
 
     public boolean setArrayKey(final ASAtom key) {
         COSObject obj = new COSObject();
         obj.setArray();
-        this.entries.put(key, obj);
+        putEntry(key, obj);
         return true;
     }
 
     public boolean setArrayKey(final ASAtom key, final COSObject array) {
-        this.entries.put(key, array);
+        putEntry(key, array);
         return true;
     }
 
     public boolean setArrayKey(final ASAtom key, final int size, final COSObject[] value) {
         COSObject obj = new COSObject();
         obj.setArray(size, value);
-        this.entries.put(key, obj);
+        putEntry(key, obj);
         return true;
     }
 
     public boolean setArrayKey(final ASAtom key, final int size, final double[] value) {
         COSObject obj = new COSObject();
         obj.setArray(size, value);
-        this.entries.put(key, obj);
+        putEntry(key, obj);
         return true;
     }
 
     public void removeKey(final ASAtom key) {
-        this.entries.remove(key);
+        if (this.lazy) {
+            synchronized (this.entries) {
+                this.entries.remove(key);
+            }
+        } else {
+            this.entries.remove(key);
+        }
     }
 
     // Instead of iterator
     public Set<Map.Entry<ASAtom, COSObject>> getEntrySet() {
+        loadLazyEntries();
         return this.entries.entrySet();
     }
 
     public Set<ASAtom> getKeySet() {
+        loadLazyEntries();
         return this.entries.keySet();
     }
 
     public Collection<COSObject> getValues() {
+        loadLazyEntries();
         return this.entries.values();
     }
 
+    private void setEntry(final ASAtom key, final COSObject value) {
+        if (value.empty()) {
+            this.entries.remove(key);
+        } else {
+            this.entries.put(key, value);
+        }
+    }
+
+    private void putEntry(final ASAtom key, final COSObject value) {
+        if (this.lazy) {
+            synchronized (this.entries) {
+                this.entries.put(key, value);
+            }
+        } else {
+            this.entries.put(key, value);
+        }
+    }
+
+    // shall be called under lock on entries
+    private COSObject loadLazyEntry(final ASAtom key) {
+        ICOSLazyValue lazyValue = this.lazyEntries.get(key);
+        // lazy value is stale if its key was removed or set to other value,
+        // or it is already loaded by other thread
+        if (lazyValue == null || !this.entries.containsKey(key)) {
+            return this.entries.get(key);
+        }
+        COSObject value = lazyValue.load();
+        this.lazyEntries.remove(key);
+        setEntry(key, value);
+        return this.entries.get(key);
+    }
+
+    // all values are loaded before entries are exposed as collections, after
+    // that entries are not changed by loading anymore
+    private void loadLazyEntries() {
+        if (!this.lazy) {
+            return;
+        }
+        synchronized (this.entries) {
+            if (this.lazyEntries.isEmpty()) {
+                return;
+            }
+            for (ASAtom key : new ArrayList<>(this.lazyEntries.keySet())) {
+                if (this.entries.get(key) == null) {
+                    loadLazyEntry(key);
+                }
+            }
+            this.lazyEntries.clear();
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if(this == obj) {
@@ -28,9 +28,11 @@ import org.verapdf.exceptions.LoopedException;
 import org.verapdf.io.IReader;
 import org.verapdf.io.InternalInputStream;
 import org.verapdf.io.Reader;
+import org.verapdf.io.ReaderOptions;
 import org.verapdf.io.SeekableInputStream;
 import org.verapdf.pd.PDDocument;
 import org.verapdf.pd.encryption.StandardSecurityHandler;
+import org.verapdf.pd.linearization.PDLinearization;
 import org.verapdf.tools.resource.ASFileStreamCloser;
 import org.verapdf.tools.resource.FileResourceHandler;
 
@@ -65,15 +67,35 @@ public class COSDocument {
 	private FileResourceHandler resourceHandler;
 	private String fileName;
 
+	// objects are parsed by reader only once even if they are requested by
+	// several threads at the same time
+	private final ICOSObjectLoader objectLoader = new ICOSObjectLoader() {
+		@Override
+		public COSObject load(COSKey key) throws IOException {
+			return reader.getObject(key);
+		}
+	};
+
+	// document opened by xref section of the first page of linearized file
+	// gets keys of all objects when the whole document is needed
+	private volatile boolean xrefLoaded = true;
+
 	private byte postEOFDataSize;
 
 	private boolean xrefEOLMarkersComplyPDFA = true;
 	private boolean subsectionHeaderSpaceSeparated = true;
 
+	// document of another revision of the same file, that keeps resources of
+	// objects shared by revisions
+	private COSDocument base;
+	// shared by documents of all revisions of the file and their readers
+	private final COSLoadingCoordinator loadingCoordinator;
+
 	public COSDocument(final PDDocument document) {
 		this.doc = document;
+		this.loadingCoordinator = new COSLoadingCoordinator();
 		this.header = new COSHeader();
-		this.body = new COSBody();
+		this.body = new COSBody(this.loadingCoordinator);
 		this.xref = new COSXRefTable();
 		this.trailer = new COSTrailer();
 		this.firstTrailer = new COSTrailer();
@@ -86,30 +108,58 @@ public class COSDocument {
 	}
 
 	public COSDocument(final String fileName, final PDDocument document) throws IOException {
+		this(fileName, document, new ReaderOptions());
+	}
+
+	public COSDocument(final String fileName, final PDDocument document,
+					   final ReaderOptions options) throws IOException {
 		this.resourceHandler = new FileResourceHandler();
+		this.loadingCoordinator = new COSLoadingCoordinator();
 		this.fileName = fileName;
-		initReader(fileName);
+		initReader(fileName, options);
 
 		initCOSDocument(document);
 	}
 
 	public COSDocument(final InputStream fileStream, final PDDocument document) throws IOException {
 		this.resourceHandler = new FileResourceHandler();
+		this.loadingCoordinator = new COSLoadingCoordinator();
 		initReader(fileStream);
 
 		initCOSDocument(document);
 	}
 
+	private COSDocument(final COSDocument document, final int revision,
+						final PDDocument pdDocument) throws IOException {
+		this.resourceHandler = new FileResourceHandler();
+		this.fileName = document.fileName;
+		this.base = document;
+		this.loadingCoordinator = document.loadingCoordinator;
+		this.standardSecurityHandler = document.standardSecurityHandler;
+		this.postEOFDataSize = document.postEOFDataSize;
+		this.xrefEOLMarkersComplyPDFA = document.xrefEOLMarkersComplyPDFA;
+		this.subsectionHeaderSpaceSeparated = document.subsectionHeaderSpaceSeparated;
+		this.reader = document.reader.getRevisionReader(this, revision);
+		this.resourceHandler.addResource(this.reader);
+
+		initCOSDocument(pdDocument);
+	}
+
 	private void initCOSDocument(final PDDocument document) {
 		this.doc = document;
-		this.body = new COSBody();
+		this.body = new COSBody(this.loadingCoordinator);
 
 		this.header = this.reader.getHeader();
 		this.xref = new COSXRefTable();
-		this.xref.set(this.reader.getKeys());
 		this.trailer = reader.getTrailer();
 		this.firstTrailer = reader.getFirstTrailer();
-		this.lastTrailer = reader.getLastTrailer();
+		if (this.reader.isXRefLoaded()) {
+			this.xref.set(this.reader.getKeys());
+			this.lastTrailer = reader.getLastTrailer();
+		} else {
+			this.xref.set(new ArrayList<COSKey>());
+			this.xrefLoaded = false;
+		}
 		this.linearized = reader.isLinearized();
 		this.changedObjects = new ArrayList<>();
 		this.addedObjects = new ArrayList<>();
@@ -120,8 +170,8 @@ public class COSDocument {
 		this.resourceHandler.addResource(this.reader);
 	}
 
-	private void initReader(final String fileName) throws IOException {
-		this.reader = new Reader(this, fileName);
+	private void initReader(final String fileName, final ReaderOptions options) throws IOException {
+		this.reader = new Reader(this, fileName, options);
 		this.resourceHandler.addResource(this.reader);
 	}
 
@@ -134,6 +184,7 @@ public class COSDocument {
 	}
 
 	public List<COSObject> getObjects() {
+		loadXRef();
 		List<COSObject> result = new ArrayList<>();
 		for (COSKey key : this.xref.getAllKeys()) {
 			COSObject obj = this.body.get(key);
@@ -141,9 +192,7 @@ public class COSDocument {
 				result.add(obj);
 			} else {
 				try {
-					COSObject newObj = this.reader.getObject(key);
-
-					this.body.set(key, newObj);
+					COSObject newObj = this.body.get(key, this.objectLoader);
 					result.add(newObj);
 				} catch (IOException e) {
 					LOGGER.log(Level.FINE, "Error while parsing object : " + key.getNumber() +
@@ -157,7 +206,30 @@ public class COSDocument {
 		return result;
 	}
 
+	/**
+	 * Parses all objects of document that are not parsed yet. Objects are
+	 * parsed in parallel by given number of threads, each of them with its
+	 * own parser reading the same document file, and every object stream is
+	 * decoded once. Objects that can't be parsed are skipped, as in
+	 * {@link #getObjects()}.
+	 *
+	 * @param threads is number of threads used for parsing.
+	 */
+	public void loadObjects(int threads) throws IOException {
+		loadXRef();
+		List<COSKey> keys = new ArrayList<>();
+		for (COSKey key : this.xref.getAllKeys()) {
+			if (this.body.get(key).empty()) {
+				keys.add(key);
+			}
+		}
+		if (!keys.isEmpty()) {
+			this.reader.loadObjects(keys, this.body, threads);
+		}
+	}
+
 	public List<COSObject> getObjectsByType(ASAtom type) {
+		loadXRef();
 		List<COSObject> result = new ArrayList<>();
 		for (COSKey key : this.xref.getAllKeys()) {
 			COSObject obj = this.body.get(key);
@@ -165,9 +237,7 @@ public class COSDocument {
 				addObjectWithTypeKeyCheck(result, obj, type);
 			} else {
 				try {
-					COSObject newObj = this.reader.getObject(key);
-
-					this.body.set(key, newObj);
+					COSObject newObj = this.body.get(key, this.objectLoader);
 					addObjectWithTypeKeyCheck(result, obj, type);
 				} catch (IOException e) {
 					LOGGER.log(Level.FINE, "Error while parsing object : " + key.getNumber() +
@@ -189,6 +259,7 @@ public class COSDocument {
 	}
 
 	public Map<COSKey, COSObject> getObjectsMap() {
+		loadXRef();
 		Map<COSKey, COSObject> result = new HashMap<>();
 		for (COSKey key : this.xref.getAllKeys()) {
 			COSObject obj = this.body.get(key);
@@ -196,9 +267,7 @@ public class COSDocument {
 				result.put(key, obj);
 			} else {
 				try {
-					COSObject newObj = this.reader.getObject(key);
-
-					this.body.set(key, newObj);
+					COSObject newObj = this.body.get(key, this.objectLoader);
 					result.put(key, newObj);
 				} catch (IOException e) {
 					LOGGER.log(Level.FINE, "Error while parsing object : " + key.getNumber() +
@@ -216,12 +285,8 @@ public class COSDocument {
 				return obj;
 			}
 
-			COSObject newObj = this.reader.getObject(key);
-			if (newObj == null) {
-				return new COSObject();
-			}
-			this.body.set(key, newObj);
-			return this.body.get(key);
+			COSObject newObj = this.body.get(key, this.objectLoader);
+			return newObj != null ? newObj : new COSObject();
 		} catch (IOException e) {
 			//TODO : maybe not runtime, maybe no exception at all
 			throw new RuntimeException("Error while parsing object : " + key.getNumber() +
@@ -229,6 +294,18 @@ public class COSDocument {
 		}
 	}
 
+	/**
+	 * Puts objects that were parsed together with requested one into body.
+	 * Objects that are in body already are kept.
+	 *
+	 * @param objects maps keys of objects to parsed objects.
+	 */
+	public void putObjects(final Map<COSKey, COSObject> objects) {
+		for (Map.Entry<COSKey, COSObject> entry : objects.entrySet()) {
+			this.body.setIfAbsent(entry.getKey(), entry.getValue());
+		}
+	}
+
 	public Long getOffset(final COSKey key) {
 		return this.reader.getOffset(key);
 	}
@@ -239,6 +316,7 @@ public class COSDocument {
 	}
 
 	public COSKey setObject(COSObject obj) {
+		loadXRef();
 		COSKey key = obj.getKey();
 
 		//TODO : fix this method for document save
@@ -261,6 +339,7 @@ public class COSDocument {
 	}
 
 	public COSTrailer getLastTrailer() {
+		loadXRef();
 		return lastTrailer;
 	}
 
@@ -281,6 +360,7 @@ public class COSDocument {
 	}
 
 	public byte getPostEOFDataSize() {
+		loadXRef();
 		return postEOFDataSize;
 	}
 
@@ -289,6 +369,7 @@ public class COSDocument {
 	}
 
 	public boolean isXrefEOLMarkersComplyPDFA() {
+		loadXRef();
 		return xrefEOLMarkersComplyPDFA;
 	}
 
@@ -297,6 +378,7 @@ public class COSDocument {
 	}
 
 	public boolean isSubsectionHeaderSpaceSeparated() {
+		loadXRef();
 		return subsectionHeaderSpaceSeparated;
 	}
 
@@ -315,6 +397,7 @@ public class COSDocument {
 	public void saveAs(final Writer writer) {
 		writer.writeHeader(this.header.getHeader());
 
+		loadXRef();
 		writer.addToWrite(this.xref.getAllKeys());
 		writer.writeBody();
 
@@ -424,7 +507,84 @@ public class COSDocument {
 		return this.reader != null;
 	}
 
+	/**
+	 * @return coordinator of loadings of objects of this document, that is
+	 * shared by documents of all revisions of the same file.
+	 */
+	public COSLoadingCoordinator getLoadingCoordinator() {
+		return this.loadingCoordinator;
+	}
+
+	/**
+	 * @return false if keys of all objects are not read from xref yet, e.g.
+	 * only xref section of the first page of linearized document is read so
+	 * far, true otherwise.
+	 */
+	public boolean isXRefLoaded() {
+		return this.reader == null || this.reader.isXRefLoaded();
+	}
+
+	/**
+	 * @return linearization of document opened by xref section of its first
+	 * page, or null if document is opened by its whole xref.
+	 */
+	public PDLinearization getLinearization() {
+		return this.reader != null ? this.reader.getLinearization() : null;
+	}
+
+	private void loadXRef() {
+		if (this.xrefLoaded) {
+			return;
+		}
+		// xref is read by reader outside of the lock, reading it can require
+		// parsing objects
+		List<COSKey> keys = this.reader.getKeys();
+		COSTrailer lastTrailer = this.reader.getLastTrailer();
+		synchronized (this.xref) {
+			if (!this.xrefLoaded) {
+				List<COSKey> newKeys = this.xref.getAllKeys();
+				this.xref.set(keys);
+				this.xref.newKey(newKeys);
+				this.firstTrailer = this.reader.getFirstTrailer();
+				this.lastTrailer = lastTrailer;
+				this.xrefLoaded = true;
+			}
+		}
+	}
+
+	/**
+	 * @return number of revisions of document, the original document and
+	 * each of its incremental updates are separate revisions.
+	 */
+	public int getRevisionsCount() throws IOException {
+		return this.reader != null ? this.reader.getRevisionsCount() : 0;
+	}
+
+	/**
+	 * Opens document as of given revision. Opened document shares file,
+	 * xref sections and objects that are the same in both revisions with
+	 * this document, so it shall be closed before this document. Shared
+	 * objects shall not be modified, as they belong to both documents.
+	 *
+	 * @param revision is number of revision counted from 0 for the original
+	 *                 document.
+	 * @param document is PD document of given revision.
+	 * @return document as of given revision.
+	 */
+	public COSDocument getRevision(final int revision, final PDDocument document) throws IOException {
+		if (this.reader == null) {
+			throw new IOException("Revisions are available only for documents read from file");
+		}
+		return new COSDocument(this, revision, document);
+	}
+
 	public void addFileResource(ASFileStreamCloser resource) {
+		// objects of revision can be shared with other revisions, so their
+		// streams are closed with the document they are opened from
+		if (this.base != null) {
+			this.base.addFileResource(resource);
+			return;
+		}
 		this.resourceHandler.addResource(resource);
 	}
 
@@ -0,0 +1,150 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Coordinates loadings of objects and tasks of documents that share one
+ * file: document, documents of its revisions and their readers. Each object
+ * or task is loaded by one thread at a time, other threads requesting it
+ * wait for that thread. Threads that would wait for each other are detected
+ * among loadings of the same coordinator only.
+ */
+public class COSLoadingCoordinator {
+
+	private final Object lock = new Object();
+	// loadings threads are waiting for and tasks that are running now,
+	// guarded by lock
+	private final Map<Thread, Loading> awaited = new HashMap<>();
+	private final Map<Object, Loading> tasks = new HashMap<>();
+
+	/**
+	 * Runs task that loading of objects can depend on, unless it is loaded
+	 * already. Each task is run by one thread at a time: if another thread is
+	 * running the same task, this method waits for it. As for objects in
+	 * {@link COSBody#get(COSKey, ICOSObjectLoader)}, if that thread waits,
+	 * maybe through other threads, for object loaded by this thread, the task
+	 * is run by this thread too.
+	 *
+	 * @param id   identifies task, tasks with equal identifiers are the same.
+	 * @param task is task to run.
+	 * @return false if task is being run by this thread already, so it can't
+	 * be run or waited for, true otherwise.
+	 */
+	public boolean load(final Object id, final ICOSLoadingTask task) throws IOException {
+		return task.isLoaded() || load(this.tasks, id, task, false);
+	}
+
+	/**
+	 * Runs task identified by id in given loadings, that are guarded by this
+	 * coordinator, unless it is loaded already or being run by another thread.
+	 *
+	 * @param reentrant specifies if task that is being run by this thread is
+	 *                  run once more or if false is returned for it.
+	 */
+	<K> boolean load(final Map<K, Loading> loadings, final K id, final ICOSLoadingTask task,
+					 final boolean reentrant) throws IOException {
+		Thread current = Thread.currentThread();
+		Loading loading;
+		while (true) {
+			synchronized (this.lock) {
+				if (task.isLoaded()) {
+					return true;
+				}
+				loading = loadings.get(id);
+				if (loading == null) {
+					loading = new Loading();
+					loadings.put(id, loading);
+					break;
+				}
+				if (!reentrant && loading.owner == current) {
+					return false;
+				}
+				if (isWaitedBy(current, loading)) {
+					loading = null;
+					break;
+				}
+				this.awaited.put(current, loading);
+			}
+			try {
+				loading.await(id);
+			} finally {
+				synchronized (this.lock) {
+					this.awaited.remove(current);
+				}
+			}
+		}
+		try {
+			task.load();
+			return true;
+		} finally {
+			if (loading != null) {
+				synchronized (this.lock) {
+					loadings.remove(id);
+				}
+				loading.finish();
+			}
+		}
+	}
+
+	// checks if loading is performed by given thread or by thread that
+	// waits, maybe through other threads, for object loaded by given thread,
+	// called while holding lock
+	private boolean isWaitedBy(final Thread thread, final Loading loading) {
+		Loading current = loading;
+		for (int i = 0; i <= this.awaited.size(); ++i) {
+			if (current.owner == thread) {
+				return true;
+			}
+			current = this.awaited.get(current.owner);
+			if (current == null) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Loading run by one thread, only threads waiting for it are woken up
+	 * when it is finished.
+	 */
+	static final class Loading {
+		private final Thread owner = Thread.currentThread();
+		private final CountDownLatch finished = new CountDownLatch(1);
+
+		private void await(final Object id) throws IOException {
+			try {
+				this.finished.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Loading of " + id + " was interrupted", e);
+			}
+		}
+
+		private void finish() {
+			this.finished.countDown();
+		}
+	}
+}
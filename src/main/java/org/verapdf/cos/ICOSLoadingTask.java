@@ -0,0 +1,44 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos;
+
+import java.io.IOException;
+
+/**
+ * Loads data that loading of objects can depend on, e.g. xref of document
+ * that is read on demand.
+ */
+public interface ICOSLoadingTask {
+
+    /**
+     * @return true if data is loaded already and task need not be run.
+     */
+    boolean isLoaded();
+
+    /**
+     * Loads data. Task can be run by several threads at the same time, if
+     * they wait for each other otherwise, so it shall publish its result
+     * atomically.
+     *
+     * @throws IOException if data cannot be loaded.
+     */
+    void load() throws IOException;
+}
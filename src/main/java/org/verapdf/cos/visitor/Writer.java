@@ -23,6 +23,7 @@ package org.verapdf.cos.visitor;
 import org.verapdf.as.ASAtom;
 import org.verapdf.as.exceptions.StringExceptions;
 import org.verapdf.as.filters.io.ASBufferedInFilter;
+import org.verapdf.as.io.ASBufferPool;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.cos.*;
 import org.verapdf.cos.xref.COSXRefEntry;
@@ -214,17 +215,21 @@ public class Writer implements IVisitor {
 
 			length = getOffset();
 
-			byte[] buffer = new byte[1024];
+			byte[] buffer = ASBufferPool.acquire(1024);
 			long count;
 
-			in.reset();
+			try {
+				in.reset();
 
-			while(true) {
-				count = in.read(buffer, 1024);
-				if (count == -1) {
-					break;
+				while(true) {
+					count = in.read(buffer, 1024);
+					if (count == -1) {
+						break;
+					}
+					this.os.write(buffer, (int) count);
 				}
-				this.os.write(buffer, (int) count);
+			} finally {
+				ASBufferPool.release(buffer);
 			}
 
 			length = getOffset() - length;
@@ -245,14 +250,18 @@ public class Writer implements IVisitor {
 			// That is the case of fitered stream. Optimization can be reached
 			// if decoded data is stored in memory and not thrown away.
 			stream.reset();
-			byte[] buf = new byte[ASBufferedInFilter.BF_BUFFER_SIZE];
-			long res = 0;
-			int read = stream.read(buf);
-			while (read != -1) {
-				res += read;
-				read = stream.read(buf);
+			byte[] buf = ASBufferPool.acquire(ASBufferedInFilter.BF_BUFFER_SIZE);
+			try {
+				long res = 0;
+				int read = stream.read(buf);
+				while (read != -1) {
+					res += read;
+					read = stream.read(buf);
+				}
+				return res;
+			} finally {
+				ASBufferPool.release(buf);
 			}
-			return res;
 		}
 	}
 
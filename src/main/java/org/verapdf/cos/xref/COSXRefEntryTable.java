@@ -0,0 +1,244 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos.xref;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Table of xref entries indexed by object number. Offsets, generations and
+ * types of entries are kept in arrays, so no objects are allocated per
+ * entry. Entries with numbers that are much greater than the number of
+ * entries in table are kept in map instead, so that sparse numbering does not
+ * grow the arrays. Negative object numbers are not valid and entries for them
+ * are ignored.
+ */
+public class COSXRefEntryTable {
+
+	private static final byte NONE = 0;
+	private static final byte IN_USE = 1;
+	private static final byte FREE = 2;
+
+	private static final int INITIAL_CAPACITY = 16;
+	// arrays always can grow to this size, above it at least quarter of
+	// array elements shall be used
+	private static final int MIN_DENSE_CAPACITY = 1 << 16;
+	private static final int DENSITY_FACTOR = 4;
+
+	private long[] offsets;
+	private int[] generations;
+	private byte[] types;
+	private final TreeMap<Integer, COSXRefEntry> sparse;
+	private int size;
+
+	public COSXRefEntryTable() {
+		this.offsets = new long[INITIAL_CAPACITY];
+		this.generations = new int[INITIAL_CAPACITY];
+		this.types = new byte[INITIAL_CAPACITY];
+		this.sparse = new TreeMap<>();
+	}
+
+	/**
+	 * Sets entry for given object number replacing previous one.
+	 *
+	 * @param number     is object number.
+	 * @param offset     is offset of object.
+	 * @param generation is generation of object.
+	 * @param free       is 'f' if entry is free and 'n' otherwise.
+	 */
+	public void set(int number, long offset, int generation, char free) {
+		if (number < 0) {
+			return;
+		}
+		if (number >= this.types.length && isDense(number)) {
+			grow(number + 1);
+		}
+		if (number < this.types.length) {
+			if (this.types[number] == NONE) {
+				this.size++;
+			}
+			this.offsets[number] = offset;
+			this.generations[number] = generation;
+			this.types[number] = free == 'n' ? IN_USE : FREE;
+			return;
+		}
+		if (this.sparse.put(Integer.valueOf(number), new COSXRefEntry(offset, generation, free)) == null) {
+			this.size++;
+		}
+		int last = this.sparse.lastKey().intValue();
+		if (isDense(last)) {
+			grow(last + 1);
+		}
+	}
+
+	/**
+	 * Removes entry for given object number.
+	 */
+	public void remove(int number) {
+		if (number >= 0 && number < this.types.length) {
+			if (this.types[number] != NONE) {
+				this.types[number] = NONE;
+				this.size--;
+			}
+		} else if (this.sparse.remove(Integer.valueOf(number)) != null) {
+			this.size--;
+		}
+	}
+
+	/**
+	 * @return true if table has entry for given object number.
+	 */
+	public boolean contains(int number) {
+		if (number >= 0 && number < this.types.length) {
+			return this.types[number] != NONE;
+		}
+		return this.sparse.containsKey(Integer.valueOf(number));
+	}
+
+	/**
+	 * @return offset of entry for given object number or 0 if there is no
+	 * such entry.
+	 */
+	public long getOffset(int number) {
+		if (number >= 0 && number < this.types.length) {
+			return this.types[number] != NONE ? this.offsets[number] : 0;
+		}
+		COSXRefEntry entry = this.sparse.get(Integer.valueOf(number));
+		return entry != null ? entry.offset : 0;
+	}
+
+	/**
+	 * @return generation of entry for given object number or 0 if there is
+	 * no such entry.
+	 */
+	public int getGeneration(int number) {
+		if (number >= 0 && number < this.types.length) {
+			return this.types[number] != NONE ? this.generations[number] : 0;
+		}
+		COSXRefEntry entry = this.sparse.get(Integer.valueOf(number));
+		return entry != null ? entry.generation : 0;
+	}
+
+	/**
+	 * @return true if entry for given object number is free.
+	 */
+	public boolean isFree(int number) {
+		if (number >= 0 && number < this.types.length) {
+			return this.types[number] == FREE;
+		}
+		COSXRefEntry entry = this.sparse.get(Integer.valueOf(number));
+		return entry != null && entry.free != 'n';
+	}
+
+	/**
+	 * @return new xref entry object with data of entry for given object number
+	 * or null if there is no such entry.
+	 */
+	public COSXRefEntry getEntry(int number) {
+		if (number >= 0 && number < this.types.length) {
+			if (this.types[number] == NONE) {
+				return null;
+			}
+			return new COSXRefEntry(this.offsets[number], this.generations[number],
+					this.types[number] == FREE ? 'f' : 'n');
+		}
+		COSXRefEntry entry = this.sparse.get(Integer.valueOf(number));
+		return entry != null ? new COSXRefEntry(entry.offset, entry.generation, entry.free) : null;
+	}
+
+	/**
+	 * @return number of entries in table.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the least object number in table or -1 if table is empty.
+	 */
+	public int firstNumber() {
+		return nextNumber(-1);
+	}
+
+	/**
+	 * Gets object numbers of table entries in ascending order. Numbers of all
+	 * entries can be iterated without allocations as
+	 * <code>for (int n = firstNumber(); n != -1; n = nextNumber(n))</code>.
+	 *
+	 * @return the least object number in table that is greater than given
+	 * one or -1 if there is no such number.
+	 */
+	public int nextNumber(int number) {
+		if (number == Integer.MAX_VALUE) {
+			return -1;
+		}
+		int i = Math.max(number + 1, 0);
+		while (i < this.types.length) {
+			if (this.types[i] != NONE) {
+				return i;
+			}
+			++i;
+		}
+		Integer next = this.sparse.higherKey(Integer.valueOf(Math.max(number, i - 1)));
+		return next != null ? next.intValue() : -1;
+	}
+
+	/**
+	 * @return the greatest object number in table or -1 if table is empty.
+	 */
+	public int lastNumber() {
+		if (!this.sparse.isEmpty()) {
+			return this.sparse.lastKey().intValue();
+		}
+		for (int i = this.types.length - 1; i >= 0; --i) {
+			if (this.types[i] != NONE) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean isDense(int number) {
+		return number < MIN_DENSE_CAPACITY || number < (long) DENSITY_FACTOR * this.size;
+	}
+
+	private void grow(int capacity) {
+		int newCapacity = (int) Math.min(Math.max((long) capacity, 2L * this.types.length), Integer.MAX_VALUE);
+		long[] newOffsets = new long[newCapacity];
+		int[] newGenerations = new int[newCapacity];
+		byte[] newTypes = new byte[newCapacity];
+		System.arraycopy(this.offsets, 0, newOffsets, 0, this.types.length);
+		System.arraycopy(this.generations, 0, newGenerations, 0, this.types.length);
+		System.arraycopy(this.types, 0, newTypes, 0, this.types.length);
+		this.offsets = newOffsets;
+		this.generations = newGenerations;
+		this.types = newTypes;
+		// entries that fit into arrays now are moved from map
+		Map<Integer, COSXRefEntry> moved = this.sparse.subMap(Integer.valueOf(0), Integer.valueOf(newCapacity));
+		for (Map.Entry<Integer, COSXRefEntry> entry : moved.entrySet()) {
+			int number = entry.getKey().intValue();
+			this.offsets[number] = entry.getValue().offset;
+			this.generations[number] = entry.getValue().generation;
+			this.types[number] = entry.getValue().free == 'n' ? IN_USE : FREE;
+		}
+		moved.clear();
+	}
+}
@@ -31,11 +31,11 @@ import java.util.*;
  */
 public class COSXRefSection {
 
-	private Map<Integer, COSXRefEntry> entries;
+	private COSXRefEntryTable entries;
 
 	public COSXRefSection() {
-		this.entries = new TreeMap<>();
-		this.entries.put(0, COSXRefEntry.FIRST_XREF_ENTRY);
+		this.entries = new COSXRefEntryTable();
+		this.addEntry(0, COSXRefEntry.FIRST_XREF_ENTRY);
 	}
 
 	public void add(final COSKey key, final long offset) {
@@ -43,7 +43,19 @@ public class COSXRefSection {
 	}
 
 	public void add(final COSKey key, final long offset, final char free) {
-		this.entries.put(key.getNumber(), new COSXRefEntry(offset, key.getGeneration(), free));
+		this.entries.set(key.getNumber(), offset, key.getGeneration(), free);
+	}
+
+	/**
+	 * Adds entry without creation of key object.
+	 *
+	 * @param number     is object number.
+	 * @param generation is object generation.
+	 * @param offset     is object offset.
+	 * @param free       is 'f' if entry is free and 'n' otherwise.
+	 */
+	public void add(final int number, final int generation, final long offset, final char free) {
+		this.entries.set(number, offset, generation, free);
 	}
 
 	public void add(final Map<COSKey, Long> offsets) {
@@ -57,45 +69,55 @@ public class COSXRefSection {
 	}
 
 	public void addTo(final List<COSKey> keys) {
-		for (Map.Entry<Integer, COSXRefEntry> entry : this.entries.entrySet()) {
-			final COSKey key = new COSKey(entry.getKey(), entry.getValue().generation);
-			if (entry.getValue().free == 'n') {
-				keys.add(key);
+		Set<Integer> freeNumbers = new HashSet<>();
+		List<COSKey> usedKeys = new ArrayList<>();
+		for (int number = this.entries.firstNumber(); number != -1; number = this.entries.nextNumber(number)) {
+			if (this.entries.isFree(number)) {
+				freeNumbers.add(number);
 			} else {
-				removeIfNumberEqual(keys, key.getNumber());
+				usedKeys.add(new COSKey(number, this.entries.getGeneration(number)));
 			}
 		}
+		removeIfNumberEqual(keys, freeNumbers);
+		keys.addAll(usedKeys);
 	}
 
 	public void addTo(final Map<COSKey, Long> offsets) {
-		for (Map.Entry<Integer, COSXRefEntry> entry : this.entries.entrySet()) {
-			final COSKey key = new COSKey(entry.getKey(), entry.getValue().generation);
-			if (entry.getValue().free == 'n') {
-				offsets.put(key, entry.getValue().offset);
+		for (int number = this.entries.firstNumber(); number != -1; number = this.entries.nextNumber(number)) {
+			int generation = this.entries.getGeneration(number);
+			if (!this.entries.isFree(number)) {
+				offsets.put(new COSKey(number, generation), this.entries.getOffset(number));
 			} else {
-				offsets.remove(new COSKey(key.getNumber(), key.getGeneration() - 1));
+				offsets.remove(new COSKey(number, generation - 1));
 			}
 		}
 	}
 
+	/**
+	 * @return entries of this section indexed by object number.
+	 */
+	public COSXRefEntryTable getEntries() {
+		return this.entries;
+	}
+
 	public List<COSXRefRange> getRange() {
 		List<COSXRefRange> result = new ArrayList<>();
 
-		if (this.entries.isEmpty()) {
+		int number = this.entries.firstNumber();
+		if (number == -1) {
 			return result;
 		}
 
-		Iterator<Map.Entry<Integer, COSXRefEntry>> iterator = this.entries.entrySet().iterator();
-		COSXRefRange segment = new COSXRefRange(iterator.next().getKey());
-		int nextSegment;
-		while(iterator.hasNext()) {
-			nextSegment = iterator.next().getKey();
-			if (nextSegment == segment.next()) {
+		COSXRefRange segment = new COSXRefRange(number);
+		number = this.entries.nextNumber(number);
+		while (number != -1) {
+			if (number == segment.next()) {
 				segment.count++;
 			} else {
 				result.add(segment);
-				segment = new COSXRefRange(nextSegment);
+				segment = new COSXRefRange(number);
 			}
+			number = this.entries.nextNumber(number);
 		}
 		result.add(segment);
 
@@ -103,33 +125,30 @@ public class COSXRefSection {
 	}
 
 	public COSXRefEntry getEntry(final int number) {
-		return this.entries.get(number);
+		return this.entries.getEntry(number);
 	}
 
 	public void addEntry(final int number, final COSXRefEntry entry) {
-		this.entries.put(number, entry);
+		this.entries.set(number, entry.offset, entry.generation, entry.free);
 	}
 
-	private static void removeIfNumberEqual(final List<COSKey> keys, final int number) {
+	private static void removeIfNumberEqual(final List<COSKey> keys, final Set<Integer> numbers) {
+		if (numbers.isEmpty()) {
+			return;
+		}
+		List<COSKey> kept = new ArrayList<>(keys.size());
 		for (COSKey key : keys) {
-			if (key.getNumber() == number) {
-				keys.remove(number);
+			if (!numbers.contains(key.getNumber())) {
+				kept.add(key);
 			}
 		}
+		keys.clear();
+		keys.addAll(kept);
 	}
 
 	public long next() {
-		if (entries.isEmpty()) {
-			return 1;
-		} else {
-			// TODO : no nice way to get last element of linked hash map
-			Iterator<Map.Entry<Integer, COSXRefEntry>> iterator = this.entries.entrySet().iterator();
-			Map.Entry<Integer, COSXRefEntry> lastElement = iterator.next();
-			while (iterator.hasNext()) {
-				lastElement = iterator.next();
-			}
-			return lastElement.getKey() + 1;
-		}
+		int last = this.entries.lastNumber();
+		return last == -1 ? 1 : last + 1;
 	}
 
 }
@@ -0,0 +1,376 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSLoadingCoordinator;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSTrailer;
+import org.verapdf.cos.ICOSLoadingTask;
+import org.verapdf.cos.xref.COSXRefEntryTable;
+import org.verapdf.cos.xref.COSXRefInfo;
+import org.verapdf.cos.xref.COSXRefSection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Xref of document with incremental updates that keeps xref sections of
+ * every revision apart instead of merging them. Each instance is a view of
+ * document as of one revision: offsets of objects are resolved through the
+ * chain of sections from this revision back to the original document, and
+ * sections are parsed only when lookup reaches them. Views of all revisions
+ * of one document share their sections and objects that are the same in
+ * these revisions.
+ */
+public class COSXRefRevisionReader extends COSXRefTableReader {
+
+	private static final Logger LOGGER = Logger.getLogger(COSXRefRevisionReader.class.getCanonicalName());
+
+	private static final long ABSENT = Long.MIN_VALUE;
+
+	private final Revisions revisions;
+	private final int revision;
+	// index of the latest section of this revision
+	private final int firstSection;
+	private final SortedSet<Long> startXRefs;
+	private final COSTrailer firstTrailer;
+	private final COSTrailer lastTrailer;
+	// keys of all objects are merged from sections when they are requested
+	private volatile COSXRefTableReader merged;
+
+	/**
+	 * Loads entries of xref section which offset and trailer are known.
+	 */
+	public interface ISectionLoader {
+
+		void load(COSXRefInfo section) throws IOException;
+	}
+
+	/**
+	 * Creates view of the latest revision of document.
+	 *
+	 * @param sections    are xref sections with read trailers in the order
+	 *                    they are returned by
+	 *                    {@link org.verapdf.parser.PDFParser#getXRefTrailers(List)}.
+	 * @param coordinator coordinates reading of sections with loadings of
+	 *                    objects of document.
+	 * @param loader      loads entries of sections when they are needed.
+	 */
+	public COSXRefRevisionReader(final List<COSXRefInfo> sections, final COSLoadingCoordinator coordinator,
+								 final ISectionLoader loader) {
+		this(new Revisions(sections, coordinator, loader), -1);
+	}
+
+	private COSXRefRevisionReader(final Revisions revisions, final int revision) {
+		this.revisions = revisions;
+		this.revision = revision < 0 ? revisions.count - 1 : revision;
+		int first = 0;
+		while (first < revisions.sections.length && revisions.revisionOf[first] > this.revision) {
+			++first;
+		}
+		this.firstSection = first;
+		this.startXRefs = new TreeSet<>();
+		COSTrailer firstTrailer = null;
+		COSTrailer lastTrailer = null;
+		for (int i = first; i < revisions.sections.length; ++i) {
+			Long startXRef = Long.valueOf(revisions.sections[i].getStartXRef());
+			if (this.startXRefs.isEmpty() || startXRef.compareTo(this.startXRefs.first()) < 0) {
+				firstTrailer = revisions.sections[i].getTrailer();
+			}
+			if (this.startXRefs.isEmpty() || startXRef.compareTo(this.startXRefs.last()) > 0) {
+				lastTrailer = revisions.sections[i].getTrailer();
+			}
+			this.startXRefs.add(startXRef);
+		}
+		this.firstTrailer = firstTrailer;
+		this.lastTrailer = lastTrailer;
+	}
+
+	/**
+	 * @return number of revisions of document, the original document and
+	 * each of its incremental updates are separate revisions.
+	 */
+	public int getRevisionsCount() {
+		return this.revisions.count;
+	}
+
+	/**
+	 * @return number of revision this view corresponds to, counted from 0
+	 * for the original document.
+	 */
+	public int getRevision() {
+		return this.revision;
+	}
+
+	/**
+	 * Creates view of document as of given revision that shares sections
+	 * and objects with this view.
+	 *
+	 * @param revision is number of revision counted from 0 for the original
+	 *                 document.
+	 * @return xref of given revision.
+	 */
+	public COSXRefRevisionReader getRevision(final int revision) throws IOException {
+		if (revision < 0 || revision >= this.revisions.count) {
+			throw new IOException("Revision " + revision + " is requested, but document contains "
+					+ this.revisions.count + " revisions");
+		}
+		return new COSXRefRevisionReader(this.revisions, revision);
+	}
+
+	/**
+	 * @return true if keys of all objects of this revision are merged from
+	 * xref sections.
+	 */
+	public boolean isKeysLoaded() {
+		return this.merged != null;
+	}
+
+	/**
+	 * @return object with given offset that is shared by revision views or
+	 * null if there is no such object.
+	 */
+	public COSObject getSharedObject(final long offset) {
+		return this.revisions.objects.get(Long.valueOf(offset));
+	}
+
+	/**
+	 * Shares object with given offset between revision views. Object shall
+	 * not depend on revision, e.g. shall not contain indirect references
+	 * that are resolved through document of the view. The same instance is
+	 * returned to all views, so it is read-only.
+	 *
+	 * @return shared object with given offset, that is given object unless
+	 * another view has shared it before.
+	 */
+	public COSObject shareObject(final long offset, final COSObject object) {
+		COSObject previous = this.revisions.objects.putIfAbsent(Long.valueOf(offset), object);
+		return previous != null ? previous : object;
+	}
+
+	@Override
+	public long getStartXRef() {
+		return this.firstSection < this.revisions.sections.length ?
+				this.revisions.sections[this.firstSection].getStartXRef() : 0;
+	}
+
+	@Override
+	public List<COSKey> getKeys() {
+		return getMerged().getKeys();
+	}
+
+	@Override
+	public int getGreatestKeyNumber() {
+		return getMerged().getGreatestKeyNumber();
+	}
+
+	@Override
+	public long getOffset(final COSKey key) {
+		long offset = find(key);
+		return offset != ABSENT ? offset : 0;
+	}
+
+	@Override
+	public boolean containsKey(final COSKey key) {
+		return find(key) != ABSENT;
+	}
+
+	@Override
+	public COSTrailer getTrailer() {
+		return this.firstSection < this.revisions.sections.length ?
+				this.revisions.sections[this.firstSection].getTrailer() : new COSTrailer();
+	}
+
+	@Override
+	public COSTrailer getFirstTrailer() {
+		return this.firstTrailer;
+	}
+
+	@Override
+	public COSTrailer getLastTrailer() {
+		return this.lastTrailer;
+	}
+
+	@Override
+	public SortedSet<Long> getStartXRefs() {
+		return Collections.unmodifiableSortedSet(this.startXRefs);
+	}
+
+	// walks sections from this revision back to the original document: the
+	// latest entry of object number either defines the key or frees it, entry
+	// of another generation leaves the key to older sections
+	private long find(final COSKey key) {
+		int number = key.getNumber();
+		int generation = key.getGeneration();
+		for (int i = this.firstSection; i < this.revisions.sections.length; ++i) {
+			COSXRefInfo section = this.revisions.getSection(i);
+			if (section == null) {
+				// section is being read by this thread, object needed for
+				// reading it can be found only in older sections
+				continue;
+			}
+			COSXRefEntryTable entries = section.getXRefSection().getEntries();
+			if (!entries.contains(number)) {
+				continue;
+			}
+			if (!entries.isFree(number)) {
+				if (entries.getGeneration(number) == generation) {
+					return entries.getOffset(number);
+				}
+			} else if (entries.getGeneration(number) - 1 == generation) {
+				return ABSENT;
+			}
+		}
+		return ABSENT;
+	}
+
+	// sections are read outside of any lock, as reading them can require
+	// objects loaded by other threads
+	private COSXRefTableReader getMerged() {
+		COSXRefTableReader merged = this.merged;
+		if (merged != null) {
+			return merged;
+		}
+		List<COSXRefInfo> infos = new ArrayList<>();
+		boolean complete = true;
+		for (int i = this.revisions.sections.length - 1; i >= this.firstSection; --i) {
+			COSXRefInfo section = this.revisions.getSection(i);
+			if (section != null) {
+				infos.add(section);
+			} else {
+				complete = false;
+			}
+		}
+		merged = new COSXRefTableReader(infos);
+		// keys requested while section is being read are not kept
+		if (complete) {
+			this.merged = merged;
+		}
+		return merged;
+	}
+
+	// sections and objects shared by views of all revisions of document
+	private static class Revisions {
+
+		// sections from the last incremental update to the original document
+		private final COSXRefInfo[] sections;
+		private final int[] revisionOf;
+		private final int count;
+		private final COSLoadingCoordinator coordinator;
+		private final ISectionLoader loader;
+		// read sections, copies of sections with their entries
+		private final AtomicReferenceArray<COSXRefInfo> loaded;
+		private final ConcurrentMap<Long, COSObject> objects = new ConcurrentHashMap<>();
+
+		private Revisions(final List<COSXRefInfo> infos, final COSLoadingCoordinator coordinator,
+						  final ISectionLoader loader) {
+			int size = infos.size();
+			this.sections = new COSXRefInfo[size];
+			this.revisionOf = new int[size];
+			int revision = 0;
+			for (int i = 0; i < size; ++i) {
+				this.sections[size - 1 - i] = infos.get(i);
+				this.revisionOf[size - 1 - i] = revision;
+				// xref stream of hybrid-reference section goes right before
+				// xref table that refers to it, they form one revision
+				if (i + 1 == size || !refersToXRefStream(infos.get(i + 1))) {
+					++revision;
+				}
+			}
+			this.count = revision;
+			this.coordinator = coordinator;
+			this.loader = loader;
+			this.loaded = new AtomicReferenceArray<>(size);
+		}
+
+		/**
+		 * Reads section with given index, if it is not read yet. Section is
+		 * read as loading task of coordinator, so thread that waits for object
+		 * loaded by the thread reading it reads it too instead of waiting.
+		 *
+		 * @return read section or null if it is being read by this thread or
+		 * if waiting for it is interrupted.
+		 */
+		private COSXRefInfo getSection(final int index) {
+			COSXRefInfo result = this.loaded.get(index);
+			if (result != null) {
+				return result;
+			}
+			final COSXRefInfo section = this.sections[index];
+			try {
+				boolean loaded = this.coordinator.load(section, new ICOSLoadingTask() {
+					@Override
+					public boolean isLoaded() {
+						return Revisions.this.loaded.get(index) != null;
+					}
+
+					@Override
+					public void load() {
+						loadSection(index, section);
+					}
+				});
+				if (!loaded) {
+					LOGGER.log(Level.FINE, "Xref section at offset " + section.getStartXRef() +
+							" is required while it is read");
+					return null;
+				}
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Can't read xref section at offset " + section.getStartXRef(), e);
+			}
+			return this.loaded.get(index);
+		}
+
+		// sections are read into copies, so sections with trailers stay
+		// unchanged and the first read copy is kept
+		private void loadSection(final int index, final COSXRefInfo section) {
+			COSXRefInfo result = copy(section);
+			try {
+				this.loader.load(result);
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Can't read xref section at offset " + section.getStartXRef(), e);
+				result.setXref(new COSXRefSection());
+			}
+			this.loaded.compareAndSet(index, null, result);
+		}
+
+		private static COSXRefInfo copy(final COSXRefInfo section) {
+			COSXRefInfo result = new COSXRefInfo();
+			result.setStartXRef(section.getStartXRef());
+			result.setTrailer(section.getTrailer().getObject());
+			return result;
+		}
+
+		private static boolean refersToXRefStream(final COSXRefInfo section) {
+			Long offset = section.getTrailer().getXRefStm();
+			return offset != null && offset.longValue() != 0;
+		}
+	}
+}
@@ -22,6 +22,7 @@ package org.verapdf.io;
 
 import org.verapdf.cos.COSKey;
 import org.verapdf.cos.COSTrailer;
+import org.verapdf.cos.xref.COSXRefEntryTable;
 import org.verapdf.cos.xref.COSXRefInfo;
 
 import java.util.*;
@@ -32,7 +33,10 @@ import java.util.*;
 public class COSXRefTableReader {
 
 	private long startXRef;
-	private Map<COSKey, Long> offsets;
+	// offsets of objects indexed by object number and offsets of other
+	// generations of the same objects, that are rare
+	private COSXRefEntryTable offsets;
+	private Map<COSKey, Long> otherGenerations;
 	private COSTrailer trailer;
 
 	private SortedSet<Long> startXRefs;
@@ -42,7 +46,8 @@ public class COSXRefTableReader {
 
 	public COSXRefTableReader() {
 		this.startXRef = 0;
-		this.offsets = new HashMap<>();
+		this.offsets = new COSXRefEntryTable();
+		this.otherGenerations = new HashMap<>();
 		this.trailer = new COSTrailer();
 		this.startXRefs = new TreeSet<>();
 	}
@@ -59,7 +64,7 @@ public class COSXRefTableReader {
 
 	public void set(final List<COSXRefInfo> infos) {
 		this.startXRef = 0;
-		this.offsets.clear();
+		clearOffsets();
 		this.trailer.clear();
 		this.startXRefs.clear();
 
@@ -74,7 +79,7 @@ public class COSXRefTableReader {
 		Map<Long, COSTrailer> trailers = new HashMap<>();
 		for (COSXRefInfo info : infos) {
 			trailers.put(info.getStartXRef(), info.getTrailer());
-			info.getXRefSection().addTo(this.offsets);
+			merge(info.getXRefSection().getEntries());
 		}
 
 		setFirstLastTrailersAndStartXRefs(trailers);
@@ -82,6 +87,17 @@ public class COSXRefTableReader {
 		infos.clear();
 	}
 
+	/**
+	 * Sets trailers of given xref sections and offsets of objects that were
+	 * merged from these sections before.
+	 */
+	public void set(final List<COSXRefInfo> infos, final Map<COSKey, Long> offsets) {
+		set(infos);
+		for (Map.Entry<COSKey, Long> entry : offsets.entrySet()) {
+			put(entry.getKey().getNumber(), entry.getKey().getGeneration(), entry.getValue().longValue());
+		}
+	}
+
 	public void setFirstLastTrailersAndStartXRefs(Map<Long, COSTrailer> trailers) {
 		if (trailers.isEmpty()) {
 			return;
@@ -96,8 +112,8 @@ public class COSXRefTableReader {
 	public void set(final COSXRefInfo info) {
 		this.startXRef = info.getStartXRef();
 
-		this.offsets.clear();
-		info.getXRefSection().addTo(this.offsets);
+		clearOffsets();
+		merge(info.getXRefSection().getEntries());
 
 		this.trailer = info.getTrailer();
 	}
@@ -106,17 +122,47 @@ public class COSXRefTableReader {
 		return this.startXRef;
 	}
 
+	/**
+	 * @return keys of all objects in ascending order of object numbers.
+	 */
 	public List<COSKey> getKeys() {
-		return new ArrayList<>(offsets.keySet());
+		List<COSKey> keys = new ArrayList<>(this.offsets.size() + this.otherGenerations.size());
+		for (int number = this.offsets.firstNumber(); number != -1; number = this.offsets.nextNumber(number)) {
+			keys.add(new COSKey(number, this.offsets.getGeneration(number)));
+		}
+		keys.addAll(this.otherGenerations.keySet());
+		return keys;
+	}
+
+	/**
+	 * @return the greatest object number or -1 if there are no objects.
+	 */
+	public int getGreatestKeyNumber() {
+		int result = this.offsets.lastNumber();
+		for (COSKey key : this.otherGenerations.keySet()) {
+			result = Math.max(result, key.getNumber());
+		}
+		return result;
 	}
 
 	public long getOffset(final COSKey key) {
-		Long value = this.offsets.get(key);
+		int number = key.getNumber();
+		if (this.offsets.contains(number) && this.offsets.getGeneration(number) == key.getGeneration()) {
+			return this.offsets.getOffset(number);
+		}
+		if (this.otherGenerations.isEmpty()) {
+			return 0;
+		}
+		Long value = this.otherGenerations.get(key);
 		return value != null ? value : 0;
 	}
 
 	public boolean containsKey(final COSKey key) {
-		return this.offsets.containsKey(key);
+		int number = key.getNumber();
+		if (this.offsets.contains(number) && this.offsets.getGeneration(number) == key.getGeneration()) {
+			return true;
+		}
+		return !this.otherGenerations.isEmpty() && this.otherGenerations.containsKey(key);
 	}
 
 	public COSTrailer getTrailer() {
@@ -134,4 +180,43 @@ public class COSXRefTableReader {
 	public SortedSet<Long> getStartXRefs() {
 		return Collections.unmodifiableSortedSet(this.startXRefs);
 	}
+
+	// merges entries of next xref section in place: in-use entries are added
+	// and free entries remove previous generation of objects
+	private void merge(final COSXRefEntryTable entries) {
+		for (int number = entries.firstNumber(); number != -1; number = entries.nextNumber(number)) {
+			int generation = entries.getGeneration(number);
+			if (!entries.isFree(number)) {
+				put(number, generation, entries.getOffset(number));
+			} else {
+				remove(number, generation - 1);
+			}
+		}
+	}
+
+	private void put(final int number, final int generation, final long offset) {
+		if (this.offsets.contains(number)) {
+			int previousGeneration = this.offsets.getGeneration(number);
+			if (previousGeneration != generation) {
+				this.otherGenerations.put(new COSKey(number, previousGeneration), this.offsets.getOffset(number));
+			}
+		}
+		if (!this.otherGenerations.isEmpty()) {
+			this.otherGenerations.remove(new COSKey(number, generation));
+		}
+		this.offsets.set(number, offset, generation, 'n');
+	}
+
+	private void remove(final int number, final int generation) {
+		if (this.offsets.contains(number) && this.offsets.getGeneration(number) == generation) {
+			this.offsets.remove(number);
+		} else if (!this.otherGenerations.isEmpty()) {
+			this.otherGenerations.remove(new COSKey(number, generation));
+		}
+	}
+
+	private void clearOffsets() {
+		this.offsets = new COSXRefEntryTable();
+		this.otherGenerations.clear();
+	}
 }
@@ -20,10 +20,13 @@
  */
 package org.verapdf.io;
 
+import org.verapdf.cos.COSBody;
+import org.verapdf.cos.COSDocument;
 import org.verapdf.cos.COSHeader;
 import org.verapdf.cos.COSKey;
 import org.verapdf.cos.COSObject;
 import org.verapdf.cos.COSTrailer;
+import org.verapdf.pd.linearization.PDLinearization;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -43,6 +46,15 @@ public interface IReader extends Closeable {
 
 	COSObject getObject(final COSKey key) throws IOException;
 
+	/**
+	 * Parses objects with given keys in parallel and puts them into body.
+	 *
+	 * @param keys    are keys of objects to parse.
+	 * @param body    is body where parsed objects are put.
+	 * @param threads is number of threads used for parsing.
+	 */
+	void loadObjects(final List<COSKey> keys, final COSBody body, final int threads) throws IOException;
+
 	COSObject getObject(final long offset) throws IOException;
 
 	Long getOffset(final COSKey key);
@@ -62,4 +74,35 @@ public interface IReader extends Closeable {
 	long getLastTrailerOffset();
 
 	int getGreatestKeyNumberFromXref();
+
+	/**
+	 * @return false if keys of all objects are not read from xref yet, e.g.
+	 * only xref section of the first page of linearized document is read so
+	 * far, true otherwise.
+	 */
+	boolean isXRefLoaded();
+
+	/**
+	 * @return linearization of document opened by xref section of its first
+	 * page, or null if document is opened by its whole xref.
+	 */
+	PDLinearization getLinearization();
+
+	/**
+	 * @return number of revisions of document, the original document and
+	 * each of its incremental updates are separate revisions.
+	 */
+	int getRevisionsCount() throws IOException;
+
+	/**
+	 * Creates reader of document as of given revision, that shares document
+	 * file, xref sections and objects that are the same in both revisions
+	 * with this reader.
+	 *
+	 * @param document is document that objects of given revision belong to.
+	 * @param revision is number of revision counted from 0 for the original
+	 *                 document.
+	 * @return reader of given revision.
+	 */
+	IReader getRevisionReader(final COSDocument document, final int revision) throws IOException;
 }
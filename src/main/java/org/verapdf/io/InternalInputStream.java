@@ -25,10 +25,16 @@ import org.verapdf.as.io.ASInputStream;
 import org.verapdf.tools.IntReference;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * ASInputStream for reading data from file.
  * It contains methods for file closing management.
+ * Data is read with positional reads on the file channel, so streams that
+ * share one file do not depend on the file pointer and can be read from
+ * different threads. If {@link PageCache} is given, then data is read by
+ * cached pages shared by this stream and all its substreams.
  *
  * @author Timur Kamalov
  */
@@ -36,9 +42,12 @@ public class InternalInputStream extends SeekableInputStream {
 
 	private final static String READ_ONLY_MODE = "r";
 	private static int DEFAULT_BUFFER_SIZE = 2048;
+	private static final byte[] EMPTY_WINDOW = new byte[0];
 
 	private RandomAccessFile stream;
+	private FileChannel channel;
 	private byte[] buffer;
+	private ByteBuffer wrappedBuffer;
 
 	private long bufferFrom;
 	private long bufferTo;
@@ -49,6 +58,7 @@ public class InternalInputStream extends SeekableInputStream {
 	private String filePath;
 	private long fromOffset;
 	private long size;
+	private PageCache pageCache;
 
 	public InternalInputStream(final File file) throws IOException {
 		this(file, false);
@@ -72,6 +82,17 @@ public class InternalInputStream extends SeekableInputStream {
 		     new IntReference(numOfFileUsers), fileName, false);
 	}
 
+	/**
+	 * Constructor of stream that reads file through given page cache.
+	 *
+	 * @param fileName  is name of file to read.
+	 * @param pageCache is cache of file pages, it is shared with substreams.
+	 */
+	public InternalInputStream(final String fileName, PageCache pageCache) throws IOException {
+		this(new RandomAccessFile(fileName, READ_ONLY_MODE), 0, Long.MAX_VALUE,
+		     new IntReference(0), fileName, false, DEFAULT_BUFFER_SIZE, pageCache);
+	}
+
 	public InternalInputStream(final RandomAccessFile stream, long fromOffset, long size,
 	                           IntReference numOfFileUsers, String filePath, boolean isTempFile) throws IOException {
 		this(stream, fromOffset, size, numOfFileUsers, filePath, isTempFile, DEFAULT_BUFFER_SIZE);
@@ -80,15 +101,28 @@ public class InternalInputStream extends SeekableInputStream {
 	public InternalInputStream(final RandomAccessFile stream, long fromOffset, long size,
 	                           IntReference numOfFileUsers, String filePath,
 	                           boolean isTempFile, int bufferSize) throws IOException {
+		this(stream, fromOffset, size, numOfFileUsers, filePath, isTempFile, bufferSize, null);
+	}
+
+	public InternalInputStream(final RandomAccessFile stream, long fromOffset, long size,
+	                           IntReference numOfFileUsers, String filePath,
+	                           boolean isTempFile, int bufferSize, PageCache pageCache) throws IOException {
 		this.stream = stream;
-		this.buffer = new byte[bufferSize];
+		this.channel = stream.getChannel();
+		this.pageCache = pageCache;
+		if (pageCache == null) {
+			this.buffer = new byte[bufferSize];
+			this.wrappedBuffer = ByteBuffer.wrap(this.buffer);
+		}
 		this.bufferFrom = 0;
 		this.bufferTo = 0;
 		this.offset = 0;
 
 		this.isTempFile = isTempFile;
 		this.numOfFileUsers = numOfFileUsers;
-		this.numOfFileUsers.increment();
+		synchronized (numOfFileUsers) {
+			this.numOfFileUsers.increment();
+		}
 		this.filePath = filePath;
 		this.fromOffset = fromOffset;
 
@@ -109,7 +143,22 @@ public class InternalInputStream extends SeekableInputStream {
      */
 	public static InternalInputStream createConcatenated(byte[] alreadyRead,
 	                                                     final InputStream stream) throws IOException {
-		File temp = createTempFile(alreadyRead, stream);
+		return createConcatenated(alreadyRead, alreadyRead.length, stream);
+	}
+
+	/**
+	 * Constructor writes into temp file first alreadyReadLength bytes of
+	 * passed buffer, then passed stream. After that, InternalInputStream from
+	 * file is created.
+	 *
+	 * @param alreadyRead       is byte array of data that was already read
+	 *                          from the beginning of stream.
+	 * @param alreadyReadLength is actual length of data in alreadyRead.
+	 * @param stream            is data left in stream.
+	 */
+	public static InternalInputStream createConcatenated(byte[] alreadyRead, int alreadyReadLength,
+	                                                     final InputStream stream) throws IOException {
+		File temp = createTempFile(alreadyRead, alreadyReadLength, stream);
 		return new InternalInputStream(temp, true);
 	}
 
@@ -190,6 +239,30 @@ public class InternalInputStream extends SeekableInputStream {
 		return res;
 	}
 
+	@Override
+	public byte[] getWindow() throws IOException {
+		checkClosed("Reading");
+		if (isStreamEnd() && this.buffer == null) {
+			return EMPTY_WINDOW;
+		}
+		return this.buffer;
+	}
+
+	@Override
+	public int getWindowStart() {
+		return (int) (this.offset - this.bufferFrom);
+	}
+
+	@Override
+	public int getWindowEnd() {
+		return (int) (this.bufferTo - this.bufferFrom);
+	}
+
+	@Override
+	public void advanceWindow(int count) {
+		this.offset += count;
+	}
+
 	@Override
 	public long getOffset() throws IOException {
 		checkClosed("Offset obtaining");
@@ -198,15 +271,20 @@ public class InternalInputStream extends SeekableInputStream {
 
 	@Override
 	public ASInputStream getStream(long startOffset, long length) throws IOException {
-		return new InternalInputStream(this.stream, startOffset, length, numOfFileUsers, filePath, isTempFile);
+		return new InternalInputStream(this.stream, startOffset, length, numOfFileUsers, filePath,
+		                               isTempFile, DEFAULT_BUFFER_SIZE, pageCache);
 	}
 
 	@Override
 	public void closeResource() throws IOException {
 		if (!isSourceClosed) {
 			isSourceClosed = true;
-			this.numOfFileUsers.decrement();
-			if (this.numOfFileUsers.equals(0)) {
+			boolean isLastUser;
+			synchronized (this.numOfFileUsers) {
+				this.numOfFileUsers.decrement();
+				isLastUser = this.numOfFileUsers.equals(0);
+			}
+			if (isLastUser) {
 				this.stream.close();
 				if (isTempFile) {
 					File tmp = new File(filePath);
@@ -222,6 +300,9 @@ public class InternalInputStream extends SeekableInputStream {
 		if ((offset >= bufferFrom) && (offset < bufferTo)) {
 			return false;
 		}
+		if (pageCache != null) {
+			return !feedPage();
+		}
 		int read = feedBuffer();
 		this.bufferFrom = offset;
 		this.bufferTo = read == -1 ? offset : offset + read;
@@ -241,23 +322,49 @@ public class InternalInputStream extends SeekableInputStream {
 		}
 
 		long realOffset = fromOffset + offset;
-		if (this.stream.getFilePointer() != realOffset) {
-			this.stream.seek(realOffset);
-		}
-		int read = this.stream.read(this.buffer);
+		this.wrappedBuffer.clear();
+		int read = this.channel.read(this.wrappedBuffer, realOffset);
 		return (int) Math.min(read, left);
 	}
 
+	private boolean feedPage() throws IOException {
+		this.bufferFrom = offset;
+		this.bufferTo = offset;
+		if (offset >= size) {
+			return false;
+		}
+		long realOffset = fromOffset + offset;
+		long pageIndex = realOffset >>> pageCache.getPageShift();
+		byte[] page = pageCache.getPage(this.channel, pageIndex);
+		long pageFrom = (pageIndex << pageCache.getPageShift()) - fromOffset;
+		if (pageFrom + page.length <= offset) {
+			return false;
+		}
+		this.buffer = page;
+		this.bufferFrom = pageFrom;
+		this.bufferTo = Math.min(pageFrom + page.length, size);
+		return true;
+	}
+
+	/**
+	 * @return page cache used by this stream or null if data is read without
+	 * page cache.
+	 */
+	public PageCache getPageCache() {
+		return pageCache;
+	}
+
     @Override
 	public long getStreamLength() throws IOException {
 		checkClosed("Stream length obtaining");
 		return size;
 	}
 
-	private static File createTempFile(byte[] alreadyRead, InputStream input) throws IOException {
+	private static File createTempFile(byte[] alreadyRead, int alreadyReadLength,
+	                                   InputStream input) throws IOException {
 		File tmpFile = File.createTempFile("tmp_pdf_file", ".pdf");
 		try (FileOutputStream output = new FileOutputStream(tmpFile)) {
-			output.write(alreadyRead);
+			output.write(alreadyRead, 0, alreadyReadLength);
 
 			//copy stream content
 			byte[] buffer = new byte[ASBufferedInFilter.BF_BUFFER_SIZE];
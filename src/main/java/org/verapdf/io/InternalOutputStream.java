@@ -21,6 +21,7 @@
 package org.verapdf.io;
 
 import org.verapdf.as.filters.io.ASBufferedInFilter;
+import org.verapdf.as.io.ASBufferPool;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.as.io.ASOutputStream;
 
@@ -75,15 +76,19 @@ public class InternalOutputStream implements ASOutputStream, Closeable {
 	}
 
 	public long write(ASInputStream stream) throws IOException {
-		byte[] buf = new byte[ASBufferedInFilter.BF_BUFFER_SIZE];
-		int read = stream.read(buf, buf.length);
-		int res = 0;
-		while (read != -1) {
-			this.write(buf, 0, read);
-			res += read;
-			read = stream.read(buf, buf.length);
+		byte[] buf = ASBufferPool.acquire(ASBufferedInFilter.BF_BUFFER_SIZE);
+		try {
+			int read = stream.read(buf, buf.length);
+			int res = 0;
+			while (read != -1) {
+				this.write(buf, 0, read);
+				res += read;
+				read = stream.read(buf, buf.length);
+			}
+			return res;
+		} finally {
+			ASBufferPool.release(buf);
 		}
-		return res;
 	}
 
 	public void close() throws IOException {
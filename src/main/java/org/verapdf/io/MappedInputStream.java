@@ -0,0 +1,282 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.tools.IntReference;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * SeekableInputStream that reads data from memory-mapped file. File is mapped
+ * in segments of fixed size, so files larger than 2 GB can be read. Seeking in
+ * this stream does not require any system calls.
+ */
+public class MappedInputStream extends SeekableInputStream {
+
+	private final static String READ_ONLY_MODE = "r";
+	private static final int DEFAULT_SEGMENT_SHIFT = 30;
+	private static final int WINDOW_SIZE = 8192;
+
+	private ByteBuffer[] segments;
+	private ByteBuffer[] views;
+	private final int segmentShift;
+	private final long segmentMask;
+
+	private long offset;
+	private final long fromOffset;
+	private final long size;
+	private final long fileLength;
+
+	private final IntReference numOfFileUsers;
+
+	// copy of data around current offset used as parser window
+	private byte[] window;
+	private long windowFrom;
+	private int windowLength;
+
+	public MappedInputStream(final String fileName) throws IOException {
+		this(new File(fileName));
+	}
+
+	public MappedInputStream(final File file) throws IOException {
+		this(file, DEFAULT_SEGMENT_SHIFT);
+	}
+
+	/**
+	 * Constructor that maps given file into memory.
+	 *
+	 * @param file         is file to map.
+	 * @param segmentShift is binary logarithm of the size of one mapped
+	 *                     segment.
+	 */
+	public MappedInputStream(final File file, int segmentShift) throws IOException {
+		if (segmentShift <= 0 || segmentShift > DEFAULT_SEGMENT_SHIFT) {
+			throw new IllegalArgumentException("Segment size shall be positive and not greater than 1 GB");
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, READ_ONLY_MODE)) {
+			FileChannel channel = raf.getChannel();
+			long length = channel.size();
+			long segmentSize = 1L << segmentShift;
+			int segmentsNumber = (int) ((length + segmentSize - 1) >>> segmentShift);
+			this.segments = new ByteBuffer[segmentsNumber];
+			for (int i = 0; i < segmentsNumber; ++i) {
+				long position = (long) i << segmentShift;
+				this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(segmentSize, length - position));
+			}
+			this.size = length;
+			this.fileLength = length;
+		}
+		this.segmentShift = segmentShift;
+		this.segmentMask = (1L << segmentShift) - 1;
+		this.views = new ByteBuffer[this.segments.length];
+		this.fromOffset = 0;
+		this.offset = 0;
+		this.numOfFileUsers = new IntReference(1);
+	}
+
+	private MappedInputStream(MappedInputStream parent, long fromOffset, long size) {
+		this.segments = parent.segments;
+		this.views = new ByteBuffer[this.segments.length];
+		this.segmentShift = parent.segmentShift;
+		this.segmentMask = parent.segmentMask;
+		this.fromOffset = fromOffset;
+		this.size = size;
+		this.fileLength = parent.fileLength;
+		this.offset = 0;
+		this.numOfFileUsers = parent.numOfFileUsers;
+		synchronized (this.numOfFileUsers) {
+			this.numOfFileUsers.increment();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkClosed("Reading");
+		if (offset >= size) {
+			return -1;
+		}
+		long position = fromOffset + offset++;
+		return segments[(int) (position >>> segmentShift)].get((int) (position & segmentMask)) & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] buffer, int size) throws IOException {
+		checkClosed("Reading");
+		if (buffer.length < size) {
+			throw new IllegalArgumentException("Destination buffer size is less than size to be read");
+		}
+		long left = Math.min(size, this.size - this.offset);
+		if (left <= 0) {
+			return -1;
+		}
+		int curPos = 0;
+		while (left > 0) {
+			long position = fromOffset + offset;
+			int segmentIndex = (int) (position >>> segmentShift);
+			ByteBuffer view = getView(segmentIndex);
+			int positionInSegment = (int) (position & segmentMask);
+			int toBeRead = (int) Math.min(left, view.limit() - positionInSegment);
+			view.position(positionInSegment);
+			view.get(buffer, curPos, toBeRead);
+			curPos += toBeRead;
+			offset += toBeRead;
+			left -= toBeRead;
+		}
+		return curPos;
+	}
+
+	@Override
+	public int skip(int size) throws IOException {
+		checkClosed("Skipping");
+		long newOffset = Math.min(offset + size, this.size);
+		int skipped = (int) (newOffset - offset);
+		seek(newOffset);
+		return skipped;
+	}
+
+	@Override
+	public void reset() throws IOException {
+		checkClosed("Reset");
+		this.seek(0);
+	}
+
+	@Override
+	public void seek(long offset) throws IOException {
+		checkClosed("Seeking");
+		if (offset > this.size) {
+			throw new IllegalArgumentException("Destination offset is greater than stream length");
+		}
+		this.offset = offset < 0 ? 0 : offset;
+	}
+
+	@Override
+	public int peek() throws IOException {
+		checkClosed("Peeking");
+		if (offset >= size) {
+			return -1;
+		}
+		long position = fromOffset + offset;
+		return segments[(int) (position >>> segmentShift)].get((int) (position & segmentMask)) & 0xFF;
+	}
+
+	@Override
+	public byte[] getWindow() throws IOException {
+		checkClosed("Reading");
+		if (this.offset < this.windowFrom || this.offset >= this.windowFrom + this.windowLength) {
+			if (this.window == null) {
+				this.window = new byte[WINDOW_SIZE];
+			}
+			long savedOffset = this.offset;
+			int read = read(this.window, WINDOW_SIZE);
+			this.offset = savedOffset;
+			this.windowFrom = savedOffset;
+			this.windowLength = Math.max(read, 0);
+		}
+		return this.window;
+	}
+
+	@Override
+	public int getWindowStart() {
+		return (int) (this.offset - this.windowFrom);
+	}
+
+	@Override
+	public int getWindowEnd() {
+		return this.windowLength;
+	}
+
+	@Override
+	public void advanceWindow(int count) {
+		this.offset += count;
+	}
+
+	@Override
+	public long getOffset() throws IOException {
+		checkClosed("Offset obtaining");
+		return this.offset;
+	}
+
+	@Override
+	public long getStreamLength() throws IOException {
+		checkClosed("Stream length obtaining");
+		return this.size;
+	}
+
+	@Override
+	public boolean isEOF() throws IOException {
+		checkClosed("EOF check");
+		return this.offset >= this.size;
+	}
+
+	@Override
+	public ASInputStream getStream(long startOffset, long length) throws IOException {
+		checkClosed("Substream obtaining");
+		// start offset is absolute offset in file, as in InternalInputStream
+		long streamLeft = this.fileLength - startOffset;
+		if (startOffset < 0 || streamLeft < 0) {
+			throw new IOException("Offset is greater than full stream size");
+		}
+		long realLength = length < 0 ? streamLeft : Math.min(length, streamLeft);
+		return new MappedInputStream(this, startOffset, realLength);
+	}
+
+	@Override
+	public void closeResource() throws IOException {
+		if (!isSourceClosed) {
+			isSourceClosed = true;
+			this.views = null;
+			boolean isLastUser;
+			synchronized (this.numOfFileUsers) {
+				this.numOfFileUsers.decrement();
+				isLastUser = this.numOfFileUsers.equals(0);
+			}
+			if (isLastUser) {
+				for (int i = 0; i < segments.length; ++i) {
+					segments[i] = null;
+				}
+			}
+			this.segments = null;
+		}
+	}
+
+	private ByteBuffer getView(int segmentIndex) {
+		// absolute bulk get is not available in Java 8, so each stream
+		// uses its own views of mapped segments for bulk reading
+		ByteBuffer view = this.views[segmentIndex];
+		if (view == null) {
+			view = this.segments[segmentIndex].duplicate();
+			this.views[segmentIndex] = view;
+		}
+		return view;
+	}
+
+	private void checkClosed(String streamUsage) throws IOException {
+		if (isSourceClosed) {
+			throw new IOException(streamUsage + " can't be performed; stream is closed");
+		}
+	}
+}
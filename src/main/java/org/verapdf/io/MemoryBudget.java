@@ -0,0 +1,79 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+/**
+ * Limits the total amount of memory that can be held by in-memory streams.
+ * Memory is reserved before it is used and released when the stream that
+ * used it is closed.
+ */
+public class MemoryBudget {
+
+	private final long limit;
+	private long used;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param limit is maximal amount of bytes that can be reserved at once.
+	 */
+	public MemoryBudget(long limit) {
+		this.limit = limit;
+		this.used = 0;
+	}
+
+	/**
+	 * Reserves given amount of bytes if it doesn't exceed the limit.
+	 *
+	 * @param bytes is amount of bytes to reserve.
+	 * @return true if memory was reserved.
+	 */
+	public synchronized boolean reserve(long bytes) {
+		if (this.used + bytes > this.limit) {
+			return false;
+		}
+		this.used += bytes;
+		return true;
+	}
+
+	/**
+	 * Releases given amount of previously reserved bytes.
+	 *
+	 * @param bytes is amount of bytes to release.
+	 */
+	public synchronized void release(long bytes) {
+		this.used = Math.max(0, this.used - bytes);
+	}
+
+	/**
+	 * @return amount of bytes reserved at the moment.
+	 */
+	public synchronized long getUsed() {
+		return this.used;
+	}
+
+	/**
+	 * @return maximal amount of bytes that can be reserved.
+	 */
+	public long getLimit() {
+		return this.limit;
+	}
+}
@@ -0,0 +1,213 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.parser.DecodedObjectStreamParser;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of decoded object streams of one document. Least recently used
+ * streams are closed when total size of decoded data exceeds the budget and
+ * are decoded again when they are needed. Offsets of objects in streams are
+ * kept after eviction, so streams are not parsed again to find them.
+ */
+class ObjectStreamCache {
+
+	private final long budget;
+	private final LinkedHashMap<Long, Entry> streams;
+	private final Map<Long, Map<Integer, Long>> internalOffsets;
+	private long cachedBytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param budget is maximal total size of decoded data of cached streams in
+	 *               bytes. The most recently used stream is kept even if it
+	 *               is larger.
+	 */
+	ObjectStreamCache(long budget) {
+		this.budget = budget;
+		this.streams = new LinkedHashMap<>(16, 0.75f, true);
+		this.internalOffsets = new HashMap<>();
+	}
+
+	/**
+	 * Parses object from cached object stream.
+	 *
+	 * @param streamNumber is number of object stream.
+	 * @param key          is key of object in this stream.
+	 * @return parsed object or null if object stream is not cached.
+	 */
+	COSObject getObject(long streamNumber, COSKey key) throws IOException {
+		Entry entry;
+		synchronized (this) {
+			entry = this.streams.get(Long.valueOf(streamNumber));
+			if (entry == null) {
+				return null;
+			}
+			entry.users++;
+		}
+		return getObject(entry, key);
+	}
+
+	/**
+	 * Puts decoded object stream into cache and parses object from it. If the
+	 * same stream was put by other thread meanwhile, given parser is closed
+	 * and object is parsed from cached one.
+	 *
+	 * @param streamNumber is number of object stream.
+	 * @param parser       is parser of decoded object stream.
+	 * @param key          is key of object in this stream.
+	 * @return parsed object.
+	 */
+	COSObject putAndGetObject(long streamNumber, DecodedObjectStreamParser parser,
+							  COSKey key) throws IOException {
+		return getObject(put(streamNumber, parser), key);
+	}
+
+	/**
+	 * Puts decoded object stream into cache and parses all objects from it in
+	 * order of their offsets.
+	 *
+	 * @param streamNumber is number of object stream.
+	 * @param parser       is parser of decoded object stream.
+	 * @return map from keys of objects to parsed objects.
+	 */
+	Map<COSKey, COSObject> putAndGetObjects(long streamNumber,
+											DecodedObjectStreamParser parser) throws IOException {
+		Entry entry = put(streamNumber, parser);
+		try {
+			synchronized (entry.parser) {
+				return entry.parser.getObjects();
+			}
+		} finally {
+			release(entry);
+		}
+	}
+
+	/**
+	 * @return offsets of objects in object stream with given number or null
+	 * if this stream was never put into cache.
+	 */
+	synchronized Map<Integer, Long> getInternalOffsets(long streamNumber) {
+		return this.internalOffsets.get(Long.valueOf(streamNumber));
+	}
+
+	/**
+	 * @return total size of decoded data of cached streams.
+	 */
+	synchronized long getCachedBytes() {
+		return this.cachedBytes;
+	}
+
+	/**
+	 * Closes all cached streams.
+	 */
+	void clear() throws IOException {
+		Entry[] entries;
+		synchronized (this) {
+			entries = this.streams.values().toArray(new Entry[this.streams.size()]);
+			this.streams.clear();
+			this.cachedBytes = 0;
+		}
+		for (Entry entry : entries) {
+			entry.parser.closeInputStream();
+		}
+	}
+
+	// returns entry of given stream with one more user
+	private Entry put(long streamNumber, DecodedObjectStreamParser parser) throws IOException {
+		Long number = Long.valueOf(streamNumber);
+		Entry entry = new Entry(parser, parser.getDecodedLength());
+		Entry existing;
+		synchronized (this) {
+			existing = this.streams.get(number);
+			if (existing != null) {
+				existing.users++;
+			} else {
+				entry.users++;
+				this.streams.put(number, entry);
+				this.internalOffsets.put(number, parser.getInternalOffsets());
+				this.cachedBytes += entry.size;
+				evict();
+			}
+		}
+		if (existing != null) {
+			parser.closeInputStream();
+			entry = existing;
+		}
+		return entry;
+	}
+
+	private COSObject getObject(Entry entry, COSKey key) throws IOException {
+		try {
+			synchronized (entry.parser) {
+				return entry.parser.getObject(key);
+			}
+		} finally {
+			release(entry);
+		}
+	}
+
+	private void release(Entry entry) throws IOException {
+		boolean close;
+		synchronized (this) {
+			entry.users--;
+			close = entry.evicted && entry.users == 0;
+		}
+		if (close) {
+			entry.parser.closeInputStream();
+		}
+	}
+
+	private void evict() throws IOException {
+		while (this.cachedBytes > this.budget && this.streams.size() > 1) {
+			Map.Entry<Long, Entry> eldest = this.streams.entrySet().iterator().next();
+			Entry entry = eldest.getValue();
+			this.cachedBytes -= entry.size;
+			this.streams.remove(eldest.getKey());
+			// stream that is being read now is closed by its last user
+			entry.evicted = true;
+			if (entry.users == 0) {
+				entry.parser.closeInputStream();
+			}
+		}
+	}
+
+	private static class Entry {
+
+		private final DecodedObjectStreamParser parser;
+		private final long size;
+		private int users;
+		private boolean evicted;
+
+		private Entry(DecodedObjectStreamParser parser, long size) {
+			this.parser = parser;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of fixed size pages of one file. It is shared by all
+ * {@link InternalInputStream} objects reading the same document, least
+ * recently used pages are evicted when total size of cached pages exceeds
+ * the budget. Pages returned by cache must not be modified.
+ */
+public class PageCache {
+
+	public static final int DEFAULT_PAGE_SHIFT = 16;
+
+	private final int pageShift;
+	private final int pageSize;
+	private final long budget;
+	private final LinkedHashMap<Long, byte[]> pages;
+	private long cachedBytes;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Constructor of cache with pages of default size 64 KB.
+	 *
+	 * @param budget is maximal total size of cached pages in bytes.
+	 */
+	public PageCache(long budget) {
+		this(budget, DEFAULT_PAGE_SHIFT);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param budget    is maximal total size of cached pages in bytes.
+	 * @param pageShift is binary logarithm of page size.
+	 */
+	public PageCache(long budget, int pageShift) {
+		if (pageShift <= 0 || pageShift > 30) {
+			throw new IllegalArgumentException("Page size shall be positive and not greater than 1 GB");
+		}
+		this.pageShift = pageShift;
+		this.pageSize = 1 << pageShift;
+		this.budget = budget;
+		this.pages = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Gets page with given index, reading it from the channel if page is not
+	 * cached. Returned array is shorter than page size for the last page of
+	 * the file and is empty for pages beyond the end of file.
+	 *
+	 * @param channel   is channel of the file this cache belongs to.
+	 * @param pageIndex is index of page.
+	 * @return contents of page.
+	 */
+	public byte[] getPage(FileChannel channel, long pageIndex) throws IOException {
+		Long key = Long.valueOf(pageIndex);
+		synchronized (this) {
+			byte[] page = this.pages.get(key);
+			if (page != null) {
+				this.hits++;
+				return page;
+			}
+			this.misses++;
+		}
+		byte[] page = readPage(channel, pageIndex);
+		synchronized (this) {
+			byte[] previous = this.pages.put(key, page);
+			if (previous != null) {
+				this.cachedBytes -= previous.length;
+			}
+			this.cachedBytes += page.length;
+			evict();
+		}
+		return page;
+	}
+
+	/**
+	 * @return size of one page in bytes.
+	 */
+	public int getPageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * @return binary logarithm of page size.
+	 */
+	public int getPageShift() {
+		return this.pageShift;
+	}
+
+	/**
+	 * @return maximal total size of cached pages in bytes.
+	 */
+	public long getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * @return total size of pages cached at the moment.
+	 */
+	public synchronized long getCachedBytes() {
+		return this.cachedBytes;
+	}
+
+	/**
+	 * @return number of page requests that were served from cache.
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * @return number of page requests that required reading from file.
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Removes all pages from cache.
+	 */
+	public synchronized void clear() {
+		this.pages.clear();
+		this.cachedBytes = 0;
+	}
+
+	private void evict() {
+		while (this.cachedBytes > this.budget && this.pages.size() > 1) {
+			Map.Entry<Long, byte[]> eldest = this.pages.entrySet().iterator().next();
+			this.cachedBytes -= eldest.getValue().length;
+			this.pages.remove(eldest.getKey());
+		}
+	}
+
+	private byte[] readPage(FileChannel channel, long pageIndex) throws IOException {
+		long position = pageIndex << this.pageShift;
+		long length = Math.min(this.pageSize, channel.size() - position);
+		if (length <= 0) {
+			return new byte[0];
+		}
+		byte[] page = new byte[(int) length];
+		ByteBuffer wrapped = ByteBuffer.wrap(page);
+		while (wrapped.hasRemaining()) {
+			int read = channel.read(wrapped, position + wrapped.position());
+			if (read == -1) {
+				byte[] res = new byte[wrapped.position()];
+				System.arraycopy(page, 0, res, 0, res.length);
+				return res;
+			}
+		}
+		return page;
+	}
+}
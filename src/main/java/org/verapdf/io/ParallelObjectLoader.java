@@ -0,0 +1,246 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.cos.COSBody;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObjType;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSStream;
+import org.verapdf.parser.DecodedObjectStreamParser;
+import org.verapdf.parser.PDFParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Parses many objects of document in parallel. Objects are sorted by offset
+ * and split into ranges that are parsed by worker threads, each of them with
+ * its own {@link PDFParser} reading the same document file. After that every
+ * object stream is decoded once and all requested objects of it are parsed by
+ * one worker.
+ */
+final class ParallelObjectLoader {
+
+	private static final Logger LOGGER = Logger.getLogger(ParallelObjectLoader.class.getCanonicalName());
+
+	// several ranges for every thread, so thread that gets large objects
+	// does not delay the others
+	private static final int RANGES_PER_THREAD = 4;
+
+	private final PDFParser parser;
+	private final COSDocument document;
+	private final COSBody body;
+	private final int threads;
+
+	ParallelObjectLoader(PDFParser parser, COSBody body, int threads) {
+		this.parser = parser;
+		this.document = parser.getDocument();
+		this.body = body;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Parses objects and puts them into body.
+	 *
+	 * @param keys          are keys of objects that are not in object
+	 *                      streams, sorted by offset.
+	 * @param offsets       are offsets of these objects in document source.
+	 * @param objectStreams maps keys of object streams to keys of objects in
+	 *                      them. Object streams themselves shall be either in
+	 *                      body or in keys.
+	 */
+	void load(List<COSKey> keys, long[] offsets, Map<COSKey, List<COSKey>> objectStreams) throws IOException {
+		List<PDFParser> workers = new ArrayList<>();
+		try {
+			for (int i = 0; i < this.threads; ++i) {
+				workers.add(this.parser.createObjectParser());
+			}
+			int rangesNumber = Math.min(keys.size(), this.threads * RANGES_PER_THREAD);
+			AtomicInteger nextRange = new AtomicInteger();
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (PDFParser worker : workers) {
+				tasks.add(new RangeTask(worker, keys, offsets, rangesNumber, nextRange));
+			}
+			if (rangesNumber > 0) {
+				run(tasks);
+			}
+
+			List<Map.Entry<COSKey, List<COSKey>>> streams = new ArrayList<>(objectStreams.entrySet());
+			AtomicInteger nextStream = new AtomicInteger();
+			tasks.clear();
+			for (int i = 0; i < this.threads; ++i) {
+				tasks.add(new ObjectStreamTask(streams, nextStream));
+			}
+			if (!streams.isEmpty()) {
+				run(tasks);
+			}
+		} finally {
+			for (PDFParser worker : workers) {
+				if (worker.isLazyParsing() && this.document != null) {
+					// values of lazily parsed objects are read from worker source later
+					this.document.getResourceHandler().addResource(worker.getPDFSource());
+				} else {
+					worker.closeInputStream();
+				}
+			}
+		}
+	}
+
+	private void run(List<Callable<Void>> tasks) throws IOException {
+		if (tasks.size() == 1) {
+			try {
+				tasks.get(0).call();
+			} catch (IOException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException("Can't parse objects", e);
+			}
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Parsing of objects was interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException("Can't parse objects", cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private final class RangeTask implements Callable<Void> {
+
+		private final PDFParser worker;
+		private final List<COSKey> keys;
+		private final long[] offsets;
+		private final int rangesNumber;
+		private final AtomicInteger nextRange;
+
+		private RangeTask(PDFParser worker, List<COSKey> keys, long[] offsets,
+						  int rangesNumber, AtomicInteger nextRange) {
+			this.worker = worker;
+			this.keys = keys;
+			this.offsets = offsets;
+			this.rangesNumber = rangesNumber;
+			this.nextRange = nextRange;
+		}
+
+		@Override
+		public Void call() {
+			int range = this.nextRange.getAndIncrement();
+			while (range < this.rangesNumber) {
+				int from = (int) ((long) this.keys.size() * range / this.rangesNumber);
+				int to = (int) ((long) this.keys.size() * (range + 1) / this.rangesNumber);
+				for (int i = from; i < to; ++i) {
+					COSKey key = this.keys.get(i);
+					try {
+						COSObject object = this.worker.getObject(this.offsets[i]);
+						object.setObjectKey(key);
+						body.setIfAbsent(key, object);
+					} catch (IOException e) {
+						LOGGER.log(Level.FINE, "Error while parsing object : " + key.getNumber() +
+								" " + key.getGeneration(), e);
+					}
+				}
+				range = this.nextRange.getAndIncrement();
+			}
+			return null;
+		}
+	}
+
+	private final class ObjectStreamTask implements Callable<Void> {
+
+		private final List<Map.Entry<COSKey, List<COSKey>>> streams;
+		private final AtomicInteger nextStream;
+
+		private ObjectStreamTask(List<Map.Entry<COSKey, List<COSKey>>> streams, AtomicInteger nextStream) {
+			this.streams = streams;
+			this.nextStream = nextStream;
+		}
+
+		@Override
+		public Void call() {
+			int index = this.nextStream.getAndIncrement();
+			while (index < this.streams.size()) {
+				Map.Entry<COSKey, List<COSKey>> stream = this.streams.get(index);
+				try {
+					loadObjectStream(stream.getKey(), stream.getValue());
+				} catch (IOException e) {
+					LOGGER.log(Level.FINE, "Error while parsing object stream : " + stream.getKey().getNumber() +
+							" " + stream.getKey().getGeneration(), e);
+				}
+				index = this.nextStream.getAndIncrement();
+			}
+			return null;
+		}
+
+		private void loadObjectStream(COSKey streamKey, List<COSKey> keys) throws IOException {
+			COSObject object = body.get(streamKey);
+			if (object.getType() != COSObjType.COS_STREAM) {
+				throw new IOException("Object number " + streamKey.getNumber() + " should" +
+						" be object stream, but in fact it is " + object.getType());
+			}
+			COSStream objectStream = (COSStream) object.getDirectBase();
+			DecodedObjectStreamParser streamParser = new DecodedObjectStreamParser(
+					objectStream.getData(COSStream.FilterFlags.DECODE),
+					objectStream, streamKey, document);
+			try {
+				for (COSKey key : keys) {
+					try {
+						COSObject value = streamParser.getObject(key);
+						if (value != null) {
+							body.setIfAbsent(key, value);
+						}
+					} catch (IOException e) {
+						LOGGER.log(Level.FINE, "Error while parsing object : " + key.getNumber() +
+								" " + key.getGeneration(), e);
+					}
+				}
+			} finally {
+				streamParser.closeInputStream();
+			}
+		}
+	}
+}
@@ -25,19 +25,31 @@ import org.verapdf.as.exceptions.StringExceptions;
 import org.verapdf.cos.*;
 import org.verapdf.cos.xref.COSXRefInfo;
 import org.verapdf.exceptions.InvalidPasswordException;
+import org.verapdf.exceptions.LoopedException;
 import org.verapdf.parser.DecodedObjectStreamParser;
+import org.verapdf.parser.HintStreamParser;
 import org.verapdf.parser.PDFParser;
 import org.verapdf.parser.XRefReader;
 import org.verapdf.pd.encryption.PDEncryption;
 import org.verapdf.pd.encryption.StandardSecurityHandler;
+import org.verapdf.pd.linearization.PDLinearization;
+import org.verapdf.pd.linearization.PageOffsetHintTable;
+import org.verapdf.pd.linearization.SharedObjectHintTable;
 import org.verapdf.tools.resource.FileResourceHandler;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,14 +61,110 @@ public class Reader extends XRefReader {
 	private static final Logger LOGGER = Logger.getLogger(Reader.class.getCanonicalName());
 
 	private PDFParser parser;
+	// objects are parsed by parsers leased from this pool, so several threads
+	// can read objects of one document at the same time
+	private final Deque<PDFParser> objectParsers = new ArrayDeque<>();
+	private final int maxIdleObjectParsers = Runtime.getRuntime().availableProcessors();
+	private boolean closed;
+	// parsers the rest of xref of linearized document is read with
+	private final List<PDFParser> xrefParsers = new ArrayList<>();
 	private COSHeader header;
-	private Map<Long, DecodedObjectStreamParser> objectStreams;
+	private ObjectStreamCache objectStreams;
+	private boolean xrefRecovery;
+	private boolean objectStreamBatchParsing;
+	private boolean linearizedFastOpen;
+
+	private File documentFile;
+	private File indexFile;
+	private byte[] tailDigest;
+	private ReaderIndex index;
+	private volatile boolean indexChanged;
+
+	// coordinates tasks of reader with loadings of objects of the document
+	private final COSLoadingCoordinator loadingCoordinator;
+
+	// linearized document can be opened by xref section of its first page,
+	// the rest of xref is read when object outside of this section is needed.
+	// Reading it can require objects loaded by threads that wait for it, so
+	// it is run as loading task of coordinator, that detects such threads
+	private volatile boolean xrefLoaded = true;
+	private final ICOSLoadingTask xrefLoader = new ICOSLoadingTask() {
+		@Override
+		public boolean isLoaded() {
+			return Reader.this.xrefLoaded;
+		}
+
+		@Override
+		public void load() {
+			readRemainingXRef();
+		}
+	};
+	private COSObject linearizationDictionary;
+	private COSKey firstPageKey;
+	private PDLinearization linearization;
+
+	// xref sections of all revisions are read on demand, document opened with
+	// revision-aware reading uses them as its own xref
+	private boolean revisionAware;
+	private int revision;
+	private volatile COSXRefRevisionReader revisions;
+	// document opened by its merged xref reads trailers once more, reading
+	// them can require objects as reading of xref does
+	private final ICOSLoadingTask revisionsLoader = new ICOSLoadingTask() {
+		@Override
+		public boolean isLoaded() {
+			return Reader.this.revisions != null;
+		}
+
+		@Override
+		public void load() throws IOException {
+			PDFParser parser = Reader.this.parser.createObjectParser();
+			try {
+				parser.getHeader();
+				List<COSXRefInfo> sections = new ArrayList<>();
+				parser.getXRefTrailers(sections);
+				Reader.this.revisions = createRevisions(sections);
+			} finally {
+				parser.closeInputStream();
+			}
+		}
+	};
+	private COSXRefRevisionReader revisionXRef;
+	// reader of another revision of the same document
+	private Reader base;
+	private COSTrailer trailer;
+	private COSTrailer firstTrailer;
+	private COSTrailer lastTrailer;
 
 	public Reader(final COSDocument document, final String fileName) throws IOException {
+		this(document, fileName, new ReaderOptions());
+	}
+
+	public Reader(final COSDocument document, final String fileName,
+				  final ReaderOptions options) throws IOException {
 		super();
-		this.parser = new PDFParser(document, fileName);
+		this.loadingCoordinator = document.getLoadingCoordinator();
+		if (options.isMemoryMapped()) {
+			this.parser = new PDFParser(document, new MappedInputStream(fileName));
+		} else if (options.getPageCacheSize() > 0) {
+			this.parser = new PDFParser(document,
+					new InternalInputStream(fileName, new PageCache(options.getPageCacheSize())));
+		} else {
+			this.parser = new PDFParser(document, fileName);
+		}
+		this.parser.setLazyParsing(options.isLazyParsing());
+		this.objectParsers.push(this.parser);
+		this.xrefRecovery = options.isXRefRecovery();
+		this.objectStreamBatchParsing = options.isObjectStreamBatchParsing();
+		this.linearizedFastOpen = options.isLinearizedFastOpen();
+		this.revisionAware = options.isRevisionAware();
+		this.revision = options.getRevision();
+		if (options.getIndexCacheDirectory() != null && !this.revisionAware) {
+			this.documentFile = new File(fileName);
+			this.indexFile = ReaderIndex.getIndexFile(options.getIndexCacheDirectory(), this.documentFile);
+		}
 		try {
-			this.objectStreams = new HashMap<>();
+			this.objectStreams = new ObjectStreamCache(options.getObjectStreamCacheSize());
 			init();
 		} catch (IOException e) {	// If exception is thrown in init() someone
 			// should close document stream
@@ -67,20 +175,51 @@ public class Reader extends XRefReader {
 
 	public Reader(final COSDocument document, final InputStream fileStream) throws IOException {
 		super();
+		this.loadingCoordinator = document.getLoadingCoordinator();
 		this.parser = new PDFParser(document, fileStream);
-		this.objectStreams = new HashMap<>();
+		this.objectParsers.push(this.parser);
+		this.objectStreams = new ObjectStreamCache(ReaderOptions.DEFAULT_OBJECT_STREAM_CACHE_SIZE);
 		init();
 	}
 
+	private Reader(final COSDocument document, final Reader reader, final int revision) throws IOException {
+		super();
+		this.loadingCoordinator = document.getLoadingCoordinator();
+		this.base = reader;
+		this.revisionXRef = reader.getRevisions().getRevision(revision);
+		this.revisions = this.revisionXRef;
+		setXRef(this.revisionXRef);
+		this.parser = reader.parser.createObjectParser(document);
+		this.objectParsers.push(this.parser);
+		this.header = reader.header;
+		this.objectStreams = new ObjectStreamCache(ReaderOptions.DEFAULT_OBJECT_STREAM_CACHE_SIZE);
+		this.objectStreamBatchParsing = reader.objectStreamBatchParsing;
+		this.trailer = bindTrailer(this.revisionXRef.getTrailer());
+		this.firstTrailer = bindTrailer(this.revisionXRef.getFirstTrailer());
+		this.lastTrailer = bindTrailer(this.revisionXRef.getLastTrailer());
+	}
+
 	//PUBLIC METHODS
 	@Override
 	public COSHeader getHeader() {
 		return this.header;
 	}
 
+	/**
+	 * @return page cache used for reading document file or null if document
+	 * is read without page cache.
+	 */
+	public PageCache getPageCache() {
+		SeekableInputStream source = this.parser.getPDFSource();
+		if (source instanceof InternalInputStream) {
+			return ((InternalInputStream) source).getPageCache();
+		}
+		return null;
+	}
+
 	@Override
 	public COSObject getObject(final COSKey key) throws IOException {
-		if (!super.containsKey(key)) {
+		if (!containsKey(key)) {
 			LOGGER.log(Level.FINE, "Trying to get object " + key.getNumber() + " " +
 					key.getGeneration() + " that is not present in the document");
 			return null;
@@ -92,14 +231,17 @@ public class Reader extends XRefReader {
 			if (header.getHeaderOffset() > 0) {
 				offset += header.getHeaderOffset();
 			}
+			if (this.revisionXRef != null) {
+				return getRevisionObject(offset, key);
+			}
 			COSObject result = getObject(offset);
 			result.setObjectKey(key);
 			return result;
 		}
 		//TODO : set object key
-		DecodedObjectStreamParser parser = objectStreams.get(Long.valueOf(-offset));
-		if(parser != null) {
-			return parser.getObject(key);
+		COSObject cached = objectStreams.getObject(-offset, key);
+		if (cached != null) {
+			return cached;
 		}
 		COSKey newKey = new COSKey(- (int)offset, 0);
 		COSObject object = getObject(newKey);
@@ -109,24 +251,185 @@ public class Reader extends XRefReader {
 					(object == null ? "null" : object.getType()));
 		}
 		COSStream objectStream = (COSStream) object.getDirectBase();
-		parser = new DecodedObjectStreamParser(
-				objectStream.getData(COSStream.FilterFlags.DECODE),
-				objectStream, new COSKey((int) -offset, 0),
-				this.parser.getDocument());
-		objectStreams.put(Long.valueOf(-offset), parser);
-		return parser.getObject(key);
+		DecodedObjectStreamParser parser;
+		// offsets of evicted object streams are kept by cache
+		Map<Integer, Long> internalOffsets = this.objectStreams.getInternalOffsets(-offset);
+		boolean firstTouch = internalOffsets == null;
+		if (internalOffsets == null && this.index != null) {
+			internalOffsets = this.index.getObjectStreamOffsets(-offset);
+		}
+		if (internalOffsets != null) {
+			parser = new DecodedObjectStreamParser(
+					objectStream.getData(COSStream.FilterFlags.DECODE),
+					objectStream, this.parser.getDocument(), internalOffsets);
+		} else {
+			parser = new DecodedObjectStreamParser(
+					objectStream.getData(COSStream.FilterFlags.DECODE),
+					objectStream, new COSKey((int) -offset, 0),
+					this.parser.getDocument());
+			if (this.index != null) {
+				this.index.addObjectStreamOffsets(-offset, parser.getInternalOffsets());
+				this.indexChanged = true;
+			}
+		}
+		if (firstTouch && this.objectStreamBatchParsing && this.parser.getDocument() != null) {
+			return getObjectWithSiblings(-offset, parser, key);
+		}
+		return objectStreams.putAndGetObject(-offset, parser, key);
 	}
 
 	@Override
 	public COSObject getObject(final long offset) throws IOException {
-		return this.parser.getObject(offset);
+		PDFParser parser = leaseObjectParser();
+		try {
+			return parser.getObject(offset);
+		} finally {
+			releaseObjectParser(parser);
+		}
+	}
+
+	@Override
+	public void loadObjects(final List<COSKey> keys, final COSBody body, final int threads) throws IOException {
+		final Map<COSKey, Long> offsets = new HashMap<>();
+		Map<COSKey, List<COSKey>> objectStreams = new LinkedHashMap<>();
+		for (COSKey key : keys) {
+			if (!containsKey(key)) {
+				continue;
+			}
+			long offset = getOffset(key).longValue();
+			if (offset == 0) {
+				body.set(key, new COSObject());
+			} else if (offset > 0) {
+				offsets.put(key, Long.valueOf(offset + Math.max(this.header.getHeaderOffset(), 0)));
+			} else {
+				COSKey streamKey = new COSKey((int) -offset, 0);
+				List<COSKey> streamKeys = objectStreams.get(streamKey);
+				if (streamKeys == null) {
+					streamKeys = new ArrayList<>();
+					objectStreams.put(streamKey, streamKeys);
+				}
+				streamKeys.add(key);
+			}
+		}
+		for (COSKey streamKey : objectStreams.keySet()) {
+			if (!offsets.containsKey(streamKey) && body.get(streamKey).empty() && containsKey(streamKey)) {
+				long offset = getOffset(streamKey).longValue();
+				if (offset > 0) {
+					offsets.put(streamKey, Long.valueOf(offset + Math.max(this.header.getHeaderOffset(), 0)));
+				}
+			}
+		}
+		List<COSKey> sortedKeys = new ArrayList<>(offsets.keySet());
+		Collections.sort(sortedKeys, new Comparator<COSKey>() {
+			@Override
+			public int compare(COSKey first, COSKey second) {
+				return offsets.get(first).compareTo(offsets.get(second));
+			}
+		});
+		long[] sortedOffsets = new long[sortedKeys.size()];
+		for (int i = 0; i < sortedOffsets.length; ++i) {
+			sortedOffsets[i] = offsets.get(sortedKeys.get(i)).longValue();
+		}
+		new ParallelObjectLoader(this.parser, body, threads).load(sortedKeys, sortedOffsets, objectStreams);
 	}
 
 	@Override
 	public boolean isLinearized() {
+		if (this.index != null) {
+			return this.index.isLinearized();
+		}
 		return this.parser.isLinearized();
 	}
 
+	@Override
+	public boolean isXRefLoaded() {
+		return this.xrefLoaded && (this.revisionXRef == null || this.revisionXRef.isKeysLoaded());
+	}
+
+	@Override
+	public List<COSKey> getKeys() {
+		loadXRef();
+		return super.getKeys();
+	}
+
+	@Override
+	public Long getOffset(final COSKey key) {
+		if (!this.xrefLoaded && !super.containsKey(key)) {
+			loadXRef();
+		}
+		return super.getOffset(key);
+	}
+
+	@Override
+	protected boolean containsKey(final COSKey key) {
+		if (!this.xrefLoaded && !super.containsKey(key)) {
+			loadXRef();
+		}
+		return super.containsKey(key);
+	}
+
+	@Override
+	public SortedSet<Long> getStartXRefs() {
+		loadXRef();
+		return super.getStartXRefs();
+	}
+
+	@Override
+	public COSTrailer getTrailer() {
+		return this.base != null ? this.trailer : super.getTrailer();
+	}
+
+	@Override
+	public COSTrailer getFirstTrailer() {
+		return this.base != null ? this.firstTrailer : super.getFirstTrailer();
+	}
+
+	@Override
+	public COSTrailer getLastTrailer() {
+		if (this.base != null) {
+			return this.lastTrailer;
+		}
+		loadXRef();
+		return super.getLastTrailer();
+	}
+
+	@Override
+	public PDLinearization getLinearization() {
+		if (this.linearizationDictionary == null) {
+			return null;
+		}
+		synchronized (this.linearizationDictionary) {
+			if (this.linearization == null) {
+				PDLinearization parameters = new PDLinearization(this.linearizationDictionary, null, null, null);
+				PageOffsetHintTable pageOffsetHints = null;
+				SharedObjectHintTable sharedObjectHints = null;
+				try {
+					HintStreamParser hintStreamParser = new HintStreamParser(getHintStream(parameters));
+					Long pages = parameters.getNumberOfPages();
+					pageOffsetHints = hintStreamParser.parsePageOffsetHintTable(
+							pages == null ? 0 : (int) Math.min(pages.longValue(), Integer.MAX_VALUE));
+					sharedObjectHints = hintStreamParser.parseSharedObjectHintTable();
+				} catch (IOException e) {
+					LOGGER.log(Level.FINE, "Can't read hint tables of linearized document", e);
+				}
+				this.linearization = new PDLinearization(this.linearizationDictionary,
+						COSIndirect.construct(this.firstPageKey, this.parser.getDocument()),
+						pageOffsetHints, sharedObjectHints);
+			}
+			return this.linearization;
+		}
+	}
+
+	@Override
+	public int getRevisionsCount() throws IOException {
+		return getRevisions().getRevisionsCount();
+	}
+
+	@Override
+	public IReader getRevisionReader(final COSDocument document, final int revision) throws IOException {
+		return new Reader(document, this, revision);
+	}
+
 	@Override
 	public SeekableInputStream getPDFSource() {
 		return this.parser.getPDFSource();
@@ -134,6 +437,9 @@ public class Reader extends XRefReader {
 
 	@Override
 	public long getLastTrailerOffset() {
+		if (this.base != null) {
+			return this.base.getLastTrailerOffset();
+		}
 		long res = this.parser.getLastTrailerOffset();
 		if (res == 0) {
 			LOGGER.log(Level.FINE, "Offset of last trailer can not be determined");
@@ -142,12 +448,81 @@ public class Reader extends XRefReader {
 	}
 
 	// PRIVATE METHODS
-	private void init() throws IOException {
-		this.header = this.parser.getHeader();
+	private PDFParser leaseObjectParser() throws IOException {
+		synchronized (this.objectParsers) {
+			PDFParser parser = this.objectParsers.poll();
+			if (parser != null) {
+				return parser;
+			}
+		}
+		// all parsers are busy, e.g. in other threads or in nested object
+		// reading of this thread
+		return this.parser.createObjectParser();
+	}
 
-		List<COSXRefInfo> infos = new ArrayList<>();
-		this.parser.getXRefInfo(infos);
-		setXRefInfo(infos);
+	// at most maxIdleObjectParsers extra parsers are kept, the others are
+	// closed when they are no longer needed
+	private void releaseObjectParser(final PDFParser parser) throws IOException {
+		synchronized (this.objectParsers) {
+			if (parser == this.parser ||
+					(!this.closed && this.objectParsers.size() < this.maxIdleObjectParsers)) {
+				this.objectParsers.push(parser);
+				return;
+			}
+		}
+		parser.closeInputStream();
+	}
+
+	// parses all objects of object stream, puts the others into document body
+	// and returns requested one
+	private COSObject getObjectWithSiblings(long streamNumber, DecodedObjectStreamParser parser,
+											COSKey key) throws IOException {
+		Map<COSKey, COSObject> objects;
+		try {
+			objects = this.objectStreams.putAndGetObjects(streamNumber, parser);
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Can't parse all objects of object stream " + streamNumber, e);
+			return getObject(key);
+		}
+		COSObject result = objects.get(key);
+		if (result == null) {
+			return getObject(key);
+		}
+		Map<COSKey, COSObject> siblings = new HashMap<>();
+		for (Map.Entry<COSKey, COSObject> entry : objects.entrySet()) {
+			COSKey objectKey = entry.getKey();
+			// object can be redefined by incremental update
+			if (!objectKey.equals(key) && containsKey(objectKey) &&
+					getOffset(objectKey).longValue() == -streamNumber) {
+				siblings.put(objectKey, entry.getValue());
+			}
+		}
+		this.parser.getDocument().putObjects(siblings);
+		return result;
+	}
+
+	private void init() throws IOException {
+		if (this.indexFile != null) {
+			this.tailDigest = ReaderIndex.getTailDigest(this.parser.getPDFSource());
+			this.index = ReaderIndex.read(this.indexFile, this.documentFile.length(),
+					this.documentFile.lastModified(), this.tailDigest);
+		}
+		if (this.index != null) {
+			try {
+				initFromIndex();
+			} catch (IOException e) {
+				LOGGER.log(Level.FINE, "Can't read document using index " + this.indexFile, e);
+				this.index = null;
+			}
+		}
+		if (this.index == null) {
+			this.header = this.parser.getHeader();
+			if (this.revisionAware) {
+				readXRefRevisions();
+			} else if (!this.linearizedFastOpen || !initFromFirstPageSection()) {
+				readXRef(this.parser);
+			}
+		}
 
 		if(this.parser.isEncrypted()) {
 			if(!docCanBeDecrypted()) {
@@ -164,6 +539,235 @@ public class Reader extends XRefReader {
 		}
 	}
 
+	private void readXRef(PDFParser parser) throws IOException {
+		List<COSXRefInfo> infos = new ArrayList<>();
+		boolean recovered = false;
+		try {
+			parser.getXRefInfo(infos);
+		} catch (IOException | LoopedException e) {
+			if (!this.xrefRecovery) {
+				throw e;
+			}
+			LOGGER.log(Level.WARNING, "Can't read xref of document, it is rebuilt from object headers", e);
+			infos.clear();
+			parser.recoverXRefInfo(infos);
+			recovered = true;
+		}
+		List<Long> startXRefs = new ArrayList<>();
+		for (COSXRefInfo info : infos) {
+			startXRefs.add(Long.valueOf(info.getStartXRef()));
+		}
+		setXRefInfo(infos);
+		// recovered xref is not stored, document is scanned on every opening
+		if (this.indexFile != null && !recovered) {
+			createIndex(parser, startXRefs);
+		}
+	}
+
+	private void readXRefRevisions() throws IOException {
+		List<COSXRefInfo> sections = new ArrayList<>();
+		try {
+			this.parser.getXRefTrailers(sections);
+		} catch (IOException | LoopedException e) {
+			if (!this.xrefRecovery) {
+				throw e;
+			}
+			// recovered xref has no revisions, it is read as a whole
+			readXRef(this.parser);
+			return;
+		}
+		this.revisions = createRevisions(sections);
+		this.revisionXRef = this.revisions.getRevision(this.revision < 0 ?
+				this.revisions.getRevisionsCount() - 1 : this.revision);
+		setXRef(this.revisionXRef);
+	}
+
+	private COSXRefRevisionReader getRevisions() throws IOException {
+		if (!this.loadingCoordinator.load(this.revisionsLoader, this.revisionsLoader)) {
+			throw new IOException("Revisions of document are requested while they are read");
+		}
+		return this.revisions;
+	}
+
+	private COSXRefRevisionReader createRevisions(List<COSXRefInfo> sections) {
+		return new COSXRefRevisionReader(sections, this.loadingCoordinator, new COSXRefRevisionReader.ISectionLoader() {
+			@Override
+			public void load(COSXRefInfo section) throws IOException {
+				// section can be needed in the middle of parsing an object,
+				// so it is read by its own parser
+				PDFParser parser = Reader.this.parser.createObjectParser();
+				try {
+					parser.getXRefSection(section);
+				} finally {
+					parser.closeInputStream();
+				}
+			}
+		});
+	}
+
+	// objects without indirect references don't depend on revision they are
+	// read for, so views of all revisions get the same object by its offset.
+	// References are counted by parser, so lazy values are not loaded here
+	private COSObject getRevisionObject(final long offset, final COSKey key) throws IOException {
+		COSObject result = this.revisionXRef.getSharedObject(offset);
+		if (result != null) {
+			return result;
+		}
+		PDFParser parser = leaseObjectParser();
+		try {
+			result = parser.getObject(offset);
+			result.setObjectKey(key);
+			if (!result.empty() && !parser.hasIndirectReferences()) {
+				return this.revisionXRef.shareObject(offset, result);
+			}
+			return result;
+		} finally {
+			releaseObjectParser(parser);
+		}
+	}
+
+	// trailers are shared by revisions, so their references are bound to
+	// document of this reader
+	private COSTrailer bindTrailer(final COSTrailer trailer) {
+		if (trailer == null) {
+			return null;
+		}
+		COSTrailer result = new COSTrailer();
+		result.setObject(bind(trailer.getObject()));
+		return result;
+	}
+
+	private COSObject bind(final COSObject object) {
+		if (object.isIndirect().booleanValue()) {
+			return COSIndirect.construct(object.getObjectKey(), this.parser.getDocument());
+		}
+		switch (object.getType()) {
+			case COS_ARRAY: {
+				COSObject result = COSArray.construct();
+				for (int i = 0; i < object.size().intValue(); ++i) {
+					result.add(bind(object.at(i)));
+				}
+				return result;
+			}
+			case COS_DICT: {
+				COSObject result = COSDictionary.construct();
+				for (ASAtom key : object.getKeySet()) {
+					result.setKey(key, bind(object.getKey(key)));
+				}
+				return result;
+			}
+			default:
+				return object;
+		}
+	}
+
+	private boolean initFromFirstPageSection() throws IOException {
+		List<COSXRefInfo> infos = new ArrayList<>();
+		COSObject dictionary = this.parser.getFirstPageXRefInfo(infos);
+		if (dictionary == null) {
+			return false;
+		}
+		setXRefInfo(infos);
+		int firstPage = dictionary.getIntegerKey(ASAtom.O).intValue();
+		for (COSKey key : super.getKeys()) {
+			if (key.getNumber() == firstPage) {
+				this.firstPageKey = key;
+			}
+		}
+		this.linearizationDictionary = dictionary;
+		this.xrefLoaded = false;
+		return true;
+	}
+
+	private void loadXRef() {
+		if (this.xrefLoaded) {
+			return;
+		}
+		try {
+			// objects needed for reading xref can't wait for it
+			this.loadingCoordinator.load(this.xrefLoader, this.xrefLoader);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Can't read xref of linearized document, only xref section of its first page is used", e);
+		}
+	}
+
+	private void readRemainingXRef() {
+		try {
+			// xref is read through its own parser, that is closed with reader
+			PDFParser parser = this.parser.createObjectParser();
+			synchronized (this.xrefParsers) {
+				this.xrefParsers.add(parser);
+			}
+			parser.getHeader();
+			readXRef(parser);
+		} catch (IOException | LoopedException e) {
+			LOGGER.log(Level.WARNING, "Can't read xref of linearized document, only xref section of its first page is used", e);
+		} finally {
+			this.xrefLoaded = true;
+		}
+	}
+
+	private COSObject getHintStream(PDLinearization parameters) throws IOException {
+		Long offset = parameters.getHintStreamOffset();
+		if (offset == null || offset.longValue() <= 0) {
+			throw new IOException("Linearization dictionary doesn't contain offset of hint stream");
+		}
+		return getObject(offset.longValue() + Math.max(this.header.getHeaderOffset(), 0));
+	}
+
+	private void initFromIndex() throws IOException {
+		this.header = this.index.getHeader();
+		COSDocument document = this.parser.getDocument();
+		if (document != null) {
+			document.setPostEOFDataSize(this.index.getPostEOFDataSize());
+			document.setXrefEOLMarkersComplyPDFA(this.index.isXrefEOLMarkersComplyPDFA());
+			document.setSubsectionHeaderSpaceSeparated(this.index.isSubsectionHeaderSpaceSeparated());
+		}
+		List<COSXRefInfo> infos = new ArrayList<>();
+		for (Long startXRef : this.index.getStartXRefs()) {
+			COSXRefInfo info = new COSXRefInfo();
+			info.setStartXRef(startXRef.longValue());
+			infos.add(info);
+		}
+		this.parser.getTrailers(infos, this.index.getTrailerOffsets(), this.index.getLastTrailerOffset());
+		setXRefInfo(infos, this.index.getOffsets());
+	}
+
+	private void createIndex(PDFParser parser, List<Long> startXRefs) {
+		ReaderIndex index = new ReaderIndex(this.documentFile.length(), this.documentFile.lastModified(), this.tailDigest);
+		index.setHeader(this.header);
+		index.setLinearized(this.parser.isLinearized());
+		COSDocument document = this.parser.getDocument();
+		if (document != null) {
+			index.setPostEOFDataSize(document.getPostEOFDataSize());
+			index.setXrefEOLMarkersComplyPDFA(document.isXrefEOLMarkersComplyPDFA());
+			index.setSubsectionHeaderSpaceSeparated(document.isSubsectionHeaderSpaceSeparated());
+		}
+		index.setLastTrailerOffset(parser.getLastTrailerOffset().longValue());
+		for (Long startXRef : startXRefs) {
+			index.getStartXRefs().add(startXRef);
+			Long trailerOffset = parser.getTrailerOffset(startXRef.longValue());
+			if (trailerOffset != null) {
+				index.getTrailerOffsets().put(startXRef, trailerOffset);
+			}
+		}
+		for (COSKey key : getKeys()) {
+			index.getOffsets().put(key, getOffset(key));
+		}
+		this.index = index;
+		this.indexChanged = true;
+		writeIndex();
+	}
+
+	private void writeIndex() {
+		try {
+			this.index.write(this.indexFile);
+			this.indexChanged = false;
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Can't write document index into " + this.indexFile, e);
+		}
+	}
+
 	private boolean docCanBeDecrypted() {
 		try {
 			COSObject cosEncrypt = this.parser.getEncryption();
@@ -189,21 +793,37 @@ public class Reader extends XRefReader {
 
 	@Override
 	public int getGreatestKeyNumberFromXref() {
-		int res = 1;
-		for (COSKey key : this.getKeys()) {
-			if (key.getNumber() > res) {
-				res = key.getNumber();
-			}
-		}
-		return res;
+		loadXRef();
+		return Math.max(1, getGreatestKeyNumber());
 	}
 
 	@Override
 	public void close() throws IOException {
+		if (this.indexChanged) {
+			writeIndex();
+		}
 		if (objectStreams != null) {
-			for (Map.Entry<Long, DecodedObjectStreamParser> entry : this.objectStreams.entrySet()) {
-				entry.getValue().closeInputStream();
+			this.objectStreams.clear();
+		}
+		synchronized (this.objectParsers) {
+			this.closed = true;
+			for (PDFParser parser : this.objectParsers) {
+				// parser of the document source is closed with the document
+				if (parser != this.parser) {
+					parser.closeInputStream();
+				}
+			}
+			this.objectParsers.clear();
+		}
+		synchronized (this.xrefParsers) {
+			for (PDFParser parser : this.xrefParsers) {
+				parser.closeInputStream();
 			}
+			this.xrefParsers.clear();
+		}
+		if (this.base != null) {
+			// revision view reads the file through its own parser
+			this.parser.closeInputStream();
 		}
 	}
 }
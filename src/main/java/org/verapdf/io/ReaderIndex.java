@@ -0,0 +1,338 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.cos.COSHeader;
+import org.verapdf.cos.COSKey;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index of document file that is stored on disk, so repeated openings of the
+ * same file do not parse header and xref again. It contains header data,
+ * merged xref offsets, offsets of trailers, document flags obtained while
+ * parsing xref and offsets of objects in object streams.
+ * <p>
+ * Index is valid only for the file with the same size, modification time and
+ * digest of the last {@link #TAIL_SIZE} bytes, as incremental updates are
+ * appended to the end of file.
+ */
+final class ReaderIndex {
+
+	private static final Logger LOGGER = Logger.getLogger(ReaderIndex.class.getCanonicalName());
+
+	static final int TAIL_SIZE = 64 * 1024;
+
+	private static final int MAGIC = 0x56504958;
+	private static final int FORMAT_VERSION = 1;
+	private static final String DIGEST_ALGORITHM = "MD5";
+	private static final String INDEX_EXTENSION = ".idx";
+
+	private final long fileLength;
+	private final long lastModified;
+	private final byte[] tailDigest;
+
+	private COSHeader header;
+	private boolean linearized;
+	private byte postEOFDataSize;
+	private boolean xrefEOLMarkersComplyPDFA;
+	private boolean subsectionHeaderSpaceSeparated;
+	private long lastTrailerOffset;
+	private final List<Long> startXRefs = new ArrayList<>();
+	private final Map<Long, Long> trailerOffsets = new HashMap<>();
+	private final Map<COSKey, Long> offsets = new LinkedHashMap<>();
+	private final Map<Long, Map<Integer, Long>> objectStreams = new HashMap<>();
+
+	ReaderIndex(long fileLength, long lastModified, byte[] tailDigest) {
+		this.fileLength = fileLength;
+		this.lastModified = lastModified;
+		this.tailDigest = tailDigest;
+	}
+
+	/**
+	 * @return file in given directory where index of given document is stored.
+	 */
+	static File getIndexFile(File directory, File document) throws IOException {
+		byte[] digest = getDigest().digest(document.getCanonicalPath().getBytes(StandardCharsets.UTF_8));
+		StringBuilder name = new StringBuilder();
+		for (byte b : digest) {
+			name.append(String.format("%02x", Integer.valueOf(b & 0xFF)));
+		}
+		return new File(directory, name.append(INDEX_EXTENSION).toString());
+	}
+
+	/**
+	 * @return digest of the last {@link #TAIL_SIZE} bytes of given source.
+	 */
+	static byte[] getTailDigest(SeekableInputStream source) throws IOException {
+		long length = source.getStreamLength();
+		int size = (int) Math.min(length, TAIL_SIZE);
+		byte[] tail = new byte[size];
+		try (ASInputStream stream = source.getStream(length - size, size)) {
+			int read = size == 0 ? 0 : stream.read(tail, size);
+			if (read != size) {
+				throw new IOException("Can't read the end of document file");
+			}
+		}
+		return getDigest().digest(tail);
+	}
+
+	/**
+	 * Reads index from file.
+	 *
+	 * @return index or null if there is no index in the file or it is built
+	 * for another version of document.
+	 */
+	static ReaderIndex read(File file, long fileLength, long lastModified, byte[] tailDigest) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+					|| in.readLong() != fileLength || in.readLong() != lastModified) {
+				return null;
+			}
+			byte[] digest = new byte[in.readUnsignedByte()];
+			in.readFully(digest);
+			if (!Arrays.equals(digest, tailDigest)) {
+				return null;
+			}
+			ReaderIndex index = new ReaderIndex(fileLength, lastModified, tailDigest);
+			index.readData(in);
+			return index;
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Can't read document index from " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes index into file. File is replaced only when index is written
+	 * completely.
+	 */
+	synchronized void write(File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Can't create directory " + directory);
+		}
+		File temp = File.createTempFile(file.getName(), null, directory);
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeLong(this.fileLength);
+				out.writeLong(this.lastModified);
+				out.writeByte(this.tailDigest.length);
+				out.write(this.tailDigest);
+				writeData(out);
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	private void readData(DataInputStream in) throws IOException {
+		this.header = new COSHeader(in.readUTF());
+		this.header.setHeaderOffset(in.readLong());
+		this.header.setVersion(in.readFloat());
+		this.header.setBinaryHeaderBytes(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+		this.linearized = in.readBoolean();
+		this.postEOFDataSize = in.readByte();
+		this.xrefEOLMarkersComplyPDFA = in.readBoolean();
+		this.subsectionHeaderSpaceSeparated = in.readBoolean();
+		this.lastTrailerOffset = in.readLong();
+		int sections = in.readInt();
+		for (int i = 0; i < sections; ++i) {
+			Long startXRef = Long.valueOf(in.readLong());
+			this.startXRefs.add(startXRef);
+			if (in.readBoolean()) {
+				this.trailerOffsets.put(startXRef, Long.valueOf(in.readLong()));
+			}
+		}
+		int objects = in.readInt();
+		for (int i = 0; i < objects; ++i) {
+			COSKey key = new COSKey(in.readInt(), in.readInt());
+			this.offsets.put(key, Long.valueOf(in.readLong()));
+		}
+		int streams = in.readInt();
+		for (int i = 0; i < streams; ++i) {
+			Long stream = Long.valueOf(in.readLong());
+			int size = in.readInt();
+			Map<Integer, Long> internalOffsets = new HashMap<>();
+			for (int j = 0; j < size; ++j) {
+				internalOffsets.put(Integer.valueOf(in.readInt()), Long.valueOf(in.readLong()));
+			}
+			this.objectStreams.put(stream, internalOffsets);
+		}
+	}
+
+	private void writeData(DataOutputStream out) throws IOException {
+		out.writeUTF(this.header.getHeader());
+		out.writeLong(this.header.getHeaderOffset());
+		out.writeFloat(this.header.getVersion());
+		out.writeInt(this.header.getHeaderCommentByte1());
+		out.writeInt(this.header.getHeaderCommentByte2());
+		out.writeInt(this.header.getHeaderCommentByte3());
+		out.writeInt(this.header.getHeaderCommentByte4());
+		out.writeBoolean(this.linearized);
+		out.writeByte(this.postEOFDataSize);
+		out.writeBoolean(this.xrefEOLMarkersComplyPDFA);
+		out.writeBoolean(this.subsectionHeaderSpaceSeparated);
+		out.writeLong(this.lastTrailerOffset);
+		out.writeInt(this.startXRefs.size());
+		for (Long startXRef : this.startXRefs) {
+			out.writeLong(startXRef.longValue());
+			Long trailerOffset = this.trailerOffsets.get(startXRef);
+			out.writeBoolean(trailerOffset != null);
+			if (trailerOffset != null) {
+				out.writeLong(trailerOffset.longValue());
+			}
+		}
+		out.writeInt(this.offsets.size());
+		for (Map.Entry<COSKey, Long> entry : this.offsets.entrySet()) {
+			out.writeInt(entry.getKey().getNumber());
+			out.writeInt(entry.getKey().getGeneration());
+			out.writeLong(entry.getValue().longValue());
+		}
+		out.writeInt(this.objectStreams.size());
+		for (Map.Entry<Long, Map<Integer, Long>> stream : this.objectStreams.entrySet()) {
+			out.writeLong(stream.getKey().longValue());
+			out.writeInt(stream.getValue().size());
+			for (Map.Entry<Integer, Long> entry : stream.getValue().entrySet()) {
+				out.writeInt(entry.getKey().intValue());
+				out.writeLong(entry.getValue().longValue());
+			}
+		}
+	}
+
+	private static MessageDigest getDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("Can't calculate " + DIGEST_ALGORITHM + " digest", e);
+		}
+	}
+
+	COSHeader getHeader() {
+		return this.header;
+	}
+
+	void setHeader(COSHeader header) {
+		this.header = header;
+	}
+
+	boolean isLinearized() {
+		return this.linearized;
+	}
+
+	void setLinearized(boolean linearized) {
+		this.linearized = linearized;
+	}
+
+	byte getPostEOFDataSize() {
+		return this.postEOFDataSize;
+	}
+
+	void setPostEOFDataSize(byte postEOFDataSize) {
+		this.postEOFDataSize = postEOFDataSize;
+	}
+
+	boolean isXrefEOLMarkersComplyPDFA() {
+		return this.xrefEOLMarkersComplyPDFA;
+	}
+
+	void setXrefEOLMarkersComplyPDFA(boolean xrefEOLMarkersComplyPDFA) {
+		this.xrefEOLMarkersComplyPDFA = xrefEOLMarkersComplyPDFA;
+	}
+
+	boolean isSubsectionHeaderSpaceSeparated() {
+		return this.subsectionHeaderSpaceSeparated;
+	}
+
+	void setSubsectionHeaderSpaceSeparated(boolean subsectionHeaderSpaceSeparated) {
+		this.subsectionHeaderSpaceSeparated = subsectionHeaderSpaceSeparated;
+	}
+
+	long getLastTrailerOffset() {
+		return this.lastTrailerOffset;
+	}
+
+	void setLastTrailerOffset(long lastTrailerOffset) {
+		this.lastTrailerOffset = lastTrailerOffset;
+	}
+
+	/**
+	 * @return offsets of xref sections in the order of xref infos read by
+	 * parser.
+	 */
+	List<Long> getStartXRefs() {
+		return this.startXRefs;
+	}
+
+	/**
+	 * @return map from offsets of xref tables to offsets of their trailer
+	 * dictionaries.
+	 */
+	Map<Long, Long> getTrailerOffsets() {
+		return this.trailerOffsets;
+	}
+
+	/**
+	 * @return merged offsets of all objects of document.
+	 */
+	Map<COSKey, Long> getOffsets() {
+		return this.offsets;
+	}
+
+	/**
+	 * @return offsets of objects in object stream with given number or null if
+	 * they are not known.
+	 */
+	synchronized Map<Integer, Long> getObjectStreamOffsets(long streamNumber) {
+		return this.objectStreams.get(Long.valueOf(streamNumber));
+	}
+
+	synchronized void addObjectStreamOffsets(long streamNumber, Map<Integer, Long> internalOffsets) {
+		this.objectStreams.put(Long.valueOf(streamNumber), new HashMap<>(internalOffsets));
+	}
+}
@@ -0,0 +1,229 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.io.File;
+
+/**
+ * Options that control how document is read by {@link Reader}. Default
+ * options correspond to the behaviour of Reader created without options.
+ */
+public class ReaderOptions {
+
+	public static final long DEFAULT_PAGE_CACHE_SIZE = 8L * 1024 * 1024;
+	public static final long DEFAULT_OBJECT_STREAM_CACHE_SIZE = 16L * 1024 * 1024;
+	public static final int LATEST_REVISION = -1;
+
+	private boolean memoryMapped = false;
+	private long pageCacheSize = DEFAULT_PAGE_CACHE_SIZE;
+	private boolean lazyParsing = false;
+	private boolean xrefRecovery = false;
+	private File indexCacheDirectory = null;
+	private long objectStreamCacheSize = DEFAULT_OBJECT_STREAM_CACHE_SIZE;
+	private boolean objectStreamBatchParsing = false;
+	private boolean linearizedFastOpen = false;
+	private boolean revisionAware = false;
+	private int revision = LATEST_REVISION;
+
+	/**
+	 * @return true if document file is read through memory-mapped
+	 * {@link MappedInputStream} instead of {@link InternalInputStream}.
+	 */
+	public boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+
+	/**
+	 * Sets if document file should be memory-mapped. This option has no effect
+	 * for documents that are read from input stream.
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	/**
+	 * @return maximal size in bytes of {@link PageCache} shared by all streams
+	 * reading document file.
+	 */
+	public long getPageCacheSize() {
+		return pageCacheSize;
+	}
+
+	/**
+	 * Sets maximal size in bytes of {@link PageCache} shared by all streams
+	 * reading document file. Zero or negative value disables page cache. This
+	 * option has no effect for memory-mapped documents and documents that are
+	 * read from input stream.
+	 */
+	public void setPageCacheSize(long pageCacheSize) {
+		this.pageCacheSize = pageCacheSize;
+	}
+
+	/**
+	 * @return true if values of dictionaries and arrays that are dictionaries
+	 * or arrays themselves are parsed only when they are accessed.
+	 */
+	public boolean isLazyParsing() {
+		return lazyParsing;
+	}
+
+	/**
+	 * Sets if nested dictionaries and arrays should be parsed only when they
+	 * are accessed. This option has no effect for documents that are read
+	 * from input stream and for objects in object streams.
+	 */
+	public void setLazyParsing(boolean lazyParsing) {
+		this.lazyParsing = lazyParsing;
+	}
+
+	/**
+	 * @return true if xref table of document with missing or broken xref is
+	 * rebuilt by scanning the whole document file.
+	 */
+	public boolean isXRefRecovery() {
+		return xrefRecovery;
+	}
+
+	/**
+	 * Sets if xref table of document with missing or broken xref should be
+	 * rebuilt from object headers and trailers found in document file instead
+	 * of failing to open the document. This option has no effect for
+	 * documents that are read from input stream.
+	 */
+	public void setXRefRecovery(boolean xrefRecovery) {
+		this.xrefRecovery = xrefRecovery;
+	}
+
+	/**
+	 * @return directory where indexes of opened documents are stored or null
+	 * if indexes are not used.
+	 */
+	public File getIndexCacheDirectory() {
+		return indexCacheDirectory;
+	}
+
+	/**
+	 * Sets directory where indexes of opened documents are stored. Index
+	 * contains header, xref offsets and offsets of objects in object streams,
+	 * so next opening of the same unchanged file does not parse them again.
+	 * Null value disables indexes. This option has no effect for documents
+	 * that are read from input stream.
+	 */
+	public void setIndexCacheDirectory(File indexCacheDirectory) {
+		this.indexCacheDirectory = indexCacheDirectory;
+	}
+
+	/**
+	 * @return maximal total size in bytes of decoded object streams that are
+	 * kept open by reader.
+	 */
+	public long getObjectStreamCacheSize() {
+		return objectStreamCacheSize;
+	}
+
+	/**
+	 * Sets maximal total size in bytes of decoded object streams that are
+	 * kept open by reader. Least recently used object streams are closed when
+	 * this size is exceeded and are decoded again when objects from them are
+	 * requested. The most recently used object stream is kept open even if
+	 * it is larger.
+	 */
+	public void setObjectStreamCacheSize(long objectStreamCacheSize) {
+		this.objectStreamCacheSize = objectStreamCacheSize;
+	}
+
+	/**
+	 * @return true if all objects of object stream are parsed when object
+	 * from it is requested for the first time.
+	 */
+	public boolean isObjectStreamBatchParsing() {
+		return objectStreamBatchParsing;
+	}
+
+	/**
+	 * Sets if all objects of object stream should be parsed in one pass and
+	 * put into document body when object from this stream is requested for
+	 * the first time, instead of parsing each object separately when it is
+	 * requested. This is faster when most objects of document are read.
+	 */
+	public void setObjectStreamBatchParsing(boolean objectStreamBatchParsing) {
+		this.objectStreamBatchParsing = objectStreamBatchParsing;
+	}
+
+	/**
+	 * @return true if linearized document is opened by xref section of its
+	 * first page.
+	 */
+	public boolean isLinearizedFastOpen() {
+		return linearizedFastOpen;
+	}
+
+	/**
+	 * Sets if linearized document should be opened by reading only its
+	 * linearization dictionary and xref section of its first page. Number of
+	 * pages and the first page are then taken from linearization dictionary,
+	 * and the rest of xref is read when an object outside of the first page
+	 * section is requested. This option has no effect for documents that are
+	 * not linearized or were updated incrementally, and for documents opened
+	 * using stored index.
+	 */
+	public void setLinearizedFastOpen(boolean linearizedFastOpen) {
+		this.linearizedFastOpen = linearizedFastOpen;
+	}
+
+	/**
+	 * @return true if xref sections of document revisions are kept apart and
+	 * parsed only when offsets of objects are looked up through them.
+	 */
+	public boolean isRevisionAware() {
+		return revisionAware;
+	}
+
+	/**
+	 * Sets if document should be opened by reading only trailers of its xref
+	 * sections. Offsets of objects are then resolved through the chain of
+	 * sections from the opened revision back to the original document, each
+	 * section is parsed when lookup reaches it, and sections of later
+	 * revisions are not parsed at all. This option has no effect for
+	 * documents that are read from input stream, linearized fast open and
+	 * stored index are not used with it.
+	 */
+	public void setRevisionAware(boolean revisionAware) {
+		this.revisionAware = revisionAware;
+	}
+
+	/**
+	 * @return revision of document that is opened by revision-aware reading.
+	 */
+	public int getRevision() {
+		return revision;
+	}
+
+	/**
+	 * Sets revision of document that should be opened by revision-aware
+	 * reading, counted from 0 for the original document. Each incremental
+	 * update is the next revision, {@link #LATEST_REVISION} opens document
+	 * with all its updates.
+	 */
+	public void setRevision(int revision) {
+		this.revision = revision;
+	}
+}
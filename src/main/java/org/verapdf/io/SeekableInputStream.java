@@ -21,6 +21,7 @@
 package org.verapdf.io;
 
 import org.verapdf.as.filters.io.ASBufferedInFilter;
+import org.verapdf.as.io.ASGrowableBuffer;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.as.io.ASMemoryInStream;
 
@@ -36,7 +37,20 @@ import java.io.InputStream;
  */
 public abstract class SeekableInputStream extends ASInputStream {
 
-    private static final int MAX_BUFFER_SIZE = 10240;
+    private static final int DEFAULT_IN_MEMORY_THRESHOLD = 16 * 1024 * 1024;
+    private static final long DEFAULT_MEMORY_BUDGET =
+            Math.min(256L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 4);
+
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * Streams of this length are kept in memory without reserving memory in
+     * global memory budget.
+     */
+    public static final int UNCHARGED_IN_MEMORY_SIZE = 10240;
+
+    private static volatile int inMemoryThreshold = DEFAULT_IN_MEMORY_THRESHOLD;
+    private static volatile MemoryBudget memoryBudget = new MemoryBudget(DEFAULT_MEMORY_BUDGET);
 
     /**
      * Goes to a particular byte in stream.
@@ -143,25 +157,148 @@ public abstract class SeekableInputStream extends ASInputStream {
         return (byte) next;
     }
 
+    /**
+     * Gets array that contains data of this stream starting from current
+     * offset, so that parsers can scan it without calling read() for each
+     * byte. Data is located in returned array between indexes
+     * {@link #getWindowStart()} (inclusive), which corresponds to current
+     * offset, and {@link #getWindowEnd()} (exclusive). Window is empty if end
+     * of stream is reached. Returned array must not be modified, and window is
+     * valid only until next call of any other method of this stream except
+     * {@link #advanceWindow(int)}.
+     *
+     * @return array with data or null if this stream doesn't provide window.
+     */
+    public byte[] getWindow() throws IOException {
+        return null;
+    }
+
+    /**
+     * @return index of byte at current offset in the array returned by last
+     * call of {@link #getWindow()}. Streams that don't provide window have
+     * empty window, so 0 is returned by default.
+     */
+    public int getWindowStart() {
+        return 0;
+    }
+
+    /**
+     * @return index after the last byte of data in the array returned by last
+     * call of {@link #getWindow()}. Streams that don't provide window have
+     * empty window, so 0 is returned by default.
+     */
+    public int getWindowEnd() {
+        return 0;
+    }
+
+    /**
+     * Moves current offset forward by given amount of bytes. The new offset
+     * shall not be beyond the end of current window. Window of stream that
+     * doesn't provide it is empty, so by default there is nothing to advance.
+     *
+     * @param count is amount of bytes to skip.
+     */
+    public void advanceWindow(int count) {
+    }
+
     /**
      * Returns InternalInputStream or ASMemoryInStream constructed from given
-     * stream depending on stream length.
+     * stream depending on stream length. Streams not longer than
+     * {@link #UNCHARGED_IN_MEMORY_SIZE} are always kept in memory. Longer
+     * stream is kept in memory if its length doesn't exceed in-memory
+     * threshold and memory for it can be reserved in global memory budget,
+     * otherwise it is written into temp file. Reserved memory is released when
+     * returned stream is closed, so consumers should close it.
      *
      * @param stream is stream to turn into seekable stream.
      * @return SeekableStream that contains data of passed stream.
      */
     public static SeekableInputStream getSeekableStream(InputStream stream) throws IOException {
-        int totalRead = 0;
-        byte[] buffer = new byte[0];
+        int threshold = inMemoryThreshold;
+        MemoryBudget budget = memoryBudget;
+        ASGrowableBuffer buffer = new ASGrowableBuffer(0);
         byte[] temp = new byte[ASBufferedInFilter.BF_BUFFER_SIZE];
-        while (MAX_BUFFER_SIZE < 0 || totalRead < MAX_BUFFER_SIZE) {
-            int read = stream.read(temp);
-            if (read == -1) {
-                return new ASMemoryInStream(buffer, buffer.length, false);
+        long reserved = 0;
+        boolean completed = false;
+        try {
+            while (true) {
+                int read = stream.read(temp);
+                if (read == -1) {
+                    completed = true;
+                    if (reserved == 0) {
+                        return new ASMemoryInStream(buffer.getArray(), buffer.size(), false);
+                    }
+                    return new ASMemoryInStream(buffer.getArray(), buffer.size(), budget);
+                }
+                long required = (long) buffer.size() + read;
+                if (required > buffer.capacity()) {
+                    long newCapacity = required > MAX_ARRAY_LENGTH ? 0 : buffer.getGrownCapacity((int) required);
+                    if (required <= UNCHARGED_IN_MEMORY_SIZE) {
+                        newCapacity = Math.min(newCapacity, UNCHARGED_IN_MEMORY_SIZE);
+                    } else {
+                        if (threshold >= 0) {
+                            newCapacity = Math.min(newCapacity, threshold);
+                        }
+                        // once buffer exceeds uncharged size the whole buffer is charged
+                        if (required > newCapacity || !budget.reserve(newCapacity - reserved)) {
+                            budget.release(reserved);
+                            reserved = 0;
+                            return InternalInputStream.createConcatenated(ASBufferedInFilter.concatenate(
+                                    buffer.getArray(), buffer.size(), temp, read), stream);
+                        }
+                        reserved = newCapacity;
+                    }
+                    buffer.setCapacity((int) newCapacity);
+                }
+                buffer.append(temp, read);
+            }
+        } finally {
+            if (!completed) {
+                budget.release(reserved);
             }
-            buffer = ASBufferedInFilter.concatenate(buffer, buffer.length, temp, read);
-            totalRead += read;
         }
-        return InternalInputStream.createConcatenated(buffer, stream);
+    }
+
+    /**
+     * @return maximal length of stream that is kept in memory by
+     * {@link #getSeekableStream(InputStream)}.
+     */
+    public static int getInMemoryThreshold() {
+        return inMemoryThreshold;
+    }
+
+    /**
+     * Sets maximal length of stream that is kept in memory by
+     * {@link #getSeekableStream(InputStream)}. Longer streams are written into
+     * temp files.
+     *
+     * @param threshold is maximal length of in-memory stream in bytes, negative
+     *                  value means that length of in-memory stream is limited
+     *                  only by memory budget.
+     */
+    public static void setInMemoryThreshold(int threshold) {
+        inMemoryThreshold = threshold;
+    }
+
+    /**
+     * @return memory budget shared by all in-memory streams created by
+     * {@link #getSeekableStream(InputStream)}.
+     */
+    public static MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets memory budget shared by all in-memory streams created by
+     * {@link #getSeekableStream(InputStream)}. If budget is exhausted then
+     * streams are written into temp files.
+     *
+     * @param budget is new memory budget.
+     */
+    public static void setMemoryBudget(MemoryBudget budget) {
+        if (budget == null) {
+            throw new IllegalArgumentException("Memory budget can't be null");
+        }
+        memoryBudget = budget;
     }
 }
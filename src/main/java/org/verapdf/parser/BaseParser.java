@@ -48,6 +48,7 @@ public class BaseParser {
 
 	protected SeekableInputStream source;
 	private Token token;
+	private final NumberParser numberParser = new NumberParser();
 
 	public BaseParser(SeekableInputStream stream) throws IOException {
 		if(stream == null) {
@@ -280,7 +281,30 @@ public class BaseParser {
 	}
 
 	protected void skipSpaces(boolean skipComment) throws IOException {
-		while (skipSingleSpace(skipComment));
+		while (true) {
+			byte[] window = this.source.getWindow();
+			if (window == null) {
+				while (skipSingleSpace(skipComment));
+				return;
+			}
+			int start = this.source.getWindowStart();
+			int end = this.source.getWindowEnd();
+			if (start == end) {
+				return;
+			}
+			int i = start;
+			while (i < end && CharTable.isSpace(window[i])) {
+				i++;
+			}
+			this.source.advanceWindow(i - start);
+			if (i < end) {
+				if (window[i] != '%' || !skipComment) {
+					return;
+				}
+				this.source.advanceWindow(1);
+				skipComment();
+			}
+		}
 	}
 
 	protected boolean skipSingleSpace(boolean skipComment) throws IOException {
@@ -346,6 +370,21 @@ public class BaseParser {
 
 	private void skipComment() throws IOException {
 		// skips all characters till EOL == { CR, LF, CRLF }
+		byte[] window = this.source.getWindow();
+		while (window != null) {
+			int start = this.source.getWindowStart();
+			int end = this.source.getWindowEnd();
+			int i = start;
+			while (i < end && window[i] != ASCII_LF && window[i] != ASCII_CR) {
+				i++;
+			}
+			this.source.advanceWindow(i - start);
+			if (i < end || start == end) {
+				// EOL itself is processed below
+				break;
+			}
+			window = this.source.getWindow();
+		}
 		byte ch;
 		while (!this.source.isEOF()) {
 			ch = this.source.readByte();
@@ -391,6 +430,7 @@ public class BaseParser {
 			switch (ch) {
 				default:
 					appendToToken(ch);
+					appendLitStringCharacters();
 					break;
 				case '(':
 					parenthesesDepth++;
@@ -469,6 +509,30 @@ public class BaseParser {
 		}
 	}
 
+	/**
+	 * Appends to token regular characters of literal string that follow
+	 * current offset. Characters are taken directly from the stream window,
+	 * the last byte of window is left for the caller.
+	 */
+	private void appendLitStringCharacters() throws IOException {
+		byte[] window = this.source.getWindow();
+		if (window == null) {
+			return;
+		}
+		int start = this.source.getWindowStart();
+		int end = this.source.getWindowEnd();
+		int i = start;
+		while (i + 1 < end) {
+			byte b = window[i];
+			if (b == '(' || b == ')' || b == '\\') {
+				break;
+			}
+			i++;
+		}
+		this.token.append(window, start, i - start);
+		this.source.advanceWindow(i - start);
+	}
+
 	private void readHexString() throws IOException {
 		this.token.clearValue();
 		byte ch;
@@ -481,6 +545,36 @@ public class BaseParser {
 
 		boolean odd = false;
 		while (!this.source.isEOF()) {
+			byte[] window = this.source.getWindow();
+			if (window != null) {
+				int start = this.source.getWindowStart();
+				int end = this.source.getWindowEnd();
+				int i = start;
+				for (; i < end; ++i) {
+					byte b = window[i];
+					if (CharTable.isSpace(b)) {
+						continue;
+					}
+					hex = COSFilterASCIIHexDecode.decodeLoHex(b);
+					if (hex > 15 || hex < 0) {
+						// '>' and non-hex characters are processed below
+						break;
+					}
+					hexCount++;
+					if (odd) {
+						uc = (uc << 4) + hex;
+						appendToToken(uc);
+						uc = 0;
+					} else {
+						uc = hex;
+					}
+					odd = !odd;
+				}
+				this.source.advanceWindow(i - start);
+				if (i == end) {
+					continue;
+				}
+			}
 			ch = this.source.readByte();
 			if (ch == '>') {
 				if (odd) {
@@ -539,6 +633,20 @@ public class BaseParser {
 		this.token.clearValue();
 		byte ch;
 		while (!this.source.isEOF()) {
+			byte[] window = this.source.getWindow();
+			if (window != null) {
+				int start = this.source.getWindowStart();
+				int end = this.source.getWindowEnd();
+				int i = start;
+				while (i < end && window[i] != '#' && !CharTable.isTokenDelimiter(window[i])) {
+					i++;
+				}
+				this.token.append(window, start, i - start);
+				this.source.advanceWindow(i - start);
+				if (i == end) {
+					continue;
+				}
+			}
 			ch = this.source.readByte();
 			if (CharTable.isTokenDelimiter(ch)) {
 				this.source.unread();
@@ -573,6 +681,24 @@ public class BaseParser {
 
 	private void readToken() throws IOException {
 		this.token.clearValue();
+		byte[] window = this.source.getWindow();
+		while (window != null) {
+			int start = this.source.getWindowStart();
+			int end = this.source.getWindowEnd();
+			if (start == end) {
+				return;
+			}
+			int i = start;
+			while (i < end && !CharTable.isTokenDelimiter(window[i])) {
+				i++;
+			}
+			this.token.append(window, start, i - start);
+			this.source.advanceWindow(i - start);
+			if (i < end) {
+				return;
+			}
+			window = this.source.getWindow();
+		}
 		byte ch;
 		while (!this.source.isEOF()) {
 			ch = this.source.readByte();
@@ -586,41 +712,45 @@ public class BaseParser {
 	}
 
 	protected void readNumber() throws IOException {
-		try {
-			initializeToken();
-			this.token.clearValue();
-			this.token.type = Token.Type.TT_INTEGER;
-			byte ch;
-			while (!this.source.isEOF()) {
-				ch = this.source.readByte();
-				if (CharTable.isTokenDelimiter(ch)) {
-					this.source.unread();
-					break;
-				}
-				if (ch >= '0' && ch <= '9') {
-					appendToToken(ch);
-				} else if (ch == '.') {
-					this.token.type = Token.Type.TT_REAL;
-					appendToToken(ch);
-				} else {
-					this.source.unread();
-					break;
-				}
+		initializeToken();
+		this.token.clearValue();
+		this.token.type = Token.Type.TT_INTEGER;
+		this.numberParser.reset();
+		byte ch;
+		while (!this.source.isEOF()) {
+			ch = this.source.readByte();
+			if (CharTable.isTokenDelimiter(ch)) {
+				this.source.unread();
+				break;
 			}
-			if (this.token.type == Token.Type.TT_INTEGER) {
-				long value = Long.valueOf(this.token.getValue()).longValue();
-				this.token.integer = value;
-				this.token.real = value;
+			if (ch >= '0' && ch <= '9') {
+				appendToToken(ch);
+				this.numberParser.appendDigit(ch - '0');
+			} else if (ch == '.') {
+				this.token.type = Token.Type.TT_REAL;
+				appendToToken(ch);
+				this.numberParser.appendPoint();
 			} else {
-				double value = Double.valueOf(this.token.getValue()).doubleValue();
-				this.token.integer = Math.round(value);
+				this.source.unread();
+				break;
+			}
+		}
+		if (this.token.type == Token.Type.TT_INTEGER) {
+			if (this.numberParser.isValidInteger()) {
+				long value = this.numberParser.getInteger();
+				this.token.integer = value;
 				this.token.real = value;
+				return;
 			}
-		} catch (NumberFormatException e) {
-			LOGGER.log(Level.FINE, "", e);
-			this.token.integer = Math.round(Double.MAX_VALUE);
-			this.token.real = Double.MAX_VALUE;
+		} else if (this.numberParser.isValidReal()) {
+			double value = this.numberParser.getReal(this.token);
+			this.token.integer = Math.round(value);
+			this.token.real = value;
+			return;
 		}
+		LOGGER.log(Level.FINE, "Can't parse number " + this.token.getValue());
+		this.token.integer = Math.round(Double.MAX_VALUE);
+		this.token.real = Double.MAX_VALUE;
 	}
 
 	protected void initializeToken() {
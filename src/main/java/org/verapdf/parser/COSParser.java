@@ -21,19 +21,22 @@
 package org.verapdf.parser;
 
 import org.verapdf.as.ASAtom;
+import org.verapdf.as.CharTable;
 import org.verapdf.as.exceptions.StringExceptions;
+import org.verapdf.as.io.ASBufferPool;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.cos.*;
 import org.verapdf.io.InternalInputStream;
+import org.verapdf.io.MappedInputStream;
 import org.verapdf.io.SeekableInputStream;
 import org.verapdf.pd.encryption.StandardSecurityHandler;
 import org.verapdf.tools.resource.ASFileStreamCloser;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,12 +52,42 @@ public class COSParser extends BaseParser {
 	 */
 	protected final int LINEARIZATION_DICTIONARY_LOOKUP_SIZE = 1024;
 
+	private static final byte[] ENDSTREAM = "endstream".getBytes(StandardCharsets.ISO_8859_1);
+	private static final int[] ENDSTREAM_SHIFTS = new int[256];
+	private static final int ENDSTREAM_SEARCH_BUFFER_SIZE = 65536;
+
+	// states of array and dictionary skipping in lazy parsing mode
+	private static final int SKIP_FAILED = -1;
+	private static final int SKIP_ARRAY = 0;
+	private static final int SKIP_ARRAY_INTEGER = 1;
+	private static final int SKIP_ARRAY_TWO_INTEGERS = 2;
+	private static final int SKIP_DICT_KEY = 3;
+	private static final int SKIP_DICT_VALUE = 4;
+	private static final int SKIP_DICT_INTEGER = 5;
+	private static final int SKIP_DICT_TWO_INTEGERS = 6;
+
+	static {
+		Arrays.fill(ENDSTREAM_SHIFTS, ENDSTREAM.length);
+		for (int i = 0; i < ENDSTREAM.length - 1; i++) {
+			ENDSTREAM_SHIFTS[ENDSTREAM[i] & 0xFF] = ENDSTREAM.length - 1 - i;
+		}
+	}
+
 	protected COSDocument document;
-	protected Queue<COSObject> objects = new LinkedList<>();
-	protected Queue<Long> integers = new LinkedList<>();
+	protected final IntegerLookahead integers = new IntegerLookahead();
     protected COSKey keyOfCurrentObject;
 
 	protected boolean flag = true;
+	// number of indirect references met by this parser, including references
+	// in values skipped in lazy parsing mode
+	protected long indirectReferences = 0;
+
+	private boolean lazyParsing = false;
+	// stream that lazy values are loaded from and offset of source in it
+	private SeekableInputStream lazySource;
+	private long lazySourceOffset = 0;
+	// if not null, overrides encryption state of document for parsed strings
+	private Boolean decryptStrings;
 
 	public COSParser(final SeekableInputStream seekableInputStream) throws IOException {
 		super(seekableInputStream);
@@ -79,10 +112,8 @@ public class COSParser extends BaseParser {
 	}
 
 	public COSObject nextObject() throws IOException {
-		if (!this.objects.isEmpty()) {
-			COSObject result = this.objects.peek();
-			this.objects.remove();
-			return result;
+		if (this.integers.isFlushed()) {
+			return COSInteger.construct(this.integers.removeFirst());
 		}
 
 		if (this.flag) {
@@ -94,11 +125,9 @@ public class COSParser extends BaseParser {
 		final Token token = getToken();
 
 		if (token.type == Token.Type.TT_INTEGER) {  // looking for indirect reference
-			this.integers.add(Long.valueOf(token.integer));
+			this.integers.add(token.integer);
 			if (this.integers.size() == 3) {
-				COSObject result = COSInteger.construct(this.integers.peek().longValue());
-				this.integers.remove();
-				return result;
+				return COSInteger.construct(this.integers.removeFirst());
 			}
 			return nextObject();
 		}
@@ -106,20 +135,15 @@ public class COSParser extends BaseParser {
 		if (token.type == Token.Type.TT_KEYWORD
 				&& token.keyword == Token.Keyword.KW_R
 				&& this.integers.size() == 2) {
-			final int number = this.integers.peek().intValue();
-			this.integers.remove();
-			final int generation = this.integers.peek().intValue();
-			this.integers.remove();
+			final int number = (int) this.integers.removeFirst();
+			final int generation = (int) this.integers.removeFirst();
+			this.indirectReferences++;
 			return COSIndirect.construct(new COSKey(number, generation), document);
 		}
 
 		if (!this.integers.isEmpty()) {
-			COSObject result = COSInteger.construct(this.integers.peek().longValue());
-			this.integers.remove();
-			while (!this.integers.isEmpty()) {
-				this.objects.add(COSInteger.construct(this.integers.peek().longValue()));
-				this.integers.remove();
-			}
+			COSObject result = COSInteger.construct(this.integers.removeFirst());
+			this.integers.flush();
 			this.flag = false;
 			return result;
 		}
@@ -163,12 +187,12 @@ public class COSParser extends BaseParser {
 			case TT_HEXSTRING:
 				COSObject res = COSString.construct(token.getByteValue(), true,
 						token.getHexCount().longValue(), token.isContainsOnlyHex());
-				if(this.document == null || !this.document.isEncrypted()) {
+				if (!isStringDecryptionNeeded()) {
 					return res;
 				}
 			return this.decryptCOSString(res);
 			case TT_NAME:
-				return COSName.construct(token.getValue());
+				return COSName.construct(ASAtom.getASAtom(token.getBuffer(), 0, token.getSize()));
 			case TT_OPENARRAY:
 				this.flag = false;
 				return getArray();
@@ -197,11 +221,19 @@ public class COSParser extends BaseParser {
 		}
 
 		COSObject arr = COSArray.construct();
+		COSArray array = (COSArray) arr.get();
 
-		COSObject obj = nextObject();
-		while(!obj.empty()) {
+		while (true) {
+			ICOSLazyValue lazyValue = skipLazyValue();
+			if (lazyValue != null) {
+				array.addLazy(lazyValue);
+				continue;
+			}
+			COSObject obj = nextObject();
+			if (obj.empty()) {
+				break;
+			}
 			arr.add(obj);
-			obj = nextObject();
 		}
 
 		if (token.type != Token.Type.TT_CLOSEARRAY) {
@@ -222,7 +254,7 @@ public class COSParser extends BaseParser {
 		if (token.type != Token.Type.TT_NAME) {
 			return new COSObject();
 		}
-		return COSName.construct(token.getValue());
+		return COSName.construct(ASAtom.getASAtom(token.getBuffer(), 0, token.getSize()));
 	}
 
 	protected COSObject getDictionary() throws IOException {
@@ -237,11 +269,17 @@ public class COSParser extends BaseParser {
 		}
 
 		COSObject dict = COSDictionary.construct();
+		COSDictionary dictionary = (COSDictionary) dict.get();
 
 		COSObject key = getName();
 		while (!key.empty()) {
-			COSObject obj = nextObject();
-			dict.setKey(key.getName(), obj);
+			ICOSLazyValue lazyValue = skipLazyValue();
+			if (lazyValue != null) {
+				dictionary.setLazyKey(key.getName(), lazyValue);
+			} else {
+				COSObject obj = nextObject();
+				dict.setKey(key.getName(), obj);
+			}
 			key = getName();
 		}
 
@@ -292,53 +330,35 @@ public class COSParser extends BaseParser {
 			dict.setRealStreamSize(size);
 			ASInputStream stm = super.getRandomAccess(size);
 			dict.setData(stm);
-			if (stm instanceof InternalInputStream) {
+			if (stm instanceof InternalInputStream || stm instanceof MappedInputStream) {
 				this.document.addFileResource(new ASFileStreamCloser(stm));
 			}
 		} else {
 			//trying to find endstream keyword
 			long realStreamSize = -1;
-			int bufferLength = 512;
-			byte[] buffer = new byte[bufferLength];
-			int eolLength = 0;
-			boolean isPrevCR = false;
-			while (realStreamSize == -1 && !source.isEOF()) {
-				long bytesRead = source.read(buffer, bufferLength);
-				for (int i = 0; i < bytesRead; i++) {
-					if (buffer[i] == 101) {
-						long reset = source.getOffset();
-						long possibleEndStreamOffset = reset - bytesRead + i - eolLength;
-						source.seek(possibleEndStreamOffset);
-						nextToken();
-						if (token.type == Token.Type.TT_KEYWORD &&
-								token.keyword == Token.Keyword.KW_ENDSTREAM) {
-							realStreamSize = possibleEndStreamOffset - streamStartOffset;
-							dict.setRealStreamSize(realStreamSize);
-							source.seek(streamStartOffset);
-							ASInputStream stm = super.getRandomAccess(realStreamSize);
-							dict.setData(stm);
-							source.seek(possibleEndStreamOffset);
-							if (stm instanceof InternalInputStream) {
-								this.document.addFileResource(new ASFileStreamCloser(stm));
-							}
-							break;
-						}
-						source.seek(reset);
-					}
-
-					//we need to subtract eol before endstream length from stream length
-					if (isCR(buffer[i])) {
-						// if current byte is CR, then this is the 1st byte of eol
-						eolLength = 1;
-						isPrevCR = true;
-					} else {
-						if (isLF(buffer[i])) {
-							eolLength = isPrevCR ? 2 : 1;
-						} else {
-							eolLength = 0;
-						}
-						isPrevCR = false;
+			long searchFrom = streamStartOffset;
+			while (realStreamSize == -1) {
+				long endstreamOffset = findEndstream(searchFrom);
+				if (endstreamOffset == -1) {
+					break;
+				}
+				//we need to subtract eol before endstream length from stream length
+				long possibleEndStreamOffset = getEOLStart(streamStartOffset, endstreamOffset);
+				source.seek(possibleEndStreamOffset);
+				nextToken();
+				if (token.type == Token.Type.TT_KEYWORD &&
+						token.keyword == Token.Keyword.KW_ENDSTREAM) {
+					realStreamSize = possibleEndStreamOffset - streamStartOffset;
+					dict.setRealStreamSize(realStreamSize);
+					source.seek(streamStartOffset);
+					ASInputStream stm = super.getRandomAccess(realStreamSize);
+					dict.setData(stm);
+					source.seek(possibleEndStreamOffset);
+					if (stm instanceof InternalInputStream || stm instanceof MappedInputStream) {
+						this.document.addFileResource(new ASFileStreamCloser(stm));
 					}
+				} else {
+					searchFrom = endstreamOffset + 1;
 				}
 			}
 			if (realStreamSize == -1) {
@@ -352,6 +372,80 @@ public class COSParser extends BaseParser {
 	}
 
 
+	/**
+	 * Searches for the first endstream keyword that starts not before given
+	 * offset and is followed by token delimiter or end of file. Source is
+	 * scanned forward in large blocks using Boyer-Moore-Horspool algorithm.
+	 *
+	 * @param searchFrom is offset to start search from.
+	 * @return offset of found endstream keyword or -1 if keyword is not found.
+	 */
+	private long findEndstream(long searchFrom) throws IOException {
+		int patternLength = ENDSTREAM.length;
+		long streamLength = source.getStreamLength();
+		byte[] buffer = ASBufferPool.acquire(ENDSTREAM_SEARCH_BUFFER_SIZE);
+		try {
+			while (searchFrom + patternLength <= streamLength) {
+				long blockStart = searchFrom;
+				source.seek(blockStart);
+				int blockLength = source.read(buffer, ENDSTREAM_SEARCH_BUFFER_SIZE);
+				if (blockLength <= 0) {
+					return -1;
+				}
+				boolean isLastBlock = blockStart + blockLength >= streamLength;
+				int i = 0;
+				while (i + patternLength <= blockLength) {
+					int j = patternLength - 1;
+					while (j >= 0 && buffer[i + j] == ENDSTREAM[j]) {
+						j--;
+					}
+					if (j < 0) {
+						int next = i + patternLength;
+						if (next == blockLength && !isLastBlock) {
+							// byte after keyword is in the next block
+							break;
+						}
+						if (next == blockLength || CharTable.isTokenDelimiter(buffer[next])) {
+							return blockStart + i;
+						}
+					}
+					i += ENDSTREAM_SHIFTS[buffer[i + patternLength - 1] & 0xFF];
+				}
+				if (isLastBlock) {
+					return -1;
+				}
+				searchFrom = blockStart + i;
+			}
+			return -1;
+		} finally {
+			ASBufferPool.release(buffer);
+		}
+	}
+
+	/**
+	 * Gets offset of EOL that ends right before given offset. EOL is not
+	 * looked for before the start of stream data.
+	 */
+	private long getEOLStart(long streamStartOffset, long offset) throws IOException {
+		long res = offset;
+		if (res > streamStartOffset) {
+			source.seek(res - 1);
+			int ch = source.read();
+			if (isCR(ch)) {
+				res--;
+			} else if (isLF(ch)) {
+				res--;
+				if (res > streamStartOffset) {
+					source.seek(res - 1);
+					if (isCR(source.read())) {
+						res--;
+					}
+				}
+			}
+		}
+		return res;
+	}
+
 	private void checkStreamSpacings(COSObject stream) throws IOException {
 		byte whiteSpace = source.readByte();
 		if (isCR(whiteSpace)) {
@@ -426,6 +520,237 @@ public class COSParser extends BaseParser {
 		return document;
 	}
 
+	/**
+	 * @return true if array and dictionary values of arrays and dictionaries
+	 * are parsed only when they are accessed.
+	 */
+	public boolean isLazyParsing() {
+		return lazyParsing;
+	}
+
+	/**
+	 * Sets lazy parsing mode. In this mode values of arrays and dictionaries
+	 * that are arrays or dictionaries themselves are only skimmed through, and
+	 * are parsed from the source when they are accessed for the first time.
+	 * Source of parser shall stay open while parsed objects are used.
+	 */
+	public void setLazyParsing(boolean lazyParsing) {
+		this.lazyParsing = lazyParsing;
+	}
+
+	/**
+	 * Overrides encryption state of document for parsed strings, null value
+	 * makes strings decrypted if document is encrypted.
+	 */
+	protected void setDecryptStrings(Boolean decryptStrings) {
+		this.decryptStrings = decryptStrings;
+	}
+
+	private boolean isStringDecryptionNeeded() {
+		if (this.decryptStrings != null) {
+			return this.decryptStrings.booleanValue();
+		}
+		return this.document != null && this.document.isEncrypted();
+	}
+
+	/**
+	 * Skips next array or dictionary in lazy parsing mode.
+	 *
+	 * @return skipped value or null if next object is not an array or a
+	 * dictionary, or if it should be parsed right now. In this case the next
+	 * object shall be read by {@link #nextObject()}.
+	 */
+	private ICOSLazyValue skipLazyValue() throws IOException {
+		if (!this.lazyParsing || !this.flag || !this.integers.isEmpty()) {
+			return null;
+		}
+		initializeToken();
+		skipSpaces(true);
+		long start = this.source.getOffset();
+		nextToken();
+		Token token = getToken();
+		if (token.type != Token.Type.TT_OPENARRAY && token.type != Token.Type.TT_OPENDICT) {
+			this.flag = false;
+			return null;
+		}
+		boolean skipped = skipCompoundValue();
+		long end = this.source.getOffset();
+		this.flag = true;
+		if (!skipped) {
+			this.source.seek(start);
+			return null;
+		}
+		SeekableInputStream lazyValueSource = this.lazySource != null ? this.lazySource : this.source;
+		return new LazyValue(lazyValueSource, this.document, this.lazySourceOffset + start,
+				end - start, this.keyOfCurrentObject, isStringDecryptionNeeded());
+	}
+
+	/**
+	 * Skips array or dictionary which opening token was just read. Only
+	 * values that are parsed by {@link #nextObject()} exactly the same way
+	 * regardless of their position in the source are skipped, anything else
+	 * such as streams, references with missing numbers or unknown keywords
+	 * stops skipping.
+	 *
+	 * @return true if value was skipped.
+	 */
+	private boolean skipCompoundValue() throws IOException {
+		int[] states = new int[8];
+		int depth = 0;
+		Token token = getToken();
+		states[depth++] = token.type == Token.Type.TT_OPENARRAY ? SKIP_ARRAY : SKIP_DICT_KEY;
+		while (depth > 0) {
+			nextToken();
+			int state = states[depth - 1];
+			int next;
+			boolean isScalar = isSkippedScalar(token);
+			switch (token.type) {
+				case TT_OPENARRAY:
+				case TT_OPENDICT:
+					if (state < SKIP_DICT_KEY) {
+						states[depth - 1] = SKIP_ARRAY;
+					} else if (state == SKIP_DICT_VALUE) {
+						states[depth - 1] = SKIP_DICT_KEY;
+					} else {
+						return false;
+					}
+					if (depth == states.length) {
+						states = Arrays.copyOf(states, depth * 2);
+					}
+					states[depth++] = token.type == Token.Type.TT_OPENARRAY ? SKIP_ARRAY : SKIP_DICT_KEY;
+					continue;
+				case TT_CLOSEARRAY:
+					if (state >= SKIP_DICT_KEY) {
+						return false;
+					}
+					depth--;
+					continue;
+				case TT_CLOSEDICT:
+					if (state != SKIP_DICT_KEY && state != SKIP_DICT_INTEGER) {
+						return false;
+					}
+					depth--;
+					// dictionary followed by stream keyword is parsed as stream
+					long reset = this.source.getOffset();
+					nextToken();
+					if (token.type == Token.Type.TT_KEYWORD &&
+							token.keyword == Token.Keyword.KW_STREAM) {
+						return false;
+					}
+					this.source.seek(reset);
+					continue;
+				case TT_INTEGER:
+					if (state < SKIP_DICT_KEY) {
+						next = Math.min(state + 1, SKIP_ARRAY_TWO_INTEGERS);
+					} else if (state == SKIP_DICT_VALUE) {
+						next = SKIP_DICT_INTEGER;
+					} else if (state == SKIP_DICT_INTEGER) {
+						next = SKIP_DICT_TWO_INTEGERS;
+					} else {
+						return false;
+					}
+					break;
+				case TT_KEYWORD:
+					if (token.keyword == Token.Keyword.KW_R) {
+						if (state == SKIP_ARRAY_TWO_INTEGERS) {
+							next = SKIP_ARRAY;
+						} else if (state == SKIP_DICT_TWO_INTEGERS) {
+							next = SKIP_DICT_KEY;
+						} else {
+							return false;
+						}
+						this.indirectReferences++;
+						break;
+					}
+					next = getStateAfterScalar(state, isScalar);
+					break;
+				case TT_NAME:
+					if (state == SKIP_DICT_KEY || state == SKIP_DICT_INTEGER) {
+						next = SKIP_DICT_VALUE;
+					} else {
+						next = getStateAfterScalar(state, isScalar);
+					}
+					break;
+				default:
+					next = getStateAfterScalar(state, isScalar);
+					break;
+			}
+			if (next == SKIP_FAILED) {
+				return false;
+			}
+			states[depth - 1] = next;
+		}
+		return true;
+	}
+
+	private static boolean isSkippedScalar(Token token) {
+		switch (token.type) {
+			case TT_REAL:
+			case TT_LITSTRING:
+			case TT_HEXSTRING:
+			case TT_NAME:
+				return true;
+			case TT_KEYWORD:
+				return token.keyword == Token.Keyword.KW_NULL ||
+						token.keyword == Token.Keyword.KW_TRUE ||
+						token.keyword == Token.Keyword.KW_FALSE;
+			default:
+				return false;
+		}
+	}
+
+	private static int getStateAfterScalar(int state, boolean isScalar) {
+		if (!isScalar) {
+			return SKIP_FAILED;
+		}
+		if (state < SKIP_DICT_KEY) {
+			return SKIP_ARRAY;
+		}
+		return state == SKIP_DICT_VALUE ? SKIP_DICT_KEY : SKIP_FAILED;
+	}
+
+	/**
+	 * Array or dictionary value skipped in lazy parsing mode. Value is parsed
+	 * by a separate parser from a substream of the source, so loading does not
+	 * change state of the parser that skipped it.
+	 */
+	private static class LazyValue implements ICOSLazyValue {
+
+		private final SeekableInputStream source;
+		private final COSDocument document;
+		private final long offset;
+		private final long length;
+		private final COSKey key;
+		private final boolean decryptStrings;
+
+		private LazyValue(SeekableInputStream source, COSDocument document, long offset,
+						  long length, COSKey key, boolean decryptStrings) {
+			this.source = source;
+			this.document = document;
+			this.offset = offset;
+			this.length = length;
+			this.key = key;
+			this.decryptStrings = decryptStrings;
+		}
+
+		@Override
+		public COSObject load() {
+			try (ASInputStream stream = this.source.getStream(this.offset, this.length)) {
+				COSParser parser = new COSParser(this.document, stream);
+				parser.keyOfCurrentObject = this.key;
+				parser.decryptStrings = Boolean.valueOf(this.decryptStrings);
+				parser.lazyParsing = true;
+				parser.lazySource = this.source;
+				// substream is at its start, but some streams report offsets of parent
+				parser.lazySourceOffset = this.offset - parser.source.getOffset();
+				return parser.nextObject();
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Error while parsing value at offset " + this.offset, e);
+				return new COSObject();
+			}
+		}
+	}
+
 	private COSObject decryptCOSString(COSObject string) {
 		StandardSecurityHandler ssh =
 				this.document.getStandardSecurityHandler();
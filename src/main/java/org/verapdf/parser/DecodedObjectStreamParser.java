@@ -26,7 +26,10 @@ import org.verapdf.cos.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -62,6 +65,38 @@ public class DecodedObjectStreamParser extends COSParser {
         }
     }
 
+    /**
+     * Constructor from decoded object stream data and offsets of objects in
+     * it that were calculated earlier.
+     *
+     * @param inputStream     contains decoded object stream.
+     * @param objectStream    is COSStream that is being parsed.
+     * @param internalOffsets maps numbers of objects in this stream to their
+     *                        offsets in decoded data.
+     */
+    public DecodedObjectStreamParser(final ASInputStream inputStream,
+                                     COSStream objectStream, COSDocument doc,
+                                     Map<Integer, Long> internalOffsets) throws IOException {
+        super(doc, inputStream);
+        this.objectStream = objectStream;
+        this.internalOffsets = new HashMap<>(internalOffsets);
+    }
+
+    /**
+     * @return map from numbers of objects in this stream to their offsets in
+     * decoded data.
+     */
+    public Map<Integer, Long> getInternalOffsets() {
+        return Collections.unmodifiableMap(this.internalOffsets);
+    }
+
+    /**
+     * @return length of decoded object stream data.
+     */
+    public long getDecodedLength() throws IOException {
+        return this.source.getStreamLength();
+    }
+
     private void calculateInternalOffsets() throws IOException {
         int n = (int) ((COSInteger) this.objectStream.getKey(ASAtom.N).getDirectBase()).get();
         long first = ((COSInteger) this.objectStream.getKey(ASAtom.FIRST).getDirectBase()).get();
@@ -109,10 +144,31 @@ public class DecodedObjectStreamParser extends COSParser {
         }
         this.source.seek(internalOffsets.get(objNum));
         this.flag = true;
-        this.objects.clear();   // In case if some COSInteger was read before.
-        this.integers.clear();
+        this.integers.clear();   // In case if some COSInteger was read before.
         COSObject res = nextObject();
         res.setObjectKey(key);
         return res;
     }
+
+    /**
+     * Parses all objects from object stream in one pass, in order of their
+     * offsets in decoded data.
+     *
+     * @return map from keys of objects to parsed objects.
+     */
+    public Map<COSKey, COSObject> getObjects() throws IOException {
+        List<Map.Entry<Integer, Long>> entries = new ArrayList<>(this.internalOffsets.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Integer, Long>>() {
+            @Override
+            public int compare(Map.Entry<Integer, Long> first, Map.Entry<Integer, Long> second) {
+                return first.getValue().compareTo(second.getValue());
+            }
+        });
+        Map<COSKey, COSObject> res = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> entry : entries) {
+            COSKey key = new COSKey(entry.getKey().intValue(), 0);
+            res.put(key, getObject(key));
+        }
+        return res;
+    }
 }
@@ -0,0 +1,216 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.cos.COSObjType;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSStream;
+import org.verapdf.pd.linearization.PageOffsetHintTable;
+import org.verapdf.pd.linearization.SharedObjectHintTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Parses page offset and shared object hint tables of the primary hint
+ * stream of linearized document.
+ */
+public class HintStreamParser {
+
+    // implementation limit on number of indirect objects in document
+    private static final int MAX_ENTRIES = 8388607;
+
+    private final byte[] data;
+    private final long sharedObjectsOffset;
+    private long bitOffset;
+
+    /**
+     * Constructor.
+     *
+     * @param hintStream is primary hint stream.
+     * @throws IOException if stream data can't be read.
+     */
+    public HintStreamParser(COSObject hintStream) throws IOException {
+        if (hintStream == null || hintStream.getType() != COSObjType.COS_STREAM) {
+            throw new IOException("Hint stream is not a stream");
+        }
+        Long sharedObjectsOffset = hintStream.getIntegerKey(ASAtom.S);
+        if (sharedObjectsOffset == null || sharedObjectsOffset.longValue() < 0) {
+            throw new IOException("Hint stream doesn't contain offset of shared object hint table");
+        }
+        this.sharedObjectsOffset = sharedObjectsOffset.longValue();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (ASInputStream stream = hintStream.getData(COSStream.FilterFlags.DECODE)) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer, buffer.length)) > 0) {
+                data.write(buffer, 0, read);
+            }
+        }
+        this.data = data.toByteArray();
+    }
+
+    /**
+     * Parses page offset hint table that starts at the beginning of hint
+     * stream.
+     *
+     * @param pages is number of pages in document.
+     * @return parsed hint table.
+     * @throws IOException if table is broken.
+     */
+    public PageOffsetHintTable parsePageOffsetHintTable(int pages) throws IOException {
+        if (pages <= 0 || pages > MAX_ENTRIES) {
+            throw new IOException("Invalid number of pages in linearized document " + pages);
+        }
+        this.bitOffset = 0;
+        long leastObjects = readBits(32);
+        long firstPageObjectOffset = readBits(32);
+        int objectsBits = readBitsNumber();
+        long leastLength = readBits(32);
+        int lengthBits = readBitsNumber();
+        // content stream offsets and lengths are not used
+        readBits(32);
+        int contentOffsetBits = readBitsNumber();
+        readBits(32);
+        int contentLengthBits = readBitsNumber();
+        int sharedObjectsBits = readBitsNumber();
+        int identifierBits = readBitsNumber();
+        int numeratorBits = readBitsNumber();
+        readBits(16);
+
+        int[] objects = new int[pages];
+        for (int i = 0; i < pages; ++i) {
+            objects[i] = toInt(leastObjects + readBits(objectsBits));
+        }
+        skipToByte();
+        long[] lengths = new long[pages];
+        for (int i = 0; i < pages; ++i) {
+            lengths[i] = leastLength + readBits(lengthBits);
+        }
+        skipToByte();
+        int[][] sharedObjects = new int[pages][];
+        long references = 0;
+        for (int i = 0; i < pages; ++i) {
+            long count = readBits(sharedObjectsBits);
+            references += count;
+            if (references > MAX_ENTRIES) {
+                throw new IOException("Invalid number of shared object references in page offset hint table");
+            }
+            sharedObjects[i] = new int[(int) count];
+        }
+        skipToByte();
+        for (int[] identifiers : sharedObjects) {
+            for (int j = 0; j < identifiers.length; ++j) {
+                identifiers[j] = toInt(readBits(identifierBits));
+            }
+        }
+        skipToByte();
+        for (int[] identifiers : sharedObjects) {
+            skipBits((long) identifiers.length * numeratorBits);
+        }
+        skipToByte();
+        skipBits((long) pages * contentOffsetBits);
+        skipToByte();
+        skipBits((long) pages * contentLengthBits);
+        return new PageOffsetHintTable(firstPageObjectOffset, objects, lengths, sharedObjects);
+    }
+
+    /**
+     * Parses shared object hint table located at offset given by S entry of
+     * hint stream.
+     *
+     * @return parsed hint table.
+     * @throws IOException if table is broken.
+     */
+    public SharedObjectHintTable parseSharedObjectHintTable() throws IOException {
+        this.bitOffset = this.sharedObjectsOffset * 8;
+        int firstObjectNumber = toInt(readBits(32));
+        long firstObjectOffset = readBits(32);
+        int firstPageEntries = toInt(readBits(32));
+        long entries = readBits(32);
+        int objectsBits = readBitsNumber();
+        long leastLength = readBits(32);
+        int lengthBits = readBitsNumber();
+        if (entries > MAX_ENTRIES || firstPageEntries > entries) {
+            throw new IOException("Invalid number of entries in shared object hint table " + entries);
+        }
+
+        long[] lengths = new long[(int) entries];
+        for (int i = 0; i < lengths.length; ++i) {
+            lengths[i] = leastLength + readBits(lengthBits);
+        }
+        skipToByte();
+        int signatures = 0;
+        for (int i = 0; i < lengths.length; ++i) {
+            signatures += (int) readBits(1);
+        }
+        skipToByte();
+        // MD5 signatures of groups are not used
+        skipBits(128L * signatures);
+        skipToByte();
+        int[] objects = new int[lengths.length];
+        for (int i = 0; i < objects.length; ++i) {
+            objects[i] = toInt(readBits(objectsBits) + 1);
+        }
+        return new SharedObjectHintTable(firstObjectNumber, firstObjectOffset, firstPageEntries, objects, lengths);
+    }
+
+    private long readBits(int bits) throws IOException {
+        if (this.bitOffset + bits > this.data.length * 8L) {
+            throw new IOException("Unexpected end of hint stream");
+        }
+        long result = 0;
+        for (int i = 0; i < bits; ++i) {
+            int bit = this.data[(int) (this.bitOffset >>> 3)] >>> (7 - (int) (this.bitOffset & 7));
+            result = (result << 1) | (bit & 1);
+            this.bitOffset++;
+        }
+        return result;
+    }
+
+    private int readBitsNumber() throws IOException {
+        int bits = (int) readBits(16);
+        if (bits > 32) {
+            throw new IOException("Invalid number of bits in hint table " + bits);
+        }
+        return bits;
+    }
+
+    private void skipBits(long bits) throws IOException {
+        if (this.bitOffset + bits > this.data.length * 8L) {
+            throw new IOException("Unexpected end of hint stream");
+        }
+        this.bitOffset += bits;
+    }
+
+    private void skipToByte() {
+        this.bitOffset = (this.bitOffset + 7) & ~7L;
+    }
+
+    private static int toInt(long value) throws IOException {
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid value in hint table " + value);
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+/**
+ * Integers that were read by parser while looking for indirect reference
+ * "N G R". Values are kept in a primitive ring buffer of fixed size, so no
+ * boxing and no list nodes are needed for integer tokens.
+ * <p>
+ * If integers turn out not to be a part of indirect reference, lookahead is
+ * flushed: integers left in it should be returned by parser as they are
+ * before any new token is read.
+ */
+public final class IntegerLookahead {
+
+	private static final int CAPACITY = 3;
+
+	private final long[] values = new long[CAPACITY];
+	private int first;
+	private int size;
+	private boolean flushed;
+
+	/**
+	 * @return number of integers in lookahead.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return true if lookahead contains no integers.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * @return true if lookahead contains flushed integers that should be
+	 * returned before the next token is read.
+	 */
+	public boolean isFlushed() {
+		return this.flushed;
+	}
+
+	/**
+	 * Adds integer to the end of lookahead.
+	 *
+	 * @param value is integer to add.
+	 */
+	public void add(long value) {
+		if (this.size == CAPACITY) {
+			throw new IllegalStateException("Integer lookahead is full");
+		}
+		this.values[(this.first + this.size) % CAPACITY] = value;
+		this.size++;
+	}
+
+	/**
+	 * Removes first integer from lookahead.
+	 *
+	 * @return removed integer.
+	 */
+	public long removeFirst() {
+		if (this.size == 0) {
+			throw new IllegalStateException("Integer lookahead is empty");
+		}
+		long res = this.values[this.first];
+		this.first = (this.first + 1) % CAPACITY;
+		this.size--;
+		if (this.size == 0) {
+			this.flushed = false;
+		}
+		return res;
+	}
+
+	/**
+	 * Marks integers in lookahead as not being a part of indirect reference.
+	 * Does nothing if lookahead is empty.
+	 */
+	public void flush() {
+		this.flushed = this.size != 0;
+	}
+
+	/**
+	 * Removes flushed integers from lookahead. Integers that can still be a
+	 * part of indirect reference are kept.
+	 */
+	public void clearFlushed() {
+		if (this.flushed) {
+			clear();
+		}
+	}
+
+	/**
+	 * Removes all integers from lookahead.
+	 */
+	public void clear() {
+		this.first = 0;
+		this.size = 0;
+		this.flushed = false;
+	}
+}
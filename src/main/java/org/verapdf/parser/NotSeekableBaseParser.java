@@ -57,6 +57,7 @@ public class NotSeekableBaseParser implements Closeable {
 
     protected ASBufferedInFilter source;
     private Token token;
+    private final NumberParser numberParser = new NumberParser();
 
     /**
      * Constructor from stream. New buffered stream from given stream is created.
@@ -607,42 +608,65 @@ public class NotSeekableBaseParser implements Closeable {
     }
 
     protected void readNumber() throws IOException {
-        try {
-            int radix = 10;
-            initializeToken();
-            this.token.clearValue();
-            this.token.type = Token.Type.TT_INTEGER;
-            byte ch;
-            while (!this.source.isEOF()) {
-                ch = this.source.readByte();
-                if (CharTable.isTokenDelimiter(ch)) {
-                    this.source.unread();
-                    break;
-                }
-                if (ch >= '0' && ch <= '9') {
-                    appendToToken(ch);
-                } else if (ch == '.') {
-                    this.token.type = Token.Type.TT_REAL;
-                    appendToToken(ch);
-                } else if (ch == '#' && isPSParser) {
-                    if (this.token.type == Token.Type.TT_INTEGER) {
-                        radix = Integer.valueOf(this.token.getValue());
+        int radix = 10;
+        initializeToken();
+        this.token.clearValue();
+        this.token.type = Token.Type.TT_INTEGER;
+        this.numberParser.reset();
+        byte ch;
+        while (!this.source.isEOF()) {
+            ch = this.source.readByte();
+            if (CharTable.isTokenDelimiter(ch)) {
+                this.source.unread();
+                break;
+            }
+            if (ch >= '0' && ch <= '9') {
+                appendToToken(ch);
+                this.numberParser.appendDigit(ch - '0');
+            } else if (ch == '.') {
+                this.token.type = Token.Type.TT_REAL;
+                appendToToken(ch);
+                this.numberParser.appendPoint();
+            } else if (ch == '#' && isPSParser) {
+                if (this.token.type == Token.Type.TT_INTEGER) {
+                    if (!this.numberParser.isValidInteger() ||
+                            this.numberParser.getInteger() > Integer.MAX_VALUE) {
+                        LOGGER.log(Level.FINE, "Can't parse radix " + this.token.getValue());
+                        return;
                     }
-                    token.clearValue();
-                } else {
-                    this.source.unread();
-                    break;
+                    radix = (int) this.numberParser.getInteger();
                 }
+                token.clearValue();
+                this.numberParser.reset();
+            } else {
+                this.source.unread();
+                break;
             }
-            if (this.token.type == Token.Type.TT_INTEGER) {
-                long value = Long.valueOf(this.token.getValue(), radix).longValue();
+        }
+        if (this.token.type == Token.Type.TT_INTEGER) {
+            if (radix != 10) {
+                readRadixNumber(radix);
+            } else if (this.numberParser.isValidInteger()) {
+                long value = this.numberParser.getInteger();
                 this.token.integer = value;
                 this.token.real = value;
             } else {
-                double value = Double.valueOf(this.token.getValue()).doubleValue();
-                this.token.integer = Math.round(value);
-                this.token.real = value;
+                LOGGER.log(Level.FINE, "Can't parse number " + this.token.getValue());
             }
+        } else if (this.numberParser.isValidReal()) {
+            double value = this.numberParser.getReal(this.token);
+            this.token.integer = Math.round(value);
+            this.token.real = value;
+        } else {
+            LOGGER.log(Level.FINE, "Can't parse number " + this.token.getValue());
+        }
+    }
+
+    private void readRadixNumber(int radix) {
+        try {
+            long value = Long.valueOf(this.token.getValue(), radix).longValue();
+            this.token.integer = value;
+            this.token.real = value;
         } catch (NumberFormatException e) {
             LOGGER.log(Level.FINE, "", e);
         }
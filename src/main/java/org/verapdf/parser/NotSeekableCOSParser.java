@@ -20,6 +20,7 @@
  */
 package org.verapdf.parser;
 
+import org.verapdf.as.ASAtom;
 import org.verapdf.as.exceptions.StringExceptions;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.cos.*;
@@ -28,8 +29,6 @@ import org.verapdf.pd.encryption.StandardSecurityHandler;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,8 +44,7 @@ public class NotSeekableCOSParser extends NotSeekableBaseParser {
             NotSeekableCOSParser.class.getCanonicalName());
 
     protected COSDocument document;
-    protected Queue<COSObject> objects = new LinkedList<>();
-    protected Queue<Long> integers = new LinkedList<>();
+    protected final IntegerLookahead integers = new IntegerLookahead();
     protected COSKey keyOfCurrentObject;
 
     protected boolean flag = true;
@@ -70,10 +68,8 @@ public class NotSeekableCOSParser extends NotSeekableBaseParser {
      * @return next COSObject.
      */
     public COSObject nextObject() throws IOException {
-        if (!this.objects.isEmpty()) {
-            COSObject result = this.objects.peek();
-            this.objects.remove();
-            return result;
+        if (this.integers.isFlushed()) {
+            return COSInteger.construct(this.integers.removeFirst());
         }
 
         if (this.flag) {
@@ -85,11 +81,9 @@ public class NotSeekableCOSParser extends NotSeekableBaseParser {
         final Token token = getToken();
 
         if (token.type == Token.Type.TT_INTEGER) {  // looking for indirect reference
-            this.integers.add(Long.valueOf(token.integer));
+            this.integers.add(token.integer);
             if (this.integers.size() == 3) {
-                COSObject result = COSInteger.construct(this.integers.peek().longValue());
-                this.integers.remove();
-                return result;
+                return COSInteger.construct(this.integers.removeFirst());
             }
             return nextObject();
         }
@@ -97,20 +91,14 @@ public class NotSeekableCOSParser extends NotSeekableBaseParser {
         if (token.type == Token.Type.TT_KEYWORD
                 && token.keyword == Token.Keyword.KW_R
                 && this.integers.size() == 2) {
-            final int number = this.integers.peek().intValue();
-            this.integers.remove();
-            final int generation = this.integers.peek().intValue();
-            this.integers.remove();
+            final int number = (int) this.integers.removeFirst();
+            final int generation = (int) this.integers.removeFirst();
             return COSIndirect.construct(new COSKey(number, generation), document);
         }
 
         if (!this.integers.isEmpty()) {
-            COSObject result = COSInteger.construct(this.integers.peek().longValue());
-            this.integers.remove();
-            while (!this.integers.isEmpty()) {
-                this.objects.add(COSInteger.construct(this.integers.peek().longValue()));
-                this.integers.remove();
-            }
+            COSObject result = COSInteger.construct(this.integers.removeFirst());
+            this.integers.flush();
             this.flag = false;
             return result;
         }
@@ -120,7 +108,7 @@ public class NotSeekableCOSParser extends NotSeekableBaseParser {
                 break;
             case TT_KEYWORD: {
                 if (token.keyword == null && isPSParser) {
-                    return PSObject.getPSObject(COSName.construct(token.getValue()), true);
+                    return PSObject.getPSObject(COSName.construct(ASAtom.getASAtom(token.getBuffer(), 0, token.getSize())), true);
                 } else if (token.keyword == null) {
                     break;
                 }
@@ -163,7 +151,7 @@ public class NotSeekableCOSParser extends NotSeekableBaseParser {
                 }
                 return this.decryptCOSString(res);
             case TT_NAME:
-                return COSName.construct(token.getValue());
+                return COSName.construct(ASAtom.getASAtom(token.getBuffer(), 0, token.getSize()));
             case TT_OPENARRAY:
                 this.flag = false;
                 return getArray();
@@ -221,7 +209,7 @@ public class NotSeekableCOSParser extends NotSeekableBaseParser {
         if (token.type != Token.Type.TT_NAME) {
             return new COSObject();
         }
-        return COSName.construct(token.getValue());
+        return COSName.construct(ASAtom.getASAtom(token.getBuffer(), 0, token.getSize()));
     }
 
     protected COSObject getDictionary() throws IOException {
@@ -0,0 +1,101 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+/**
+ * Accumulates value of decimal PDF number while its bytes are scanned, so
+ * number can be obtained without creating intermediate String.
+ */
+final class NumberParser {
+
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private long mantissa;
+	private boolean overflow;
+	private int digits;
+	private int fractionDigits;
+	private int points;
+
+	void reset() {
+		this.mantissa = 0;
+		this.overflow = false;
+		this.digits = 0;
+		this.fractionDigits = 0;
+		this.points = 0;
+	}
+
+	void appendDigit(int digit) {
+		this.digits++;
+		if (this.points > 0) {
+			this.fractionDigits++;
+		}
+		if (!this.overflow) {
+			if (this.mantissa > (Long.MAX_VALUE - digit) / 10) {
+				this.overflow = true;
+			} else {
+				this.mantissa = this.mantissa * 10 + digit;
+			}
+		}
+	}
+
+	void appendPoint() {
+		this.points++;
+	}
+
+	/**
+	 * @return true if scanned bytes represent integer that fits into long.
+	 */
+	boolean isValidInteger() {
+		return this.digits > 0 && this.points == 0 && !this.overflow;
+	}
+
+	long getInteger() {
+		return this.mantissa;
+	}
+
+	/**
+	 * @return true if scanned bytes represent real number with one decimal
+	 * point.
+	 */
+	boolean isValidReal() {
+		return this.digits > 0 && this.points == 1;
+	}
+
+	/**
+	 * Gets value of real number. If number can't be computed exactly from
+	 * accumulated mantissa then it is parsed from the token value.
+	 *
+	 * @param token is token that contains scanned bytes.
+	 * @return value of real number.
+	 */
+	double getReal(Token token) {
+		if (!this.overflow && this.mantissa <= MAX_EXACT_MANTISSA &&
+				this.fractionDigits < POWERS_OF_TEN.length) {
+			// both operands are exact, so division gives correctly rounded result
+			return this.mantissa / POWERS_OF_TEN[this.fractionDigits];
+		}
+		return Double.parseDouble(token.getValue());
+	}
+}
@@ -34,9 +34,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -49,16 +52,26 @@ public class PDFParser extends COSParser {
     private static final Logger LOGGER = Logger.getLogger(PDFParser.class.getCanonicalName());
 
     private static final String HEADER_PATTERN = "%PDF-";
+    private static final int XREF_ENTRY_LENGTH = 20;
+    private static final int XREF_ENTRIES_IN_BLOCK = 512;
     private static final String PDF_DEFAULT_VERSION = "1.4";
     private static final byte[] STARTXREF = "startxref".getBytes(StandardCharsets.ISO_8859_1);
 
     //%%EOF marker byte representation
     private static final byte[] EOF_MARKER = new byte[]{37, 37, 69, 79, 70};
+    // keys that are copied from found trailers when xref is recovered
+    private static final ASAtom[] RECOVERED_TRAILER_KEYS = {ASAtom.ROOT, ASAtom.INFO, ASAtom.ID, ASAtom.ENCRYPT};
 
     private long offsetShift = 0;
     private boolean isEncrypted;
     private COSObject encryption;
     private Long lastTrailerOffset = 0L;
+    private final Map<Long, Long> trailerOffsets = new HashMap<>();
+    private Boolean linearized;
+    private COSObject linearizationDictionary;
+    private long linearizationDictionaryEnd;
+    // true unless the last object read by getObject has no indirect references
+    private boolean lastObjectHasReferences = true;
 
     public PDFParser(final String filename) throws IOException {
         super(filename);
@@ -84,6 +97,31 @@ public class PDFParser extends COSParser {
         return this.source;
     }
 
+    /**
+     * Creates parser that reads objects of the same document through its own
+     * view of the document source. Such parser can read objects in another
+     * thread in parallel with this parser.
+     *
+     * @return new parser for reading objects by offsets.
+     */
+    public PDFParser createObjectParser() throws IOException {
+        return createObjectParser(this.document);
+    }
+
+    /**
+     * Creates parser that reads objects of given document, e.g. of another
+     * revision of the same file, from new view of the document source.
+     *
+     * @param document is document that parsed objects belong to.
+     * @return new parser for reading objects by offsets.
+     */
+    public PDFParser createObjectParser(final COSDocument document) throws IOException {
+        PDFParser parser = new PDFParser(document, this.source.getStream(0, this.source.getStreamLength()));
+        parser.setLazyParsing(isLazyParsing());
+        parser.initializeToken();
+        return parser;
+    }
+
     private COSHeader parseHeader() throws IOException {
         COSHeader result = new COSHeader();
 
@@ -156,6 +194,14 @@ public class PDFParser extends COSParser {
     }
 
     public boolean isLinearized() {
+        // linearization dictionary is looked up only once
+        if (this.linearized == null) {
+            this.linearized = Boolean.valueOf(findLinearizationDictionary());
+        }
+        return this.linearized.booleanValue();
+    }
+
+    private boolean findLinearizationDictionary() {
         try {
             COSObject linDict = findFirstDictionary();
 
@@ -163,6 +209,8 @@ public class PDFParser extends COSParser {
                 if (linDict.knownKey(ASAtom.LINEARIZED).booleanValue()) {
                     long length = linDict.getIntegerKey(ASAtom.L).longValue();
                     if (length != 0) {
+                        this.linearizationDictionary = linDict;
+                        this.linearizationDictionaryEnd = this.source.getOffset();
                         return length == this.source.getStreamLength() && this.source.getOffset() < LINEARIZATION_DICTIONARY_LOOKUP_SIZE;
                     }
                 }
@@ -190,6 +238,54 @@ public class PDFParser extends COSParser {
 		return null;
     }
 
+    /**
+     * Reads xref section that follows linearization dictionary of linearized
+     * document, i.e. xref section of its first page, without reading previous
+     * sections.
+     *
+     * @param infos is list where read section is added.
+     * @return linearization dictionary or null if document is not linearized
+     * or its first page section doesn't contain the first page object.
+     */
+    public COSObject getFirstPageXRefInfo(List<COSXRefInfo> infos) throws IOException {
+        if (!isLinearized()) {
+            return null;
+        }
+        Long firstPage = this.linearizationDictionary.getIntegerKey(ASAtom.O);
+        if (firstPage == null || firstPage.longValue() <= 0 || firstPage.longValue() > Integer.MAX_VALUE) {
+            return null;
+        }
+        COSXRefInfo section = new COSXRefInfo();
+        try {
+            clear();
+            this.source.seek(this.linearizationDictionaryEnd);
+            skipSpaces();
+            section.setStartXRef(this.source.getOffset());
+            //we will skip eol marker in any case
+            this.source.seek(section.getStartXRef() - 1);
+            getXRefSectionAndTrailer(section, true);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can't read xref section of the first page of linearized document", e);
+            resetXRefInfo();
+            return null;
+        }
+        int number = firstPage.intValue();
+        if (!section.getXRefSection().getEntries().contains(number) ||
+                section.getXRefSection().getEntries().isFree(number)) {
+            resetXRefInfo();
+            return null;
+        }
+        infos.add(section);
+        return this.linearizationDictionary;
+    }
+
+    private void resetXRefInfo() {
+        this.isEncrypted = false;
+        this.encryption = null;
+        this.lastTrailerOffset = 0L;
+        this.trailerOffsets.clear();
+    }
+
     /**
      * check second line of pdf header
      */
@@ -218,11 +314,62 @@ public class PDFParser extends COSParser {
 
     public void getXRefInfo(List<COSXRefInfo> infos) throws IOException {
         calculatePostEOFDataSize();
-        this.getXRefInfo(infos, new HashSet<Long>(), Long.valueOf(0L));
+        this.getXRefInfo(infos, new HashSet<Long>(), Long.valueOf(0L), true);
+    }
+
+    /**
+     * Reads offsets and trailers of all xref sections of document without
+     * parsing their entries, that can be read later by
+     * {@link #getXRefSection(COSXRefInfo)}. Sections are added in the same
+     * order as by {@link #getXRefInfo(List)}: from the original document to
+     * its last incremental update, xref stream of hybrid-reference section
+     * goes right before xref table that refers to it.
+     *
+     * @param infos is list where xref sections are added.
+     */
+    public void getXRefTrailers(List<COSXRefInfo> infos) throws IOException {
+        calculatePostEOFDataSize();
+        // trailers can be read again after security handler of document is
+        // set, but strings in them are never encrypted
+        setDecryptStrings(Boolean.FALSE);
+        try {
+            this.getXRefInfo(infos, new HashSet<Long>(), Long.valueOf(0L), false);
+        } finally {
+            setDecryptStrings(null);
+        }
+    }
+
+    /**
+     * Reads entries of xref section which offset and trailer were read by
+     * {@link #getXRefTrailers(List)}.
+     *
+     * @param section is xref section to fill.
+     */
+    public void getXRefSection(final COSXRefInfo section) throws IOException {
+        initializeToken();
+        clear();
+        this.source.seek(section.getStartXRef() - 1);
+        nextToken();
+        if (getToken().type == Token.Type.TT_KEYWORD &&
+                getToken().keyword == Token.Keyword.KW_XREF) {
+            parseXrefTable(section.getXRefSection());
+        } else if (getToken().type == Token.Type.TT_INTEGER) {
+            // xref streams are not encrypted
+            setDecryptStrings(Boolean.FALSE);
+            try {
+                new XrefStreamParser(section, getXrefStream()).parseEntries();
+            } finally {
+                setDecryptStrings(null);
+            }
+        } else {
+            throw new IOException("PDFParser::GetXRefSection(...)" + StringExceptions.CAN_NOT_LOCATE_XREF_TABLE);
+        }
     }
 
     public COSObject getObject(final long offset) throws IOException {
         clear();
+        long references = this.indirectReferences;
+        this.lastObjectHasReferences = true;
 
         source.seek(offset);
 
@@ -324,11 +471,24 @@ public class PDFParser extends COSParser {
         obj.setIsHeaderFormatComplyPDFA(Boolean.valueOf(headerFormatComplyPDFA));
         obj.setIsEndOfObjectComplyPDFA(Boolean.valueOf(endOfObjectComplyPDFA));
 
+        this.lastObjectHasReferences = this.indirectReferences != references;
         return obj;
     }
 
+    /**
+     * Checks if object read by the last call of {@link #getObject(long)}
+     * contains indirect references. References are counted while object is
+     * parsed, so values skipped in lazy parsing mode are not loaded by this
+     * check.
+     *
+     * @return true if the last read object contains indirect references or
+     * if it is not read successfully.
+     */
+    public boolean hasIndirectReferences() {
+        return this.lastObjectHasReferences;
+    }
+
     private void clear() {
-        this.objects.clear();
         this.integers.clear();
         this.flag = true;
     }
@@ -409,7 +569,7 @@ public class PDFParser extends COSParser {
         document.setPostEOFDataSize(postEOFDataSize);
     }
 
-    private void getXRefSectionAndTrailer(final COSXRefInfo section) throws IOException {
+    private void getXRefSectionAndTrailer(final COSXRefInfo section, boolean entries) throws IOException {
         if (this.lastTrailerOffset == 0) {
             this.lastTrailerOffset = this.source.getOffset();
         }
@@ -420,10 +580,45 @@ public class PDFParser extends COSParser {
             throw new IOException("PDFParser::GetXRefSection(...)" + StringExceptions.CAN_NOT_LOCATE_XREF_TABLE);
         }
         if (this.getToken().type != Token.Type.TT_INTEGER) { // Parsing usual xref table
-            parseXrefTable(section.getXRefSection());
-            getTrailer(section.getTrailer());
-        } else {
+            if (entries) {
+                parseXrefTable(section.getXRefSection());
+            } else {
+                skipXrefTable();
+            }
+            getTrailer(section);
+        } else if (entries) {
             parseXrefStream(section);
+        } else {
+            new XrefStreamParser(section, getXrefStream()).parseTrailer();
+            checkEncryption(section.getTrailer());
+        }
+    }
+
+    // moves to the trailer of xref table skipping its entries as fixed width
+    // records, table that doesn't match fixed format is left at its start
+    // for the trailer to be searched by tokens
+    private void skipXrefTable() throws IOException {
+        long start = this.source.getOffset();
+        nextToken();
+        while (getToken().type == Token.Type.TT_INTEGER) {
+            nextToken();
+            if (getToken().type != Token.Type.TT_INTEGER || getToken().integer < 0) {
+                break;
+            }
+            long count = getToken().integer;
+            skipSpaces(false);
+            long end = this.source.getOffset() + count * XREF_ENTRY_LENGTH;
+            if (end > this.source.getStreamLength()) {
+                break;
+            }
+            this.source.seek(end);
+            nextToken();
+        }
+        if (getToken().type == Token.Type.TT_KEYWORD &&
+                getToken().keyword == Token.Keyword.KW_TRAILER) {
+            this.source.seekFromCurrentPosition(-7);
+        } else {
+            this.source.seek(start);
         }
     }
 
@@ -451,33 +646,110 @@ public class PDFParser extends COSParser {
             if (space != CharTable.ASCII_SPACE || !isDigit()) {
                 document.setSubsectionHeaderSpaceSeparated(false);
             }
-            int number = (int) getToken().integer;
+            long number = getToken().integer;
             nextToken();
-            int count = (int) getToken().integer;
-            COSXRefEntry xref;
-            for (int i = 0; i < count; ++i) {
-                xref = new COSXRefEntry();
-                nextToken();
-                xref.offset = getToken().integer;
-                nextToken();
-                xref.generation = (int) getToken().integer;
-                nextToken();
-                String value = getToken().getValue();
-                if (value.isEmpty()) {
-                    throw new IOException("Failed to parse xref table");
-                }
-                xref.free = value.charAt(0);
-                if (i == 0 && COSXRefEntry.FIRST_XREF_ENTRY.equals(xref) && number != 0) {
+            long count = getToken().integer;
+            if (number < 0 || count < 0 || number + count > Integer.MAX_VALUE) {
+                throw new IOException("Invalid xref subsection header " + number + " " + count);
+            }
+            parseXrefEntries(xrefs, (int) number, (int) count);
+            nextToken();
+        }
+        this.source.seekFromCurrentPosition(-7);
+    }
+
+    /**
+     * Reads entries of xref subsection. Entries are fixed 20 bytes records,
+     * so they are read by blocks and decoded without tokenizing. Starting
+     * from the first record that does not match the fixed format the rest
+     * of subsection is tokenized as usual.
+     *
+     * @param xrefs  is xref section to fill.
+     * @param number is number of the first object in subsection.
+     * @param count  is number of entries in subsection.
+     * @throws IOException - incorrect reading from file
+     */
+    private void parseXrefEntries(final COSXRefSection xrefs, int number, final int count) throws IOException {
+        skipSpaces(false);
+        byte[] block = new byte[Math.min(count, XREF_ENTRIES_IN_BLOCK) * XREF_ENTRY_LENGTH];
+        int i = 0;
+        while (i < count) {
+            long blockOffset = this.source.getOffset();
+            int entries = Math.min(count - i, XREF_ENTRIES_IN_BLOCK);
+            int length = Math.max(this.source.read(block, entries * XREF_ENTRY_LENGTH), 0);
+            int valid = 0;
+            while (valid < entries && (valid + 1) * XREF_ENTRY_LENGTH <= length
+                    && isXrefEntry(block, valid * XREF_ENTRY_LENGTH)) {
+                int pos = valid * XREF_ENTRY_LENGTH;
+                long offset = readDigits(block, pos, 10);
+                int generation = (int) readDigits(block, pos + 11, 5);
+                char free = (char) block[pos + 17];
+                if (i == 0 && offset == 0 && generation == 65535 && free == 'f' && number != 0) {
                     number = 0;
                     LOGGER.log(Level.WARNING, "Incorrect xref section");
                 }
-                xrefs.addEntry(number + i, xref);
-
-                checkXrefTableEntryLastBytes();
+                xrefs.add(number + i, generation, offset, free);
+                valid++;
+                i++;
             }
+            if (valid < entries) {
+                this.source.seek(blockOffset + valid * XREF_ENTRY_LENGTH);
+                break;
+            }
+        }
+        COSXRefEntry xref;
+        for (; i < count; ++i) {
+            xref = new COSXRefEntry();
+            nextToken();
+            xref.offset = getToken().integer;
             nextToken();
+            xref.generation = (int) getToken().integer;
+            nextToken();
+            Token token = getToken();
+            if (token.getSize() == 0) {
+                throw new IOException("Failed to parse xref table");
+            }
+            xref.free = (char) (token.getByte(0) & 0xFF);
+            if (i == 0 && COSXRefEntry.FIRST_XREF_ENTRY.equals(xref) && number != 0) {
+                number = 0;
+                LOGGER.log(Level.WARNING, "Incorrect xref section");
+            }
+            xrefs.addEntry(number + i, xref);
+
+            checkXrefTableEntryLastBytes();
         }
-        this.source.seekFromCurrentPosition(-7);
+    }
+
+    /**
+     * Checks that bytes starting from given position form xref table entry
+     * of the format nnnnnnnnnn ggggg n EOL, where EOL is CRLF, or Space and
+     * LF, or Space and CR.
+     */
+    private static boolean isXrefEntry(final byte[] data, final int pos) {
+        for (int i = 0; i < 10; ++i) {
+            if (!isDigit(data[pos + i])) {
+                return false;
+            }
+        }
+        for (int i = 11; i < 16; ++i) {
+            if (!isDigit(data[pos + i])) {
+                return false;
+            }
+        }
+        byte free = data[pos + 17];
+        byte first = data[pos + 18];
+        byte second = data[pos + 19];
+        return data[pos + 10] == CharTable.ASCII_SPACE && data[pos + 16] == CharTable.ASCII_SPACE
+                && (free == 'n' || free == 'f')
+                && (isCR(first) && isLF(second) || first == CharTable.ASCII_SPACE && (isLF(second) || isCR(second)));
+    }
+
+    private static long readDigits(final byte[] data, final int pos, final int length) {
+        long res = 0;
+        for (int i = pos; i < pos + length; ++i) {
+            res = res * 10 + (data[i] - '0');
+        }
+        return res;
     }
 
     /**
@@ -507,6 +779,12 @@ public class PDFParser extends COSParser {
     }
 
     private void parseXrefStream(final COSXRefInfo section) throws IOException {
+        XrefStreamParser xrefStreamParser = new XrefStreamParser(section, getXrefStream());
+        xrefStreamParser.parseStreamAndTrailer();
+        checkEncryption(section.getTrailer());
+    }
+
+    private COSStream getXrefStream() throws IOException {
         nextToken();
         if (this.getToken().type != Token.Type.TT_INTEGER) {
             throw new IOException("PDFParser::GetXRefSection(...)" + StringExceptions.CAN_NOT_LOCATE_XREF_TABLE);
@@ -520,15 +798,11 @@ public class PDFParser extends COSParser {
         if (!(xrefCOSStream.getType() == COSObjType.COS_STREAM)) {
             throw new IOException("PDFParser::GetXRefSection(...)" + StringExceptions.CAN_NOT_LOCATE_XREF_TABLE);
         }
-        XrefStreamParser xrefStreamParser = new XrefStreamParser(section, (COSStream) xrefCOSStream.getDirectBase());
-        xrefStreamParser.parseStreamAndTrailer();
-        if (section.getTrailer().knownKey(ASAtom.ENCRYPT)) {
-            this.isEncrypted = true;
-            this.encryption = section.getTrailer().getEncrypt();
-        }
+        return (COSStream) xrefCOSStream.getDirectBase();
     }
 
-	private void getXRefInfo(final List<COSXRefInfo> info, Set<Long> processedOffsets, Long offset) throws IOException {
+	private void getXRefInfo(final List<COSXRefInfo> info, Set<Long> processedOffsets, Long offset,
+							 boolean entries) throws IOException {
         if (offset.longValue() == 0) {
 			offset = findLastXRef();
 			if (offset.longValue() == 0) {
@@ -555,36 +829,277 @@ public class PDFParser extends COSParser {
 		info.add(0, section);
 
 		section.setStartXRef(offset.longValue());
-        getXRefSectionAndTrailer(section);
+        getXRefSectionAndTrailer(section, entries);
 
         COSTrailer trailer = section.getTrailer();
 
         offset = trailer.getXRefStm();
         if (offset != null && offset.longValue() != 0) {
-            getXRefInfo(info, processedOffsets, offset);
+            getXRefInfo(info, processedOffsets, offset, entries);
         }
 
         offset = trailer.getPrev();
 		if (offset != null && offset.longValue() != 0) {
-            getXRefInfo(info, processedOffsets, offset);
+            getXRefInfo(info, processedOffsets, offset, entries);
 		}
 	}
 
-	private void getTrailer(final COSTrailer trailer) throws IOException {
+	private void getTrailer(final COSXRefInfo section) throws IOException {
 		if (findKeyword(Token.Keyword.KW_TRAILER)) {
-			COSObject obj = nextObject();
-			if (obj.empty() || obj.getType() != COSObjType.COS_DICT) {
-				throw new IOException("Trailer is empty or has invalid type");
-			}
-			trailer.setObject(obj);
+			long offset = this.source.getOffset();
+			getTrailerDictionary(section.getTrailer(), offset);
+			this.trailerOffsets.put(Long.valueOf(section.getStartXRef()), Long.valueOf(offset));
+		}
+		checkEncryption(section.getTrailer());
+	}
+
+	private void getTrailerDictionary(final COSTrailer trailer, long offset) throws IOException {
+		this.source.seek(offset);
+		COSObject obj = nextObject();
+		if (obj.empty() || obj.getType() != COSObjType.COS_DICT) {
+			throw new IOException("Trailer is empty or has invalid type");
 		}
+		trailer.setObject(obj);
+	}
 
+	private void checkEncryption(final COSTrailer trailer) {
 		if (trailer.knownKey(ASAtom.ENCRYPT)) {
-		    this.isEncrypted = true;
-            this.encryption = trailer.getEncrypt();
+			this.isEncrypted = true;
+			this.encryption = trailer.getEncrypt();
+		}
+	}
+
+	/**
+	 * Reads trailers of xref sections that were read before, without parsing
+	 * xref sections themselves.
+	 *
+	 * @param infos              is list of xref sections with known offsets,
+	 *                           in the order they are returned by
+	 *                           {@link #getXRefInfo(List)}.
+	 * @param trailerOffsets     maps offsets of xref tables to offsets of
+	 *                           their trailer dictionaries. Sections missing
+	 *                           in this map are xref streams.
+	 * @param lastTrailerOffset  is offset of the last trailer.
+	 */
+	public void getTrailers(List<COSXRefInfo> infos, Map<Long, Long> trailerOffsets,
+							long lastTrailerOffset) throws IOException {
+		initializeToken();
+		this.isEncrypted = false;
+		this.encryption = null;
+		// sections are read from the last one to find the same encryption as getXRefInfo
+		for (int i = infos.size() - 1; i >= 0; --i) {
+			COSXRefInfo section = infos.get(i);
+			clear();
+			Long trailerOffset = trailerOffsets.get(Long.valueOf(section.getStartXRef()));
+			if (trailerOffset != null) {
+				getTrailerDictionary(section.getTrailer(), trailerOffset.longValue());
+				this.trailerOffsets.put(Long.valueOf(section.getStartXRef()), trailerOffset);
+			} else {
+				this.source.seek(section.getStartXRef() - 1);
+				nextToken();
+				new XrefStreamParser(section, getXrefStream()).parseTrailer();
+			}
+			checkEncryption(section.getTrailer());
 		}
+		this.lastTrailerOffset = Long.valueOf(lastTrailerOffset);
 	}
 
+	/**
+	 * @return offset of trailer dictionary of xref table with given offset or
+	 * null if it is unknown, e.g. for xref stream.
+	 */
+	public Long getTrailerOffset(long startXRef) {
+		return this.trailerOffsets.get(Long.valueOf(startXRef));
+	}
+
+    /**
+     * Rebuilds xref information of document with missing or broken xref from
+     * object headers and trailers found by scanning the whole document file.
+     * If object is defined several times, the definition that is closer to
+     * the end of file is used. Objects in object streams are recovered only
+     * for documents that are not encrypted.
+     *
+     * @param infos is list where recovered xref section is added.
+     */
+    public void recoverXRefInfo(List<COSXRefInfo> infos) throws IOException {
+        XRefScanner scanner = new XRefScanner(this.source);
+        scanner.scan();
+        if (scanner.getObjectsNumber() == 0) {
+            throw new IOException("PDFParser::RecoverXRefInfo(...) no objects found in document");
+        }
+        this.isEncrypted = false;
+        this.encryption = null;
+        this.lastTrailerOffset = 0L;
+
+        COSXRefInfo section = new COSXRefInfo();
+        section.setTrailer(recoverTrailer(scanner));
+        COSTrailer trailer = section.getTrailer();
+        if (trailer.knownKey(ASAtom.ENCRYPT)) {
+            this.isEncrypted = true;
+            this.encryption = trailer.getEncrypt();
+        }
+
+        List<DecodedObjectStreamParser> objectStreams = new ArrayList<>();
+        List<Integer> objectStreamIndexes = new ArrayList<>();
+        try {
+            if (!this.isEncrypted) {
+                recoverObjectStreams(scanner, objectStreams, objectStreamIndexes);
+            }
+            COSXRefSection xrefs = section.getXRefSection();
+            int maxNumber = 0;
+            int stream = 0;
+            for (int i = 0; i < scanner.getObjectsNumber(); ++i) {
+                // objects of object stream are defined at its offset
+                for (; stream < objectStreams.size() && objectStreamIndexes.get(stream).intValue() < i; ++stream) {
+                    maxNumber = Math.max(maxNumber, addObjectStreamEntries(xrefs, objectStreams.get(stream),
+                            scanner.getObjectNumber(objectStreamIndexes.get(stream).intValue())));
+                }
+                xrefs.add(new COSKey(scanner.getObjectNumber(i), scanner.getObjectGeneration(i)),
+                        scanner.getObjectOffset(i) - this.offsetShift);
+                maxNumber = Math.max(maxNumber, scanner.getObjectNumber(i));
+            }
+            for (; stream < objectStreams.size(); ++stream) {
+                maxNumber = Math.max(maxNumber, addObjectStreamEntries(xrefs, objectStreams.get(stream),
+                        scanner.getObjectNumber(objectStreamIndexes.get(stream).intValue())));
+            }
+            trailer.setSize(Long.valueOf(maxNumber + 1L));
+            if (!trailer.knownKey(ASAtom.ROOT)) {
+                recoverRoot(scanner, trailer, objectStreams);
+            }
+        } finally {
+            for (DecodedObjectStreamParser parser : objectStreams) {
+                parser.closeInputStream();
+            }
+        }
+        if (!trailer.knownKey(ASAtom.ROOT)) {
+            throw new IOException("PDFParser::RecoverXRefInfo(...) document catalog is not found");
+        }
+        infos.add(section);
+    }
+
+    /**
+     * Merges classic trailers and dictionaries of xref streams in file order.
+     */
+    private COSObject recoverTrailer(XRefScanner scanner) {
+        COSObject trailer = COSDictionary.construct();
+        List<Long> trailers = scanner.getTrailerOffsets();
+        List<Integer> xrefStreams = scanner.getNamedObjects(XRefScanner.XREF_STREAM);
+        int trailerIndex = 0;
+        int xrefStreamIndex = 0;
+        while (trailerIndex < trailers.size() || xrefStreamIndex < xrefStreams.size()) {
+            if (xrefStreamIndex == xrefStreams.size() || (trailerIndex < trailers.size() &&
+                    trailers.get(trailerIndex).longValue() <
+                            scanner.getObjectOffset(xrefStreams.get(xrefStreamIndex).intValue()))) {
+                long offset = trailers.get(trailerIndex++).longValue();
+                COSObject dict = parseRecoveredTrailer(offset);
+                if (dict.getType() == COSObjType.COS_DICT) {
+                    mergeTrailer(trailer, dict);
+                    this.lastTrailerOffset = Long.valueOf(offset);
+                }
+            } else {
+                COSObject stream = parseRecoveredObject(
+                        scanner.getObjectOffset(xrefStreams.get(xrefStreamIndex++).intValue()));
+                if (stream.getType() == COSObjType.COS_STREAM && stream.getNameKey(ASAtom.TYPE) == ASAtom.XREF) {
+                    mergeTrailer(trailer, stream);
+                }
+            }
+        }
+        return trailer;
+    }
+
+    private static void mergeTrailer(COSObject trailer, COSObject dict) {
+        for (ASAtom key : RECOVERED_TRAILER_KEYS) {
+            if (dict.knownKey(key).booleanValue()) {
+                trailer.setKey(key, dict.getKey(key));
+            }
+        }
+    }
+
+    private COSObject parseRecoveredTrailer(long offset) {
+        try {
+            clear();
+            this.source.seek(offset);
+            nextToken();
+            return nextObject();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can't parse trailer at offset " + offset, e);
+            return new COSObject();
+        }
+    }
+
+    private COSObject parseRecoveredObject(long offset) {
+        try {
+            return getObject(offset);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can't parse object at offset " + offset, e);
+            return new COSObject();
+        }
+    }
+
+    private void recoverObjectStreams(XRefScanner scanner, List<DecodedObjectStreamParser> objectStreams,
+                                      List<Integer> objectStreamIndexes) {
+        for (Integer index : scanner.getNamedObjects(XRefScanner.OBJECT_STREAM)) {
+            COSObject object = parseRecoveredObject(scanner.getObjectOffset(index.intValue()));
+            if (object.getType() != COSObjType.COS_STREAM || object.getNameKey(ASAtom.TYPE) != ASAtom.OBJ_STM) {
+                continue;
+            }
+            COSStream stream = (COSStream) object.getDirectBase();
+            COSKey key = new COSKey(scanner.getObjectNumber(index.intValue()), 0);
+            try {
+                objectStreams.add(new DecodedObjectStreamParser(stream.getData(COSStream.FilterFlags.DECODE),
+                        stream, key, this.document));
+                objectStreamIndexes.add(index);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Can't read object stream " + key.getNumber() + " " + key.getGeneration(), e);
+            }
+        }
+    }
+
+    private static int addObjectStreamEntries(COSXRefSection xrefs, DecodedObjectStreamParser objectStream,
+                                              int streamNumber) {
+        int maxNumber = streamNumber;
+        for (COSKey key : objectStream.getInternalObjectsKeys()) {
+            if (key.getNumber() != streamNumber) {
+                xrefs.add(key, -streamNumber);
+                maxNumber = Math.max(maxNumber, key.getNumber());
+            }
+        }
+        return maxNumber;
+    }
+
+    /**
+     * Looks for the last document catalog, if it is not referenced from any
+     * of the found trailers.
+     */
+    private void recoverRoot(XRefScanner scanner, COSTrailer trailer,
+                             List<DecodedObjectStreamParser> objectStreams) {
+        List<Integer> catalogs = scanner.getNamedObjects(XRefScanner.CATALOG);
+        for (int i = catalogs.size() - 1; i >= 0; --i) {
+            int index = catalogs.get(i).intValue();
+            COSObject object = parseRecoveredObject(scanner.getObjectOffset(index));
+            if (object.getType() == COSObjType.COS_DICT && object.getNameKey(ASAtom.TYPE) == ASAtom.CATALOG) {
+                trailer.setRoot(COSIndirect.construct(new COSKey(scanner.getObjectNumber(index),
+                        scanner.getObjectGeneration(index)), this.document));
+                return;
+            }
+        }
+        // data of object streams is compressed, so their objects are not found by scanning
+        for (int i = objectStreams.size() - 1; i >= 0; --i) {
+            DecodedObjectStreamParser objectStream = objectStreams.get(i);
+            for (COSKey key : objectStream.getInternalObjectsKeys()) {
+                try {
+                    COSObject object = objectStream.getObject(key);
+                    if (object.getType() == COSObjType.COS_DICT && object.getNameKey(ASAtom.TYPE) == ASAtom.CATALOG) {
+                        trailer.setRoot(COSIndirect.construct(key, this.document));
+                        return;
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Can't parse object " + key.getNumber() + " " + key.getGeneration(), e);
+                }
+            }
+        }
+    }
+
     public boolean isEncrypted() {
         return isEncrypted;
     }
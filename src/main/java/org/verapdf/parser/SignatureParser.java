@@ -283,7 +283,7 @@ public class SignatureParser extends COSParser {
 
     private void skipID() throws IOException {
         nextObject();
-        this.objects.clear();
+        this.integers.clearFlushed();
         this.flag = true;
     }
 
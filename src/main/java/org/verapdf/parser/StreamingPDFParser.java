@@ -0,0 +1,630 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.CharTable;
+import org.verapdf.as.filters.io.ASBufferedInFilter;
+import org.verapdf.as.io.ASBufferPool;
+import org.verapdf.as.io.ASGrowableBuffer;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObjType;
+import org.verapdf.cos.COSObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Forward-only parser of PDF documents. Unlike {@link PDFParser} it never
+ * seeks in the source, so documents can be read from pipes and standard input
+ * without copying them to temporary file first.
+ * <p>
+ * Source is scanned once from the beginning: every {@code N G obj ... endobj}
+ * is parsed as soon as it is reached and passed to {@link IObjectHandler}
+ * together with its offset. Offsets of all objects and trailers met are
+ * recorded, but only objects that handler asked to retain are kept in memory.
+ * <p>
+ * Stream with direct {@code /Length} is read by its length if it is followed
+ * by {@code endstream} keyword. Otherwise stream data ends at the first
+ * {@code endstream} keyword, as the value of indirect {@code /Length} may
+ * only become known later in the file. Stream data and strings are not
+ * decrypted.
+ */
+public class StreamingPDFParser extends NotSeekableCOSParser {
+
+    private static final Logger LOGGER = Logger.getLogger(
+            StreamingPDFParser.class.getCanonicalName());
+
+    private static final byte[] ENDSTREAM = "endstream".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int MAX_INITIAL_STREAM_CAPACITY = 1 << 20;
+    private static final int STREAM_CHUNK_SIZE = 8192;
+    // bytes read last can be unread in buffered source up to half of its buffer
+    private static final int MAX_UNREAD_SIZE = ASBufferedInFilter.BF_BUFFER_SIZE / 2;
+
+    private final Map<COSKey, Long> offsets = new HashMap<>();
+    private final Map<COSKey, COSObject> retained = new HashMap<>();
+    private final List<Long> trailerOffsets = new ArrayList<>();
+    private long position = 0;
+    private long tokenOffset = 0;
+
+    /**
+     * Handler of objects that are read by streaming parser.
+     */
+    public interface IObjectHandler {
+
+        /**
+         * Called for each indirect object as soon as it is parsed.
+         *
+         * @param key is key of object.
+         * @param offset is offset of object header in the source.
+         * @param object is parsed object.
+         * @return true if parser should retain object after this call.
+         */
+        boolean object(COSKey key, long offset, COSObject object) throws IOException;
+
+        /**
+         * Called for each trailer dictionary as soon as it is parsed.
+         *
+         * @param offset is offset of trailer keyword in the source.
+         * @param trailer is parsed trailer dictionary.
+         */
+        void trailer(long offset, COSObject trailer) throws IOException;
+    }
+
+    /**
+     * Constructor from stream.
+     *
+     * @param stream is source of PDF data, it is read only forward.
+     */
+    public StreamingPDFParser(ASInputStream stream) throws IOException {
+        super(stream);
+    }
+
+    /**
+     * Constructor from stream. Indirect references in parsed objects are bound
+     * to given document.
+     *
+     * @param stream is source of PDF data, it is read only forward.
+     * @param document is document to bind indirect references to.
+     */
+    public StreamingPDFParser(ASInputStream stream, COSDocument document) throws IOException {
+        super(stream, document);
+    }
+
+    /**
+     * Constructor from arbitrary input stream, e. g. standard input or pipe.
+     *
+     * @param stream is source of PDF data, it is read only forward.
+     */
+    public StreamingPDFParser(InputStream stream) throws IOException {
+        super(new InputStreamSource(stream));
+    }
+
+    /**
+     * Reads the whole source passing objects and trailers to handler.
+     *
+     * @param handler is handler of parsed objects.
+     */
+    public void parse(IObjectHandler handler) throws IOException {
+        initializeToken();
+        long number = 0;
+        long numberOffset = 0;
+        long generation = 0;
+        long generationOffset = 0;
+        int integersCount = 0;
+
+        long offset;
+        boolean tokenRead = false;
+        while (true) {
+            if (!tokenRead) {
+                nextTokenWithOffset();
+            }
+            offset = this.tokenOffset;
+            tokenRead = false;
+            Token token = getToken();
+            if (token.type == Token.Type.TT_EOF) {
+                break;
+            }
+            if (token.type == Token.Type.TT_INTEGER) {
+                if (integersCount == 2) {
+                    number = generation;
+                    numberOffset = generationOffset;
+                } else {
+                    integersCount++;
+                }
+                if (integersCount == 1) {
+                    number = token.integer;
+                    numberOffset = offset;
+                } else {
+                    generation = token.integer;
+                    generationOffset = offset;
+                }
+                continue;
+            }
+            if (token.type == Token.Type.TT_KEYWORD && token.keyword == Token.Keyword.KW_OBJ
+                    && integersCount == 2) {
+                COSKey key = new COSKey((int) number, (int) generation);
+                if (!readObject(key, numberOffset, handler)) {
+                    LOGGER.log(Level.WARNING, "Missing endobj keyword after object " + key);
+                    tokenRead = true;
+                }
+            } else if (token.type == Token.Type.TT_KEYWORD && token.keyword == Token.Keyword.KW_TRAILER) {
+                this.trailerOffsets.add(offset);
+                COSObject trailer = getDictionary();
+                if (trailer.getType() == COSObjType.COS_DICT) {
+                    handler.trailer(offset, trailer);
+                } else {
+                    LOGGER.log(Level.WARNING, "Trailer at offset " + offset + " is not a dictionary");
+                }
+            }
+            integersCount = 0;
+        }
+    }
+
+    /**
+     * @return offsets of all objects met in the source. Object redefined in
+     * incremental update has offset of its latest definition.
+     */
+    public Map<COSKey, Long> getOffsets() {
+        return Collections.unmodifiableMap(this.offsets);
+    }
+
+    /**
+     * @return objects that handler asked to retain. Object is dropped if its
+     * latest definition was not retained.
+     */
+    public Map<COSKey, COSObject> getRetainedObjects() {
+        return Collections.unmodifiableMap(this.retained);
+    }
+
+    /**
+     * @return offsets of all trailer keywords met in the source.
+     */
+    public List<Long> getTrailerOffsets() {
+        return Collections.unmodifiableList(this.trailerOffsets);
+    }
+
+    /**
+     * Reads object body after obj keyword.
+     *
+     * @return false if object is not terminated with endobj keyword. Token
+     * after object is current token in this case.
+     */
+    private boolean readObject(COSKey key, long offset, IObjectHandler handler) throws IOException {
+        this.keyOfCurrentObject = key;
+        this.integers.clear();
+        this.flag = true;
+        COSObject object = nextObject();
+        if (this.flag) {
+            nextTokenWithOffset();
+        } else {
+            // token after integer object is already read by lookahead
+            this.tokenOffset = getOffset();
+        }
+        this.flag = true;
+        this.integers.clear();
+
+        Token token = getToken();
+        if (token.type == Token.Type.TT_KEYWORD && token.keyword == Token.Keyword.KW_STREAM) {
+            readStreamData(object);
+            nextTokenWithOffset();
+        }
+
+        this.offsets.put(key, offset);
+        if (handler.object(key, offset, object)) {
+            this.retained.put(key, object);
+        } else {
+            this.retained.remove(key);
+        }
+        return token.type == Token.Type.TT_KEYWORD && token.keyword == Token.Keyword.KW_ENDOBJ;
+    }
+
+    private void readStreamData(COSObject stream) throws IOException {
+        if (stream.getType() != COSObjType.COS_DICT) {
+            LOGGER.log(Level.WARNING, "Stream dictionary of object " + this.keyOfCurrentObject + " is missing");
+        }
+        checkStreamSpacings(stream);
+
+        Long length = getDirectLength(stream);
+        if (length != null && length > Integer.MAX_VALUE - ENDSTREAM.length - 2) {
+            length = null;
+        }
+        ASGrowableBuffer data = length == null ? new ASGrowableBuffer() : new ASGrowableBuffer(
+                (int) Math.min(length + ENDSTREAM.length + 2, MAX_INITIAL_STREAM_CAPACITY));
+        int size = -1;
+        byte[] chunk = ASBufferPool.acquire(STREAM_CHUNK_SIZE);
+        try {
+            if (length != null && read(data, chunk, length.intValue()) == length.intValue()) {
+                int endstreamLength = getEndstreamLength();
+                if (endstreamLength > 0) {
+                    read(data, chunk, endstreamLength);
+                    size = data.size();
+                }
+            }
+            if (size < 0) {
+                // length is missing or wrong, so stream data ends at the
+                // first endstream keyword
+                size = findEndstream(data, chunk);
+            }
+        } finally {
+            ASBufferPool.release(chunk);
+        }
+        if (size < 0) {
+            throw new IOException("End of stream is not found in object " + this.keyOfCurrentObject);
+        }
+
+        int approximateLength = size - ENDSTREAM.length;
+        int eolCount = 0;
+        int lastSymbol = approximateLength > 0 ? data.get(approximateLength - 1) : -1;
+        if (isLF(lastSymbol)) {
+            boolean crlf = approximateLength > 1 && isCR(data.get(approximateLength - 2));
+            long diff = approximateLength - (length == null ? 0 : length);
+            eolCount = crlf && diff > 1 ? 2 : 1;
+        } else if (isCR(lastSymbol)) {
+            eolCount = 1;
+        } else {
+            LOGGER.log(Level.FINE, "End of stream in object " + this.keyOfCurrentObject
+                    + " doesn't contain EOL marker.");
+            stream.setEndstreamKeywordCRLFCompliant(false);
+        }
+
+        int dataLength = approximateLength;
+        if (isLF(lastSymbol)) {
+            dataLength--;
+            if (dataLength > 0 && isCR(data.get(dataLength - 1))) {
+                dataLength--;
+            }
+        } else if (isCR(lastSymbol)) {
+            dataLength--;
+        }
+        if (length != null && length < approximateLength && isSpaceOnly(data, length.intValue(), approximateLength)) {
+            dataLength = length.intValue();
+        }
+        stream.setData(new ASMemoryInStream(data.getArray(), dataLength, false));
+        stream.setRealStreamSize(approximateLength - eolCount);
+    }
+
+    /**
+     * Reads given amount of bytes from the source into data.
+     *
+     * @return amount of actually read bytes, that is less than given one
+     * only at the end of source.
+     */
+    private int read(ASGrowableBuffer data, byte[] chunk, int size) throws IOException {
+        int total = 0;
+        while (total < size) {
+            int read = this.source.readBuffered(chunk, 0, Math.min(size - total, chunk.length));
+            if (read <= 0) {
+                break;
+            }
+            data.append(chunk, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Checks if the next bytes of the source are optional EOL and endstream
+     * keyword followed by delimiter.
+     *
+     * @return amount of these bytes or 0 if stream data doesn't end here.
+     */
+    private int getEndstreamLength() throws IOException {
+        int start = 0;
+        if (isCR(this.source.peek(start))) {
+            start++;
+        }
+        if (isLF(this.source.peek(start))) {
+            start++;
+        }
+        for (int i = 0; i < ENDSTREAM.length; ++i) {
+            if (this.source.peek(start + i) != ENDSTREAM[i]) {
+                return 0;
+            }
+        }
+        int end = start + ENDSTREAM.length;
+        return CharTable.isTokenDelimiter(this.source.peek(end) & 0xFF) ? end : 0;
+    }
+
+    /**
+     * Finds the first endstream keyword followed by delimiter or by the end of
+     * source in data read so far and in the rest of the source. Bytes after
+     * the keyword are returned to the source.
+     *
+     * @return size of data up to the end of keyword or -1 if there is no such
+     * keyword.
+     */
+    private int findEndstream(ASGrowableBuffer data, byte[] chunk) throws IOException {
+        int from = 0;
+        while (true) {
+            byte[] array = data.getArray();
+            int size = data.size();
+            for (int i = from; i <= size - ENDSTREAM.length; ++i) {
+                if (array[i] != ENDSTREAM[0] || !isEndstreamAt(array, i)) {
+                    continue;
+                }
+                int end = i + ENDSTREAM.length;
+                if (end < size) {
+                    if (CharTable.isTokenDelimiter(array[end] & 0xFF)) {
+                        unread(array, end, size - end);
+                        return end;
+                    }
+                } else if (this.source.isEOF() || CharTable.isTokenDelimiter(this.source.peek() & 0xFF)) {
+                    return end;
+                }
+            }
+            // keyword can start in the last bytes of data. Data is scanned by
+            // portions that can be unread after the keyword is found
+            from = Math.max(from, size - ENDSTREAM.length + 1);
+            if (read(data, chunk, MAX_UNREAD_SIZE) <= 0) {
+                return -1;
+            }
+        }
+    }
+
+    private static boolean isEndstreamAt(byte[] array, int start) {
+        for (int i = 1; i < ENDSTREAM.length; ++i) {
+            if (array[start + i] != ENDSTREAM[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns bytes that were read after the end of stream data to the source.
+     * Bytes read from the current chunk of buffered source are unread in it,
+     * otherwise, e.g. if wrong length pointed beyond stream data, the source
+     * is replaced with the one that reads returned bytes first.
+     */
+    private void unread(byte[] array, int offset, int length) throws IOException {
+        if (length <= 0) {
+            return;
+        }
+        if (length <= MAX_UNREAD_SIZE) {
+            this.source.unread(length);
+            return;
+        }
+        long offsetOfRest = getOffset() - length;
+        ASBufferedInFilter source = new ASBufferedInFilter(new PrependedSource(
+                Arrays.copyOfRange(array, offset, offset + length), this.source));
+        try {
+            source.initialize();
+        } catch (IOException e) {
+            source.close();
+            throw e;
+        }
+        this.source = source;
+        this.position = offsetOfRest;
+    }
+
+    private void checkStreamSpacings(COSObject stream) throws IOException {
+        if (this.source.isEOF()) {
+            return;
+        }
+        byte whiteSpace = this.source.readByte();
+        if (isCR(whiteSpace)) {
+            if (this.source.isEOF() || !isLF(this.source.peek())) {
+                stream.setStreamKeywordCRLFCompliant(false);
+            } else {
+                this.source.readByte();
+            }
+        } else if (!isLF(whiteSpace)) {
+            LOGGER.log(Level.WARNING, "Stream in object " + this.keyOfCurrentObject + " has no EOL marker.");
+            stream.setStreamKeywordCRLFCompliant(false);
+            this.source.unread();
+        }
+    }
+
+    private Long getDirectLength(COSObject stream) {
+        COSObject length = stream.getKey(ASAtom.LENGTH);
+        if (length == null || Boolean.TRUE.equals(length.isIndirect())
+                || length.getType() != COSObjType.COS_INTEGER) {
+            return null;
+        }
+        Long res = length.getInteger();
+        return res != null && res >= 0 ? res : null;
+    }
+
+    private static boolean isSpaceOnly(ASGrowableBuffer data, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (!CharTable.isSpace(data.get(i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void nextTokenWithOffset() throws IOException {
+        skipSpaces(true);
+        this.tokenOffset = getOffset();
+        nextToken();
+    }
+
+    /**
+     * Gets offset of the next byte in the source. Read counter of buffered
+     * source is moved to long offset here, so offsets are not limited by
+     * integer range.
+     */
+    private long getOffset() {
+        this.position += this.source.getReadCounter();
+        this.source.resetReadCounter();
+        return this.position;
+    }
+
+    /**
+     * Source that reads given bytes and then the rest of buffered source.
+     */
+    private static class PrependedSource extends ASInputStream {
+
+        private final byte[] head;
+        private int headPosition = 0;
+        private final ASBufferedInFilter rest;
+
+        PrependedSource(byte[] head, ASBufferedInFilter rest) {
+            this.head = head;
+            this.rest = rest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.headPosition < this.head.length) {
+                return this.head[this.headPosition++] & 0xFF;
+            }
+            return this.rest.isEOF() ? -1 : this.rest.readByte() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int size) throws IOException {
+            return read(buffer, 0, size);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int size) throws IOException {
+            int total = Math.min(size, this.head.length - this.headPosition);
+            System.arraycopy(this.head, this.headPosition, buffer, offset, total);
+            this.headPosition += total;
+            if (total < size) {
+                int read = this.rest.readBuffered(buffer, offset + total, size - total);
+                if (read > 0) {
+                    total += read;
+                }
+            }
+            return total == 0 && size > 0 ? -1 : total;
+        }
+
+        @Override
+        public int skip(int size) throws IOException {
+            int skipped = 0;
+            while (skipped < size && read() != -1) {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("Reset is not supported for forward-only stream");
+        }
+
+        @Override
+        public void closeResource() throws IOException {
+            if (!this.isSourceClosed) {
+                this.isSourceClosed = true;
+                this.rest.close();
+            }
+        }
+
+        @Override
+        public void incrementResourceUsers() {
+            this.resourceUsers.increment();
+        }
+
+        @Override
+        public void decrementResourceUsers() {
+            this.resourceUsers.decrement();
+        }
+    }
+
+    /**
+     * Adapter of arbitrary input stream. Reads are repeated until requested
+     * amount of bytes is got, as buffered source treats short read as end of
+     * data, while pipes may return less bytes than available.
+     */
+    private static class InputStreamSource extends ASInputStream {
+
+        private final InputStream stream;
+
+        InputStreamSource(InputStream stream) throws IOException {
+            if (stream == null) {
+                throw new IOException("Stream in StreamingPDFParser can't be null.");
+            }
+            this.stream = stream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.stream.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int size) throws IOException {
+            return read(buffer, 0, size);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int size) throws IOException {
+            int total = 0;
+            while (total < size) {
+                int read = this.stream.read(buffer, offset + total, size - total);
+                if (read == -1) {
+                    break;
+                }
+                total += read;
+            }
+            return total == 0 && size > 0 ? -1 : total;
+        }
+
+        @Override
+        public int skip(int size) throws IOException {
+            int skipped = 0;
+            while (skipped < size && read() != -1) {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("Reset is not supported for forward-only stream");
+        }
+
+        @Override
+        public void closeResource() throws IOException {
+            if (!this.isSourceClosed) {
+                this.isSourceClosed = true;
+                this.stream.close();
+            }
+        }
+
+        @Override
+        public void incrementResourceUsers() {
+            this.resourceUsers.increment();
+        }
+
+        @Override
+        public void decrementResourceUsers() {
+            this.resourceUsers.decrement();
+        }
+    }
+}
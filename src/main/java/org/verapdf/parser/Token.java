@@ -20,8 +20,8 @@
  */
 package org.verapdf.parser;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,7 +36,10 @@ public class Token {
 	public long integer;
 	public double real;
 
-	private ByteArrayOutputStream token = new ByteArrayOutputStream();
+	private static final int INITIAL_TOKEN_SIZE = 64;
+
+	private byte[] token = new byte[INITIAL_TOKEN_SIZE];
+	private int size = 0;
 
 	//fields specific for pdf/a validation of strings
 	private boolean containsOnlyHex = true;
@@ -44,27 +47,79 @@ public class Token {
 
 	public void toKeyword() {
 		this.type = Type.TT_KEYWORD;
-		this.keyword = getKeyword(getValue());
+		this.keyword = getKeyword(this.token, this.size);
 	}
 
 	public void append(int c) {
-		this.token.write(c);
+		if (this.size == this.token.length) {
+			this.token = Arrays.copyOf(this.token, this.size * 2);
+		}
+		this.token[this.size++] = (byte) c;
+	}
+
+	/**
+	 * Appends part of given array to token value.
+	 *
+	 * @param bytes  is array with data.
+	 * @param offset is offset of data in array.
+	 * @param length is amount of bytes to append.
+	 */
+	public void append(byte[] bytes, int offset, int length) {
+		if (this.size + length > this.token.length) {
+			this.token = Arrays.copyOf(this.token, Math.max(this.token.length * 2, this.size + length));
+		}
+		System.arraycopy(bytes, offset, this.token, this.size, length);
+		this.size += length;
 	}
 
 	public String getValue() {
-		return new String(getByteValue(), StandardCharsets.ISO_8859_1);
+		return new String(this.token, 0, this.size, StandardCharsets.ISO_8859_1);
 	}
 
 	public byte[] getByteValue() {
-		return this.token.toByteArray();
+		return Arrays.copyOf(this.token, this.size);
+	}
+
+	/**
+	 * Gets internal array with token value. Only first {@link #getSize()}
+	 * bytes of it belong to value, and the array is reused for next tokens,
+	 * so it shall not be stored.
+	 *
+	 * @return internal array with token value.
+	 */
+	public byte[] getBuffer() {
+		return this.token;
+	}
+
+	/**
+	 * Gets byte of token value at given index.
+	 *
+	 * @param index is index of byte in token value.
+	 * @return byte of token value.
+	 */
+	public byte getByte(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of token of size " + this.size);
+		}
+		return this.token[index];
+	}
+
+	/**
+	 * Checks if token value is equal to given bytes.
+	 *
+	 * @param value is bytes to compare token value with.
+	 * @return true if token value is equal to given bytes.
+	 */
+	public boolean valueEquals(byte[] value) {
+		return valueEquals(this.token, this.size, value);
 	}
 
 	public void clearValue() {
-		this.token.reset();
+		this.size = 0;
 	}
 
 	public int getSize() {
-		return token.size();
+		return this.size;
 	}
 
 	public enum Type {
@@ -120,10 +175,96 @@ public class Token {
 		KEYWORDS.put(null, Keyword.KW_NONE);
 	}
 
+	private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+	private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+	private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+	private static final byte[] STREAM = {'s', 't', 'r', 'e', 'a', 'm'};
+	private static final byte[] ENDSTREAM = {'e', 'n', 'd', 's', 't', 'r', 'e', 'a', 'm'};
+	private static final byte[] OBJ = {'o', 'b', 'j'};
+	private static final byte[] ENDOBJ = {'e', 'n', 'd', 'o', 'b', 'j'};
+	private static final byte[] XREF = {'x', 'r', 'e', 'f'};
+	private static final byte[] STARTXREF = {'s', 't', 'a', 'r', 't', 'x', 'r', 'e', 'f'};
+	private static final byte[] TRAILER = {'t', 'r', 'a', 'i', 'l', 'e', 'r'};
+
 	public static Keyword getKeyword(final String keyword) {
 		return KEYWORDS.get(keyword);
 	}
 
+	/**
+	 * Gets keyword represented by given bytes without creating String.
+	 *
+	 * @param value  is array with keyword.
+	 * @param length is length of keyword in array.
+	 * @return keyword or null if bytes don't represent keyword.
+	 */
+	public static Keyword getKeyword(final byte[] value, final int length) {
+		if (length == 0) {
+			return null;
+		}
+		switch (length) {
+			case 1:
+				switch (value[0]) {
+					case 'R':
+						return Keyword.KW_R;
+					case 'n':
+						return Keyword.KW_N;
+					case 'f':
+						return Keyword.KW_F;
+					default:
+						return null;
+				}
+			case 3:
+				return valueEquals(value, length, OBJ) ? Keyword.KW_OBJ : null;
+			case 4:
+				switch (value[0]) {
+					case 'n':
+						return valueEquals(value, length, NULL) ? Keyword.KW_NULL : null;
+					case 't':
+						return valueEquals(value, length, TRUE) ? Keyword.KW_TRUE : null;
+					case 'x':
+						return valueEquals(value, length, XREF) ? Keyword.KW_XREF : null;
+					default:
+						return null;
+				}
+			case 5:
+				return valueEquals(value, length, FALSE) ? Keyword.KW_FALSE : null;
+			case 6:
+				switch (value[0]) {
+					case 's':
+						return valueEquals(value, length, STREAM) ? Keyword.KW_STREAM : null;
+					case 'e':
+						return valueEquals(value, length, ENDOBJ) ? Keyword.KW_ENDOBJ : null;
+					default:
+						return null;
+				}
+			case 7:
+				return valueEquals(value, length, TRAILER) ? Keyword.KW_TRAILER : null;
+			case 9:
+				switch (value[0]) {
+					case 'e':
+						return valueEquals(value, length, ENDSTREAM) ? Keyword.KW_ENDSTREAM : null;
+					case 's':
+						return valueEquals(value, length, STARTXREF) ? Keyword.KW_STARTXREF : null;
+					default:
+						return null;
+				}
+			default:
+				return null;
+		}
+	}
+
+	private static boolean valueEquals(byte[] value, int length, byte[] expected) {
+		if (length != expected.length) {
+			return false;
+		}
+		for (int i = 0; i < length; ++i) {
+			if (value[i] != expected[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	//GETTERS & SETTERS
 	public boolean isContainsOnlyHex() {
 		return containsOnlyHex;
@@ -143,6 +284,6 @@ public class Token {
 
 	public void setByteValue(byte[] array) {
 		clearValue();
-		this.token.write(array, 0, array.length);
+		append(array, 0, array.length);
 	}
 }
@@ -27,6 +27,7 @@ import org.verapdf.io.COSXRefTableReader;
 import org.verapdf.io.IReader;
 
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 
 /**
@@ -34,7 +35,9 @@ import java.util.SortedSet;
  */
 public abstract class XRefReader implements IReader {
 
-	private COSXRefTableReader xref;
+	// xref is replaced as a whole, so it can be read by other threads while
+	// the next one is set
+	private volatile COSXRefTableReader xref;
 
 	//CONSTRUCTORS
 	public XRefReader() {
@@ -76,11 +79,21 @@ public abstract class XRefReader implements IReader {
 
 	//PROTECTED METHODS
 	protected void setXRefInfo(final List<COSXRefInfo> infos) {
-		this.xref.set(infos);
+		this.xref = new COSXRefTableReader(infos);
+	}
+
+	protected void setXRefInfo(final List<COSXRefInfo> infos, final Map<COSKey, Long> offsets) {
+		COSXRefTableReader xref = new COSXRefTableReader();
+		xref.set(infos, offsets);
+		this.xref = xref;
 	}
 
 	protected void setXRefInfo(final COSXRefInfo info) {
-		this.xref.set(info);
+		this.xref = new COSXRefTableReader(info);
+	}
+
+	protected void setXRef(final COSXRefTableReader xref) {
+		this.xref = xref;
 	}
 
 	@Override
@@ -92,4 +105,8 @@ public abstract class XRefReader implements IReader {
 		return this.xref.containsKey(key);
 	}
 
+	protected int getGreatestKeyNumber() {
+		return this.xref.getGreatestKeyNumber();
+	}
+
 }
@@ -0,0 +1,358 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.verapdf.as.CharTable;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.io.SeekableInputStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scans the whole document file for object headers "N G obj", trailer
+ * keywords and names that mark object streams, xref streams and document
+ * catalogs. It is used to rebuild xref table of documents with missing or
+ * broken xref.
+ * <p>
+ * File is split into chunks that are scanned in parallel. Every chunk is read
+ * through its own substream of the source, so for memory-mapped documents
+ * chunks are views of the same mapping. Results of chunks are merged in file
+ * order.
+ */
+class XRefScanner {
+
+	static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	static final int OBJECT_STREAM = 0;
+	static final int XREF_STREAM = 1;
+	static final int CATALOG = 2;
+
+	// object header which is longer than this is not recognized
+	private static final int MAX_HEADER_LENGTH = 64;
+	private static final int MAX_NUMBER_LENGTH = 10;
+	private static final int MAX_GENERATION_LENGTH = 5;
+	private static final int MAX_GENERATION = 65535;
+
+	private static final byte[] OBJ = "obj".getBytes(StandardCharsets.ISO_8859_1);
+	private static final byte[] TRAILER = "trailer".getBytes(StandardCharsets.ISO_8859_1);
+	private static final byte[][] NAMES = {
+			"ObjStm".getBytes(StandardCharsets.ISO_8859_1),
+			"XRef".getBytes(StandardCharsets.ISO_8859_1),
+			"Catalog".getBytes(StandardCharsets.ISO_8859_1)
+	};
+	// bytes read after the end of chunk to match keywords starting in it
+	private static final int MAX_KEYWORD_LENGTH = 8;
+
+	private final SeekableInputStream source;
+	private final int chunkSize;
+
+	private long[] objectOffsets = new long[0];
+	private int[] objectNumbers = new int[0];
+	private int[] objectGenerations = new int[0];
+	private final List<Long> trailerOffsets = new ArrayList<>();
+	private final List<List<Integer>> namedObjects = new ArrayList<>();
+
+	XRefScanner(SeekableInputStream source) {
+		this(source, DEFAULT_CHUNK_SIZE);
+	}
+
+	XRefScanner(SeekableInputStream source, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size shall be positive");
+		}
+		this.source = source;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Scans the source. Position of the source is not changed.
+	 */
+	void scan() throws IOException {
+		long length = this.source.getStreamLength();
+		List<Chunk> chunks = new ArrayList<>();
+		for (long start = 0; start < length; start += this.chunkSize) {
+			chunks.add(new Chunk(this.source, length, start, Math.min(start + this.chunkSize, length)));
+		}
+		int threads = Math.min(chunks.size(), Runtime.getRuntime().availableProcessors());
+		if (threads <= 1) {
+			for (Chunk chunk : chunks) {
+				chunk.call();
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				for (Future<Chunk> future : executor.invokeAll(chunks)) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Scanning of document was interrupted", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException("Can't scan document", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		merge(chunks);
+	}
+
+	/**
+	 * @return number of found object headers.
+	 */
+	int getObjectsNumber() {
+		return this.objectOffsets.length;
+	}
+
+	/**
+	 * @return offset of the first digit of object header with given index.
+	 * Headers are ordered by offset.
+	 */
+	long getObjectOffset(int index) {
+		return this.objectOffsets[index];
+	}
+
+	int getObjectNumber(int index) {
+		return this.objectNumbers[index];
+	}
+
+	int getObjectGeneration(int index) {
+		return this.objectGenerations[index];
+	}
+
+	/**
+	 * @return offsets of trailer keywords in file order.
+	 */
+	List<Long> getTrailerOffsets() {
+		return this.trailerOffsets;
+	}
+
+	/**
+	 * @param name is one of {@link #OBJECT_STREAM}, {@link #XREF_STREAM} and
+	 *             {@link #CATALOG}.
+	 * @return indexes of object headers followed by given name before the next
+	 * object header, in file order.
+	 */
+	List<Integer> getNamedObjects(int name) {
+		return this.namedObjects.get(name);
+	}
+
+	private void merge(List<Chunk> chunks) {
+		int objectsNumber = 0;
+		for (Chunk chunk : chunks) {
+			objectsNumber += chunk.objectsNumber;
+		}
+		this.objectOffsets = new long[objectsNumber];
+		this.objectNumbers = new int[objectsNumber];
+		this.objectGenerations = new int[objectsNumber];
+		int index = 0;
+		for (Chunk chunk : chunks) {
+			System.arraycopy(chunk.objectOffsets, 0, this.objectOffsets, index, chunk.objectsNumber);
+			System.arraycopy(chunk.objectNumbers, 0, this.objectNumbers, index, chunk.objectsNumber);
+			System.arraycopy(chunk.objectGenerations, 0, this.objectGenerations, index, chunk.objectsNumber);
+			index += chunk.objectsNumber;
+			this.trailerOffsets.addAll(chunk.trailerOffsets);
+		}
+		for (int name = 0; name < NAMES.length; ++name) {
+			List<Integer> objects = new ArrayList<>();
+			for (Chunk chunk : chunks) {
+				for (Long offset : chunk.nameOffsets.get(name)) {
+					int object = getPrecedingObject(offset.longValue());
+					if (object >= 0 && (objects.isEmpty() || objects.get(objects.size() - 1).intValue() != object)) {
+						objects.add(Integer.valueOf(object));
+					}
+				}
+			}
+			this.namedObjects.add(objects);
+		}
+	}
+
+	private int getPrecedingObject(long offset) {
+		int index = Arrays.binarySearch(this.objectOffsets, offset);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	private static final class Chunk implements Callable<Chunk> {
+
+		private final SeekableInputStream source;
+		private final long sourceLength;
+		private final long start;
+		private final long end;
+
+		private long[] objectOffsets = new long[16];
+		private int[] objectNumbers = new int[16];
+		private int[] objectGenerations = new int[16];
+		private int objectsNumber;
+		private final List<Long> trailerOffsets = new ArrayList<>();
+		private final List<List<Long>> nameOffsets = new ArrayList<>();
+
+		private Chunk(SeekableInputStream source, long sourceLength, long start, long end) {
+			this.source = source;
+			this.sourceLength = sourceLength;
+			this.start = start;
+			this.end = end;
+			for (int i = 0; i < NAMES.length; ++i) {
+				this.nameOffsets.add(new ArrayList<Long>());
+			}
+		}
+
+		@Override
+		public Chunk call() throws IOException {
+			// data preceding and following the chunk is read too, so
+			// keywords that start in this chunk are matched completely
+			long from = Math.max(0, this.start - MAX_HEADER_LENGTH);
+			long to = Math.min(this.sourceLength, this.end + MAX_KEYWORD_LENGTH);
+			byte[] data = read(from, (int) (to - from));
+			int last = (int) (this.end - from);
+			for (int i = (int) (this.start - from); i < last; ++i) {
+				switch (data[i]) {
+					case 'o':
+						if (matches(data, i, OBJ) && isDelimiter(data, i + OBJ.length)) {
+							matchObjectHeader(data, from, i);
+						}
+						break;
+					case 't':
+						if (matches(data, i, TRAILER) && isDelimiter(data, i + TRAILER.length)
+								&& (i == 0 ? from == 0 : CharTable.isTokenDelimiter(data[i - 1] & 0xFF))) {
+							this.trailerOffsets.add(Long.valueOf(from + i));
+						}
+						break;
+					case '/':
+						for (int name = 0; name < NAMES.length; ++name) {
+							if (matches(data, i + 1, NAMES[name]) && isDelimiter(data, i + 1 + NAMES[name].length)) {
+								this.nameOffsets.get(name).add(Long.valueOf(from + i));
+							}
+						}
+						break;
+					default:
+						break;
+				}
+			}
+			return this;
+		}
+
+		private byte[] read(long from, int length) throws IOException {
+			byte[] data = new byte[length];
+			// substreams of seekable streams read requested size completely
+			try (ASInputStream stream = this.source.getStream(from, length)) {
+				int read = stream.read(data, length);
+				return read == length ? data : Arrays.copyOf(data, Math.max(read, 0));
+			}
+		}
+
+		/**
+		 * Matches "N G" before "obj" keyword starting at given index.
+		 */
+		private void matchObjectHeader(byte[] data, long from, int objIndex) {
+			int pos = objIndex - 1;
+			if (pos < 0 || !CharTable.isSpace(data[pos] & 0xFF)) {
+				return;
+			}
+			pos = skipSpacesBackward(data, pos);
+			int generationEnd = pos + 1;
+			pos = skipDigitsBackward(data, pos);
+			int generationStart = pos + 1;
+			int generationLength = generationEnd - generationStart;
+			if (generationLength == 0 || generationLength > MAX_GENERATION_LENGTH
+					|| pos < 0 || !CharTable.isSpace(data[pos] & 0xFF)) {
+				return;
+			}
+			pos = skipSpacesBackward(data, pos);
+			int numberEnd = pos + 1;
+			pos = skipDigitsBackward(data, pos);
+			int numberStart = pos + 1;
+			int numberLength = numberEnd - numberStart;
+			if (numberLength == 0 || numberLength > MAX_NUMBER_LENGTH
+					|| (pos < 0 ? from != 0 : !CharTable.isTokenDelimiter(data[pos] & 0xFF))) {
+				return;
+			}
+			long number = parseDigits(data, numberStart, numberEnd);
+			long generation = parseDigits(data, generationStart, generationEnd);
+			if (number > Integer.MAX_VALUE || generation > MAX_GENERATION) {
+				return;
+			}
+			addObject(from + numberStart, (int) number, (int) generation);
+		}
+
+		private void addObject(long offset, int number, int generation) {
+			if (this.objectsNumber == this.objectOffsets.length) {
+				int capacity = this.objectsNumber * 2;
+				this.objectOffsets = Arrays.copyOf(this.objectOffsets, capacity);
+				this.objectNumbers = Arrays.copyOf(this.objectNumbers, capacity);
+				this.objectGenerations = Arrays.copyOf(this.objectGenerations, capacity);
+			}
+			this.objectOffsets[this.objectsNumber] = offset;
+			this.objectNumbers[this.objectsNumber] = number;
+			this.objectGenerations[this.objectsNumber] = generation;
+			this.objectsNumber++;
+		}
+
+		private boolean isDelimiter(byte[] data, int index) {
+			// data is cut only at the end of file
+			return index >= data.length || CharTable.isTokenDelimiter(data[index] & 0xFF);
+		}
+
+		private static boolean matches(byte[] data, int index, byte[] keyword) {
+			if (index + keyword.length > data.length) {
+				return false;
+			}
+			for (int i = 0; i < keyword.length; ++i) {
+				if (data[index + i] != keyword[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int skipSpacesBackward(byte[] data, int pos) {
+			while (pos >= 0 && CharTable.isSpace(data[pos] & 0xFF)) {
+				pos--;
+			}
+			return pos;
+		}
+
+		private static int skipDigitsBackward(byte[] data, int pos) {
+			while (pos >= 0 && data[pos] >= CharTable.ASCII_ZERO && data[pos] <= CharTable.ASCII_NINE) {
+				pos--;
+			}
+			return pos;
+		}
+
+		private static long parseDigits(byte[] data, int from, int to) {
+			long res = 0;
+			for (int i = from; i < to; ++i) {
+				res = res * 10 + (data[i] - CharTable.ASCII_ZERO);
+			}
+			return res;
+		}
+	}
+}
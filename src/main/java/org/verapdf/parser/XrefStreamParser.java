@@ -22,15 +22,13 @@ package org.verapdf.parser;
 
 import org.verapdf.as.ASAtom;
 import org.verapdf.as.filters.io.ASBufferedInFilter;
+import org.verapdf.as.io.ASBufferPool;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.cos.*;
-import org.verapdf.cos.xref.COSXRefEntry;
 import org.verapdf.cos.xref.COSXRefInfo;
+import org.verapdf.cos.xref.COSXRefSection;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
 /**
  * This class parses xref stream to obtain xref entries with object numbers,
@@ -40,6 +38,9 @@ import java.util.List;
  */
 class XrefStreamParser {
 
+    // W array with larger total size is considered broken
+    private static final int MAX_ENTRY_SIZE = 64;
+
     private COSXRefInfo section;
     private COSStream xrefCOSStream;
 
@@ -63,12 +64,34 @@ class XrefStreamParser {
     void parseStreamAndTrailer() throws IOException {
         try (ASInputStream xrefInputStream = xrefCOSStream.getData(COSStream.FilterFlags.DECODE)) {
             COSObject indexObject = initializeIndex();
-            List<Long> objIDs = initializeObjIDs(indexObject);
-            parseStream(xrefInputStream, objIDs);
+            checkIndex(indexObject);
+            parseStream(xrefInputStream, indexObject);
             setTrailer();
         }
     }
 
+    /**
+     * Puts trailer information into xref section without parsing xref stream
+     * data.
+     */
+    void parseTrailer() {
+        setTrailer();
+    }
+
+    /**
+     * Puts entries of xref stream into xref section without reading trailer
+     * information, that is expected to be read by {@link #parseTrailer()}.
+     *
+     * @throws IOException
+     */
+    void parseEntries() throws IOException {
+        try (ASInputStream xrefInputStream = xrefCOSStream.getData(COSStream.FilterFlags.DECODE)) {
+            COSObject indexObject = initializeIndex();
+            checkIndex(indexObject);
+            parseStream(xrefInputStream, indexObject);
+        }
+    }
+
     /**
      * This method makes sure that Index array is correctly initialized.
      *
@@ -89,30 +112,25 @@ class XrefStreamParser {
     }
 
     /**
-     * This method calculates object ID for all objects, described in this xref
-     * stream using Index array.
+     * This method checks that Index array consists of pairs of integers: first
+     * object number and number of entries in subsection.
      */
-    private List<Long> initializeObjIDs(COSObject indexObject) throws IOException {
-        List<Long> objIDs = new ArrayList<>();
-        for (int i = 0; i < indexObject.size(); i += 2) {
-            Long firstID = indexObject.at(i).getInteger();
-            Long lengthOfSubsection = indexObject.at(i + 1).getInteger();
-            if (firstID == null || lengthOfSubsection == null) {
+    private static void checkIndex(COSObject indexObject) throws IOException {
+        for (int i = 0; i < indexObject.size(); ++i) {
+            if (indexObject.at(i).getInteger() == null) {
                 throw new IOException("Failed to initialize objects ids");
             }
-            for (int j = 0; j < lengthOfSubsection; ++j) {
-                objIDs.add(firstID + j);
-            }
         }
-        return objIDs;
     }
 
     /**
-     * This method does low-level parsing of xref stream.
+     * This method does low-level parsing of xref stream. Entries are decoded
+     * straight from the stream data into xref section, subsections of Index
+     * array are walked as entries are read.
      *
      * @throws IOException
      */
-    private void parseStream(ASInputStream xrefInputStream, List<Long> objIDs) throws IOException {
+    private void parseStream(ASInputStream xrefInputStream, COSObject indexObject) throws IOException {
         COSObject sizesObject = xrefCOSStream.getKey(ASAtom.W);
         if (sizesObject.getType() != COSObjType.COS_ARRAY || sizesObject.size() != 3) {
             throw new IOException("W array in xref shall have 3 elements.");
@@ -123,68 +141,46 @@ class XrefStreamParser {
         if (field0Size == null || field1Size == null || field2Size == null) {
             throw new IOException("Object of W array shall contain an Integer");
         }
-        byte[] field0 = new byte[field0Size.intValue()];
-        byte[] field1 = new byte[field1Size.intValue()];
-        byte[] field2 = new byte[field2Size.intValue()];
-        byte[] buffer;
-        byte[] remainedBytes = new byte[0];
-        int objIdIndex = 0;
-
-        while (true) {
-            buffer = new byte[ASBufferedInFilter.BF_BUFFER_SIZE];
-            long read = xrefInputStream.read(buffer, ASBufferedInFilter.BF_BUFFER_SIZE);
-            if (read == -1) {
-                break;
-            }
-            buffer = ASBufferedInFilter.concatenate(remainedBytes, remainedBytes.length,
-                    buffer, (int) read);
-
-            int pointer = 0;
-            COSXRefEntry xref;
-            for (; objIdIndex < objIDs.size(); ++objIdIndex) {
-                if(pointer + field0.length + field1.length + field2.length >
-                        buffer.length) {
-                    remainedBytes = Arrays.copyOfRange(buffer, pointer, buffer.length);
+        if (field0Size < 0 || field1Size < 0 || field2Size < 0 ||
+                field0Size + field1Size + field2Size > MAX_ENTRY_SIZE) {
+            throw new IOException("Invalid field sizes in W array of xref stream");
+        }
+        EntryDecoder decoder = new EntryDecoder(section.getXRefSection(), indexObject,
+                field0Size.intValue(), field1Size.intValue(), field2Size.intValue());
+        if (decoder.entrySize == 0) {
+            return;
+        }
+        byte[] record = new byte[decoder.entrySize];
+        int recordFill = 0;
+        byte[] readBuffer = ASBufferPool.acquire(ASBufferedInFilter.BF_BUFFER_SIZE);
+        try {
+            while (decoder.hasNext()) {
+                int read = xrefInputStream.read(readBuffer, ASBufferedInFilter.BF_BUFFER_SIZE);
+                if (read == -1) {
                     break;
                 }
-                Long id = objIDs.get(objIdIndex);
-                System.arraycopy(buffer, pointer, field0, 0, field0.length);
-                pointer += field0.length;
-                System.arraycopy(buffer, pointer, field1, 0, field1.length);
-                pointer += field1.length;
-                System.arraycopy(buffer, pointer, field2, 0, field2.length);
-                pointer += field2.length;
-                int type = 1;   // Default value for type
-                if (field0.length > 0) {
-                    type = (int) numberFromBytes(field0);
+                int pointer = 0;
+                // entry split between two reads
+                if (recordFill > 0) {
+                    int copied = Math.min(decoder.entrySize - recordFill, read);
+                    System.arraycopy(readBuffer, 0, record, recordFill, copied);
+                    recordFill += copied;
+                    pointer = copied;
+                    if (recordFill < decoder.entrySize) {
+                        continue;
+                    }
+                    decoder.decode(record, 0);
+                    recordFill = 0;
                 }
-                switch (type) {
-                    case 0:
-                        break;
-                    case 1:
-                        xref = new COSXRefEntry();
-                        xref.offset = numberFromBytes(field1);
-                        if (field2.length > 0) {
-                            xref.generation = (int) numberFromBytes(field2);
-                        } else {
-                            xref.generation = 0;
-                        }
-                        section.getXRefSection().add(new COSKey(id.intValue(),
-                                xref.generation), xref.offset);
-                        break;
-                    case 2:
-                        xref = new COSXRefEntry();
-                        xref.offset = -numberFromBytes(field1);
-                        if (field2.length > 0) {
-                            xref.generation = 0;
-                        }
-                        section.getXRefSection().add(new COSKey(id.intValue(),
-                                xref.generation), xref.offset);
-                        break;
-                    default:
-                        throw new IOException("Error in parsing xref stream");
+                while (read - pointer >= decoder.entrySize && decoder.hasNext()) {
+                    decoder.decode(readBuffer, pointer);
+                    pointer += decoder.entrySize;
                 }
+                recordFill = read - pointer;
+                System.arraycopy(readBuffer, pointer, record, 0, recordFill);
             }
+        } finally {
+            ASBufferPool.release(readBuffer);
         }
     }
 
@@ -214,17 +210,94 @@ class XrefStreamParser {
         }
     }
 
+    /**
+     * Decodes xref stream entries and assigns them object numbers from
+     * subsections of Index array.
+     */
+    private static class EntryDecoder {
+
+        private final COSXRefSection xrefs;
+        private final COSObject index;
+        private final int field0Size;
+        private final int field1Size;
+        private final int field2Size;
+        private final int entrySize;
+
+        private int nextSubsection = 0;
+        private long number;
+        private long left = 0;
+
+        private EntryDecoder(COSXRefSection xrefs, COSObject index,
+                             int field0Size, int field1Size, int field2Size) {
+            this.xrefs = xrefs;
+            this.index = index;
+            this.field0Size = field0Size;
+            this.field1Size = field1Size;
+            this.field2Size = field2Size;
+            this.entrySize = field0Size + field1Size + field2Size;
+        }
+
+        /**
+         * @return true if there are object numbers left for entries.
+         */
+        private boolean hasNext() {
+            while (this.left <= 0) {
+                if (this.nextSubsection >= this.index.size()) {
+                    return false;
+                }
+                this.number = this.index.at(this.nextSubsection).getInteger().longValue();
+                this.left = this.index.at(this.nextSubsection + 1).getInteger().longValue();
+                this.nextSubsection += 2;
+            }
+            return true;
+        }
+
+        /**
+         * Decodes entry for the next object number. hasNext() shall be
+         * checked before.
+         */
+        private void decode(byte[] data, int offset) throws IOException {
+            int type = 1;   // Default value for type
+            if (this.field0Size > 0) {
+                type = (int) numberFromBytes(data, offset, this.field0Size);
+            }
+            int objectNumber = (int) this.number;
+            this.number++;
+            this.left--;
+            switch (type) {
+                case 0:
+                    break;
+                case 1:
+                    long generation = 0;
+                    if (this.field2Size > 0) {
+                        generation = numberFromBytes(data, offset + this.field0Size + this.field1Size, this.field2Size);
+                    }
+                    this.xrefs.add(objectNumber, (int) generation,
+                            numberFromBytes(data, offset + this.field0Size, this.field1Size), 'n');
+                    break;
+                case 2:
+                    this.xrefs.add(objectNumber, 0,
+                            -numberFromBytes(data, offset + this.field0Size, this.field1Size), 'n');
+                    break;
+                default:
+                    throw new IOException("Error in parsing xref stream");
+            }
+        }
+    }
+
     /**
      * This is a helper method for low-level parsing, it converts number
-     * represented with array of bytes into long.
+     * represented with big-endian bytes into long.
      *
-     * @param num is byte array to be converted.
+     * @param data   is byte array containing the number.
+     * @param offset is offset of the number in array.
+     * @param length is number of bytes in the number.
      * @return long obtained from given bytes.
      */
-    private static long numberFromBytes(byte[] num) {
+    private static long numberFromBytes(byte[] data, int offset, int length) {
         long res = 0;
-        for (int i = 0; i < num.length; ++i) {
-            res += (num[i] & 0x00FF) << ((num.length - i - 1) * 8);
+        for (int i = offset; i < offset + length; ++i) {
+            res = (res << 8) | (data[i] & 0xFF);
         }
         return res;
     }
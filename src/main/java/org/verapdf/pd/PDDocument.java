@@ -26,8 +26,10 @@ import org.verapdf.cos.COSIndirect;
 import org.verapdf.cos.COSObject;
 import org.verapdf.cos.visitor.IndirectWriter;
 import org.verapdf.cos.visitor.Writer;
+import org.verapdf.io.ReaderOptions;
 import org.verapdf.io.SeekableInputStream;
 import org.verapdf.pd.form.PDAcroForm;
+import org.verapdf.pd.linearization.PDLinearization;
 import org.verapdf.pd.structure.PDStructTreeRoot;
 import org.verapdf.tools.StaticResources;
 
@@ -59,8 +61,12 @@ public class PDDocument {
 	}
 
 	public PDDocument(final String filename) throws IOException {
+		this(filename, new ReaderOptions());
+	}
+
+	public PDDocument(final String filename, final ReaderOptions options) throws IOException {
 		this.catalog = new PDCatalog();
-		this.document = new COSDocument(filename, this);
+		this.document = new COSDocument(filename, this, options);
 		if (getNumberOfPages() == 0) {
 			throw new IOException("Pages not found");
 		}
@@ -74,6 +80,11 @@ public class PDDocument {
 		}
 	}
 
+	private PDDocument(final COSDocument document, final int revision) throws IOException {
+		this.catalog = new PDCatalog();
+		this.document = document.getRevision(revision, this);
+	}
+
 	private void constructDocument() {
 		document = new COSDocument(this);
 		document.setHeader(PDF_HEADER_DEFAULT);
@@ -149,7 +160,37 @@ public class PDDocument {
 		return document;
 	}
 
+	/**
+	 * @return number of revisions of document, the original document and
+	 * each of its incremental updates are separate revisions.
+	 */
+	public int getRevisionsCount() throws IOException {
+		return this.document != null ? this.document.getRevisionsCount() : 0;
+	}
+
+	/**
+	 * Opens document as of given revision counted from 0 for the original
+	 * document. Opened document shares file and objects that are the same in
+	 * both revisions with this document, so it shall be closed before this
+	 * document. Shared objects are not copied, so documents of revisions are
+	 * meant for reading only: a change of such object made through one of
+	 * them is seen by all the others.
+	 */
+	public PDDocument getRevision(final int revision) throws IOException {
+		if (this.document == null) {
+			throw new IOException("Document is closed");
+		}
+		return new PDDocument(this.document, revision);
+	}
+
 	public int getNumberOfPages() {
+		// linearized document opened by its first page doesn't read page tree
+		// until the rest of its xref is read
+		PDLinearization linearization = getLinearization();
+		if (linearization != null && linearization.getNumberOfPages() != null &&
+				!this.document.isXRefLoaded()) {
+			return linearization.getNumberOfPages().intValue();
+		}
 		return this.getCatalog().getPageTree().getPageCount();
 	}
 
@@ -163,9 +204,19 @@ public class PDDocument {
 	}
 
 	public PDPage getPage(final int number) {
+		if (number == 0) {
+			PDLinearization linearization = getLinearization();
+			if (linearization != null) {
+				return new PDPage(linearization.getFirstPage());
+			}
+		}
 		return this.getCatalog().getPageTree().getPage(number);
 	}
 
+	private PDLinearization getLinearization() {
+		return this.document != null ? this.document.getLinearization() : null;
+	}
+
 	public void addPage(final PDPage page, final int number) {
 		if (document == null) {
 			return;
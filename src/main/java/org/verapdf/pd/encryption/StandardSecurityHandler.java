@@ -22,6 +22,7 @@ package org.verapdf.pd.encryption;
 
 import org.verapdf.as.ASAtom;
 import org.verapdf.as.filters.io.ASBufferedInFilter;
+import org.verapdf.as.io.ASGrowableBuffer;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.as.io.ASMemoryInStream;
 import org.verapdf.cos.*;
@@ -158,15 +159,15 @@ public class StandardSecurityHandler {
                     this.encryptionKey, false, method);
         }
         byte[] buf = new byte[ASBufferedInFilter.BF_BUFFER_SIZE];
-        byte[] res = new byte[0];
+        ASGrowableBuffer res = new ASGrowableBuffer(stringBytes.length);
         filter.reset();
         int read = filter.read(buf, buf.length);
         while (read != -1) {
-            res = ASBufferedInFilter.concatenate(res, res.length, buf, read);
+            res.append(buf, read);
             read = filter.read(buf, buf.length);
         }
         filter.close();
-        string.set(res);
+        string.set(res.toByteArray());
     }
 
     /**
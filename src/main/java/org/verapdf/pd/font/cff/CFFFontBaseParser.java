@@ -20,7 +20,6 @@
  */
 package org.verapdf.pd.font.cff;
 
-import org.verapdf.as.io.ASMemoryInStream;
 import org.verapdf.io.SeekableInputStream;
 import org.verapdf.pd.font.CFFNumber;
 import org.verapdf.tools.resource.ASFileStreamCloser;
@@ -183,10 +182,7 @@ abstract class CFFFontBaseParser extends CFFFileBaseParser {
     }
 
     public ASFileStreamCloser getFontProgramResource() {
-        if (this.source instanceof ASMemoryInStream) {
-            return null;
-        } else {
-            return new ASFileStreamCloser(this.source);
-        }
+        // memory streams are closed too, so their memory budget reservation is released
+        return new ASFileStreamCloser(this.source);
     }
 }
@@ -21,7 +21,6 @@
 package org.verapdf.pd.font.cff;
 
 import org.verapdf.as.io.ASInputStream;
-import org.verapdf.as.io.ASMemoryInStream;
 import org.verapdf.pd.font.FontProgram;
 import org.verapdf.pd.font.cmap.CMap;
 import org.verapdf.tools.resource.ASFileStreamCloser;
@@ -201,10 +200,7 @@ public class CFFFontProgram extends CFFFileBaseParser implements FontProgram {
 
     @Override
     public ASFileStreamCloser getFontProgramResource() {
-        if (this.source instanceof ASMemoryInStream) {
-            return null;
-        } else {
-            return new ASFileStreamCloser(this.source);
-        }
+        // memory streams are closed too, so their memory budget reservation is released
+        return new ASFileStreamCloser(this.source);
     }
 }
@@ -55,9 +55,7 @@ class CMapFactory {
                 return res;
             }
         }
-        try {
-            CMapParser parser =
-                    new CMapParser(cMapStream);
+        try (CMapParser parser = new CMapParser(cMapStream)) {
             parser.parse();
             res = parser.getCMap();
         } catch (IOException e) {
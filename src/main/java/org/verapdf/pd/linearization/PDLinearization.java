@@ -0,0 +1,134 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.pd.linearization;
+
+import org.verapdf.as.ASAtom;
+import org.verapdf.cos.COSObjType;
+import org.verapdf.cos.COSObject;
+import org.verapdf.pd.PDObject;
+
+/**
+ * Represents linearization parameter dictionary of linearized document
+ * together with the first page object and the primary hint tables.
+ */
+public class PDLinearization extends PDObject {
+
+	private final COSObject firstPage;
+	private final PageOffsetHintTable pageOffsetHints;
+	private final SharedObjectHintTable sharedObjectHints;
+
+	/**
+	 * @param dictionary        is linearization parameter dictionary.
+	 * @param firstPage         is page object of the first page.
+	 * @param pageOffsetHints   is page offset hint table or null if it can't
+	 *                          be read.
+	 * @param sharedObjectHints is shared object hint table or null if it
+	 *                          can't be read.
+	 */
+	public PDLinearization(COSObject dictionary, COSObject firstPage, PageOffsetHintTable pageOffsetHints,
+						   SharedObjectHintTable sharedObjectHints) {
+		super(dictionary);
+		this.firstPage = firstPage;
+		this.pageOffsetHints = pageOffsetHints;
+		this.sharedObjectHints = sharedObjectHints;
+	}
+
+	/**
+	 * @return length of the entire file in bytes.
+	 */
+	public Long getFileLength() {
+		return getIntegerKey(ASAtom.L);
+	}
+
+	/**
+	 * @return offset of the primary hint stream.
+	 */
+	public Long getHintStreamOffset() {
+		return getHintStreamEntry(0);
+	}
+
+	/**
+	 * @return length of the primary hint stream.
+	 */
+	public Long getHintStreamLength() {
+		return getHintStreamEntry(1);
+	}
+
+	/**
+	 * @return object number of the first page's page object.
+	 */
+	public Long getFirstPageObjectNumber() {
+		return getIntegerKey(ASAtom.O);
+	}
+
+	/**
+	 * @return offset of the end of the first page.
+	 */
+	public Long getFirstPageEndOffset() {
+		return getIntegerKey(ASAtom.E);
+	}
+
+	/**
+	 * @return number of pages in the document.
+	 */
+	public Long getNumberOfPages() {
+		return getIntegerKey(ASAtom.N);
+	}
+
+	/**
+	 * @return offset of the white-space character preceding the first entry
+	 * of the main cross-reference table.
+	 */
+	public Long getMainXRefOffset() {
+		return getIntegerKey(ASAtom.T);
+	}
+
+	/**
+	 * @return page object of the first page.
+	 */
+	public COSObject getFirstPage() {
+		return this.firstPage;
+	}
+
+	/**
+	 * @return page offset hint table of the primary hint stream or null if
+	 * it can't be read.
+	 */
+	public PageOffsetHintTable getPageOffsetHints() {
+		return this.pageOffsetHints;
+	}
+
+	/**
+	 * @return shared object hint table of the primary hint stream or null if
+	 * it can't be read.
+	 */
+	public SharedObjectHintTable getSharedObjectHints() {
+		return this.sharedObjectHints;
+	}
+
+	private Long getHintStreamEntry(int index) {
+		COSObject hints = getKey(ASAtom.H);
+		if (hints != null && hints.getType() == COSObjType.COS_ARRAY && hints.size().intValue() > index) {
+			return hints.at(index).getInteger();
+		}
+		return null;
+	}
+}
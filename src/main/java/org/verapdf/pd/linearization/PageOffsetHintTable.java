@@ -0,0 +1,86 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.pd.linearization;
+
+/**
+ * Page offset hint table of linearized document. It contains number of
+ * objects, length in bytes and references to shared objects for each page.
+ */
+public class PageOffsetHintTable {
+
+	private final long firstPageObjectOffset;
+	private final int[] objects;
+	private final long[] lengths;
+	private final int[][] sharedObjects;
+
+	/**
+	 * @param firstPageObjectOffset is offset of the first page's page object.
+	 * @param objects               are numbers of objects in pages.
+	 * @param lengths               are lengths of pages in bytes.
+	 * @param sharedObjects         are identifiers of shared objects
+	 *                              referenced from pages, i.e. indexes in
+	 *                              shared object hint table.
+	 */
+	public PageOffsetHintTable(long firstPageObjectOffset, int[] objects, long[] lengths, int[][] sharedObjects) {
+		this.firstPageObjectOffset = firstPageObjectOffset;
+		this.objects = objects;
+		this.lengths = lengths;
+		this.sharedObjects = sharedObjects;
+	}
+
+	/**
+	 * @return offset of the first page's page object.
+	 */
+	public long getFirstPageObjectOffset() {
+		return this.firstPageObjectOffset;
+	}
+
+	/**
+	 * @return number of pages in the table.
+	 */
+	public int getNumberOfPages() {
+		return this.objects.length;
+	}
+
+	/**
+	 * @param page is index of page starting from 0.
+	 * @return number of objects in the page.
+	 */
+	public int getObjectsCount(int page) {
+		return this.objects[page];
+	}
+
+	/**
+	 * @param page is index of page starting from 0.
+	 * @return length of the page in bytes.
+	 */
+	public long getPageLength(int page) {
+		return this.lengths[page];
+	}
+
+	/**
+	 * @param page is index of page starting from 0.
+	 * @return identifiers of shared objects referenced from the page.
+	 */
+	public int[] getSharedObjects(int page) {
+		return this.sharedObjects[page].clone();
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.pd.linearization;
+
+/**
+ * Shared object hint table of linearized document. Its entries describe
+ * groups of shared objects: entries of the first page's shared objects come
+ * first and are followed by entries of the shared objects section.
+ */
+public class SharedObjectHintTable {
+
+	private final int firstObjectNumber;
+	private final long firstObjectOffset;
+	private final int firstPageEntries;
+	private final int[] objects;
+	private final long[] lengths;
+
+	/**
+	 * @param firstObjectNumber is number of the first object in shared
+	 *                          objects section.
+	 * @param firstObjectOffset is offset of the first object in shared
+	 *                          objects section.
+	 * @param firstPageEntries  is number of entries for the first page.
+	 * @param objects           are numbers of objects in groups.
+	 * @param lengths           are lengths of groups in bytes.
+	 */
+	public SharedObjectHintTable(int firstObjectNumber, long firstObjectOffset, int firstPageEntries,
+								 int[] objects, long[] lengths) {
+		this.firstObjectNumber = firstObjectNumber;
+		this.firstObjectOffset = firstObjectOffset;
+		this.firstPageEntries = firstPageEntries;
+		this.objects = objects;
+		this.lengths = lengths;
+	}
+
+	/**
+	 * @return number of the first object in shared objects section.
+	 */
+	public int getFirstObjectNumber() {
+		return this.firstObjectNumber;
+	}
+
+	/**
+	 * @return offset of the first object in shared objects section.
+	 */
+	public long getFirstObjectOffset() {
+		return this.firstObjectOffset;
+	}
+
+	/**
+	 * @return number of entries for shared objects of the first page.
+	 */
+	public int getFirstPageEntriesCount() {
+		return this.firstPageEntries;
+	}
+
+	/**
+	 * @return number of all entries in the table.
+	 */
+	public int getEntriesCount() {
+		return this.objects.length;
+	}
+
+	/**
+	 * @param entry is index of entry, i.e. shared object identifier.
+	 * @return number of objects in the group.
+	 */
+	public int getObjectsCount(int entry) {
+		return this.objects[entry];
+	}
+
+	/**
+	 * @param entry is index of entry, i.e. shared object identifier.
+	 * @return length of the group in bytes.
+	 */
+	public long getGroupLength(int entry) {
+		return this.lengths[entry];
+	}
+}
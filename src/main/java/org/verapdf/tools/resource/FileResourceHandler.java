@@ -43,7 +43,7 @@ public class FileResourceHandler implements Closeable {
      *
      * @param obj is a file stream closer to be stored.
      */
-    public void addResource(ASFileStreamCloser obj) {
+    public synchronized void addResource(ASFileStreamCloser obj) {
         if (obj != null) {
             Closeable resource = obj.getStream();
             if (resource != null && !resources.contains(resource)) {
@@ -57,7 +57,7 @@ public class FileResourceHandler implements Closeable {
      *
      * @param res is a closeable object to be stored.
      */
-    public void addResource(Closeable res) {
+    public synchronized void addResource(Closeable res) {
         if (res != null && !resources.contains(res)) {
             resources.add(res);
         }
@@ -67,7 +67,7 @@ public class FileResourceHandler implements Closeable {
      * Closes all stored resources.
      */
     @Override
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
         for (Closeable obj : resources) {
             obj.close();
         }
@@ -77,7 +77,7 @@ public class FileResourceHandler implements Closeable {
      * Adds all closeable objects from given list to handler.
      * @param resources
      */
-    public void addAll(List<Closeable> resources) {
+    public synchronized void addAll(List<Closeable> resources) {
         this.resources.addAll(resources);
     }
 }
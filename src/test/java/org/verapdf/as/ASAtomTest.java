@@ -0,0 +1,53 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests lookup of ASAtom by string and by bytes.
+ */
+public class ASAtomTest {
+
+    @Test
+    public void testPredefined() {
+        byte[] bytes = "/Type/Catalog".getBytes(StandardCharsets.ISO_8859_1);
+        assertSame(ASAtom.TYPE, ASAtom.getASAtom(bytes, 1, 4));
+        assertSame(ASAtom.CATALOG, ASAtom.getASAtom(bytes, 6, 7));
+        assertSame(ASAtom.CATALOG, ASAtom.getASAtom("Catalog"));
+    }
+
+    @Test
+    public void testCached() {
+        byte[] bytes = "SomeUnknownéName".getBytes(StandardCharsets.ISO_8859_1);
+        ASAtom fromBytes = ASAtom.getASAtom(bytes, 0, bytes.length);
+        ASAtom fromString = ASAtom.getASAtom("SomeUnknownéName");
+        assertEquals("SomeUnknownéName", fromBytes.getValue());
+        assertEquals(fromString, fromBytes);
+        assertEquals(fromString.hashCode(), fromBytes.hashCode());
+        assertEquals(0, ASAtom.getASAtom(bytes, 0, 0).getValue().length());
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.filters.io;
+
+import org.junit.Test;
+import org.verapdf.as.io.ASBufferPool;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.as.io.IBufferPool;
+import org.verapdf.as.io.ThreadLocalBufferPool;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests return of ASBufferedInFilter buffers to the buffer pool.
+ */
+public class ASBufferedInFilterTest {
+
+    private static final byte[] DATA = "buffered data".getBytes();
+
+    @Test
+    public void testBufferIsReused() throws IOException {
+        IBufferPool previous = ASBufferPool.getPool();
+        IBufferPool pool = new ThreadLocalBufferPool();
+        ASBufferPool.setPool(pool);
+        try {
+            for (int i = 0; i < 100; ++i) {
+                ASBufferedInFilter filter = new ASBufferedInFilter(new ASMemoryInStream(DATA));
+                filter.initialize();
+                byte[] read = new byte[DATA.length];
+                assertEquals(DATA.length, filter.read(read));
+                filter.close();
+            }
+            assertEquals(100, pool.getAcquiredCount());
+            assertEquals(1, pool.getAllocatedCount());
+        } finally {
+            ASBufferPool.setPool(previous);
+        }
+    }
+
+    @Test
+    public void testBufferIsKeptForOtherUsers() throws IOException {
+        IBufferPool previous = ASBufferPool.getPool();
+        IBufferPool pool = new ThreadLocalBufferPool();
+        ASBufferPool.setPool(pool);
+        try {
+            ASBufferedInFilter filter = new ASBufferedInFilter(new ASMemoryInStream(DATA));
+            filter.initialize();
+            ASInputStream copy = ASInputStream.createStreamFromStream(filter);
+            filter.close();
+            new ASBufferedInFilter(new ASMemoryInStream(DATA)).close();
+            assertEquals(2, pool.getAllocatedCount());
+            assertEquals(DATA[0], filter.readByte());
+            copy.close();
+            pool.acquire(ASBufferedInFilter.BF_BUFFER_SIZE);
+            pool.acquire(ASBufferedInFilter.BF_BUFFER_SIZE);
+            assertEquals(2, pool.getAllocatedCount());
+        } finally {
+            ASBufferPool.setPool(previous);
+        }
+    }
+
+    @Test
+    public void testUnreadBeforeData() throws IOException {
+        IBufferPool previous = ASBufferPool.getPool();
+        IBufferPool pool = new ThreadLocalBufferPool();
+        ASBufferPool.setPool(pool);
+        try {
+            byte[] used = pool.acquire(ASBufferedInFilter.BF_BUFFER_SIZE);
+            Arrays.fill(used, (byte) 'x');
+            pool.release(used);
+            ASBufferedInFilter filter = new ASBufferedInFilter(new ASMemoryInStream(DATA));
+            filter.initialize();
+            filter.unread(2);
+            assertEquals(0, filter.readByte());
+            assertEquals(0, filter.readByte());
+            assertEquals(DATA[0], filter.readByte());
+            filter.close();
+        } finally {
+            ASBufferPool.setPool(previous);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests appending, reading and discarding of data in ASGrowableBuffer.
+ */
+public class ASGrowableBufferTest {
+
+    @Test
+    public void test() throws IOException {
+        ASGrowableBuffer buffer = new ASGrowableBuffer(4);
+        byte[] chunk = new byte[100];
+        for (int i = 0; i < 100; ++i) {
+            chunk[i] = (byte) i;
+        }
+        for (int i = 0; i < 50; ++i) {
+            buffer.append(chunk, 100);
+        }
+        buffer.append(200);
+        assertEquals(5001, buffer.size());
+        assertEquals(99, buffer.get(4999));
+        assertEquals((byte) 200, buffer.get(5000));
+
+        byte[] dest = new byte[10];
+        assertEquals(10, buffer.get(195, dest, 0, 10));
+        assertEquals(95, dest[0]);
+        assertEquals(4, dest[9]);
+
+        buffer.discard(4990);
+        assertEquals(11, buffer.size());
+        assertEquals(90, buffer.get(0));
+
+        ASMemoryInStream stream = buffer.toASMemoryInStream();
+        assertEquals(11, stream.getStreamLength());
+        assertEquals(90, stream.read());
+        stream.close();
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests reuse of buffers by ThreadLocalBufferPool.
+ */
+public class ThreadLocalBufferPoolTest {
+
+    @Test
+    public void test() {
+        IBufferPool pool = new ThreadLocalBufferPool(4096, 2, 8192);
+        byte[] one = pool.acquire(2048);
+        byte[] two = pool.acquire(2048);
+        assertEquals(2048, one.length);
+        assertNotSame(one, two);
+        pool.release(one);
+        assertSame(one, pool.acquire(2048));
+        assertEquals(1024, pool.acquire(1024).length);
+
+        byte[] large = pool.acquire(5000);
+        pool.release(large);
+        assertNotSame(large, pool.acquire(5000));
+
+        assertEquals(6, pool.getAcquiredCount());
+        assertEquals(5, pool.getAllocatedCount());
+        assertEquals(2048 * 2 + 1024 + 5000 * 2, pool.getAllocatedBytes());
+    }
+}
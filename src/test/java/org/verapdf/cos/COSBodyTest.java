@@ -0,0 +1,291 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class COSBodyTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void testObjectIsLoadedOnce() throws Exception {
+        final COSBody body = new COSBody();
+        final COSKey key = new COSKey(1, 0);
+        final AtomicInteger loads = new AtomicInteger();
+        final ICOSObjectLoader loader = new ICOSObjectLoader() {
+            @Override
+            public COSObject load(COSKey key) throws IOException {
+                loads.incrementAndGet();
+                sleep();
+                return COSInteger.construct(key.getNumber());
+            }
+        };
+        List<Callable<COSObject>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; ++i) {
+            tasks.add(new Callable<COSObject>() {
+                @Override
+                public COSObject call() throws IOException {
+                    return body.get(key, loader);
+                }
+            });
+        }
+        List<COSObject> results = run(tasks);
+        assertEquals(1, loads.get());
+        for (COSObject result : results) {
+            assertSame(body.get(key), result);
+        }
+    }
+
+    @Test
+    public void testDependentObjects() throws Exception {
+        final COSBody body = new COSBody();
+        final COSKey first = new COSKey(1, 0);
+        final COSKey second = new COSKey(2, 0);
+        final CountDownLatch started = new CountDownLatch(2);
+        final ThreadLocal<Boolean> nested = new ThreadLocal<>();
+        // each object requires the other one while it is loaded, so threads
+        // loading them would wait for each other forever
+        final ICOSObjectLoader loader = new ICOSObjectLoader() {
+            @Override
+            public COSObject load(COSKey key) throws IOException {
+                if (nested.get() == null) {
+                    nested.set(Boolean.TRUE);
+                    started.countDown();
+                    try {
+                        started.await(1, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    body.get(key.equals(first) ? second : first, this);
+                }
+                return COSInteger.construct(key.getNumber());
+            }
+        };
+        List<Callable<COSObject>> tasks = new ArrayList<>();
+        for (final COSKey key : new COSKey[]{first, second}) {
+            tasks.add(new Callable<COSObject>() {
+                @Override
+                public COSObject call() throws IOException {
+                    return body.get(key, loader);
+                }
+            });
+        }
+        List<COSObject> results = run(tasks);
+        assertSame(body.get(first), results.get(0));
+        assertSame(body.get(second), results.get(1));
+    }
+
+    @Test
+    public void testTaskDependingOnObject() throws Exception {
+        final COSLoadingCoordinator coordinator = new COSLoadingCoordinator();
+        final COSBody body = new COSBody(coordinator);
+        final COSKey key = new COSKey(1, 0);
+        final Object id = new Object();
+        final CountDownLatch started = new CountDownLatch(2);
+        final AtomicBoolean loaded = new AtomicBoolean();
+        // task requires object, whose loading requires task, as reading of
+        // xref that requires object loaded by thread waiting for xref
+        final ICOSLoadingTask task = new ICOSLoadingTask() {
+            @Override
+            public boolean isLoaded() {
+                return loaded.get();
+            }
+
+            @Override
+            public void load() throws IOException {
+                await(started);
+                body.get(key, new ICOSObjectLoader() {
+                    @Override
+                    public COSObject load(COSKey key) {
+                        return COSInteger.construct(key.getNumber());
+                    }
+                });
+                loaded.set(true);
+            }
+        };
+        final ICOSObjectLoader loader = new ICOSObjectLoader() {
+            @Override
+            public COSObject load(COSKey key) throws IOException {
+                await(started);
+                coordinator.load(id, task);
+                return COSInteger.construct(key.getNumber());
+            }
+        };
+        List<Callable<COSObject>> tasks = new ArrayList<>();
+        tasks.add(new Callable<COSObject>() {
+            @Override
+            public COSObject call() throws IOException {
+                return body.get(key, loader);
+            }
+        });
+        tasks.add(new Callable<COSObject>() {
+            @Override
+            public COSObject call() throws IOException {
+                coordinator.load(id, task);
+                return body.get(key);
+            }
+        });
+        List<COSObject> results = run(tasks);
+        assertTrue(loaded.get());
+        assertSame(body.get(key), results.get(0));
+    }
+
+    @Test
+    public void testNestedTask() throws IOException {
+        final COSLoadingCoordinator coordinator = new COSLoadingCoordinator();
+        final Object id = new Object();
+        final AtomicBoolean nested = new AtomicBoolean(true);
+        assertTrue(coordinator.load(id, new ICOSLoadingTask() {
+            @Override
+            public boolean isLoaded() {
+                return false;
+            }
+
+            @Override
+            public void load() throws IOException {
+                nested.set(coordinator.load(id, this));
+            }
+        }));
+        assertFalse(nested.get());
+    }
+
+    @Test
+    public void testTasksOfOtherCoordinator() throws Exception {
+        final Object id = new Object();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean loaded = new AtomicBoolean();
+        final AtomicBoolean released = new AtomicBoolean();
+        // task of one document waits until the same task of another document
+        // is run, that would never happen if the second one waited for it
+        List<Callable<COSObject>> tasks = new ArrayList<>();
+        tasks.add(new Callable<COSObject>() {
+            @Override
+            public COSObject call() throws IOException {
+                new COSLoadingCoordinator().load(id, new ICOSLoadingTask() {
+                    @Override
+                    public boolean isLoaded() {
+                        return false;
+                    }
+
+                    @Override
+                    public void load() throws IOException {
+                        started.countDown();
+                        try {
+                            released.set(finished.await(5, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                    }
+                });
+                return null;
+            }
+        });
+        tasks.add(new Callable<COSObject>() {
+            @Override
+            public COSObject call() throws IOException {
+                try {
+                    started.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                new COSLoadingCoordinator().load(id, new ICOSLoadingTask() {
+                    @Override
+                    public boolean isLoaded() {
+                        return loaded.get();
+                    }
+
+                    @Override
+                    public void load() {
+                        loaded.set(true);
+                        finished.countDown();
+                    }
+                });
+                return null;
+            }
+        });
+        run(tasks);
+        assertTrue(loaded.get());
+        assertTrue(released.get());
+    }
+
+    @Test
+    public void testMissingObject() throws IOException {
+        COSBody body = new COSBody();
+        COSKey key = new COSKey(1, 0);
+        assertNull(body.get(key, new ICOSObjectLoader() {
+            @Override
+            public COSObject load(COSKey key) {
+                return null;
+            }
+        }));
+        assertSame(COSObjType.COS_UNDEFINED, body.get(key).getType());
+    }
+
+    private static List<COSObject> run(List<Callable<COSObject>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<COSObject> results = new ArrayList<>();
+            for (Future<COSObject> future : executor.invokeAll(tasks, 10, TimeUnit.SECONDS)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        latch.countDown();
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void sleep() throws IOException {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class COSDictionaryTest {
+
+    private static final int THREADS = 8;
+    private static final int KEYS = 64;
+
+    @Test
+    public void testLazyEntriesAreLoadedOnce() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final COSObject dict = COSDictionary.construct();
+        final COSObject array = COSArray.construct();
+        for (int i = 0; i < KEYS; ++i) {
+            final int value = i;
+            ICOSLazyValue lazyValue = new ICOSLazyValue() {
+                @Override
+                public COSObject load() {
+                    loads.incrementAndGet();
+                    return COSInteger.construct(value);
+                }
+            };
+            ((COSDictionary) dict.get()).setLazyKey(key(i), lazyValue);
+            ((COSArray) array.get()).addLazy(lazyValue);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; ++t) {
+                results.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        long sum = 0;
+                        for (int i = KEYS - 1; i >= 0; --i) {
+                            sum += dict.getIntegerKey(key(i));
+                            sum += array.at(i).getInteger();
+                        }
+                        return sum;
+                    }
+                }));
+            }
+            for (Future<Long> result : results) {
+                assertEquals(Long.valueOf(KEYS * (KEYS - 1)), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2 * KEYS, loads.get());
+    }
+
+    @Test
+    public void testKeySetLoadsLazyEntries() {
+        COSObject dict = COSDictionary.construct();
+        ((COSDictionary) dict.get()).setLazyKey(ASAtom.A, new ICOSLazyValue() {
+            @Override
+            public COSObject load() {
+                return COSInteger.construct(1);
+            }
+        });
+        ((COSDictionary) dict.get()).setLazyKey(ASAtom.B, new ICOSLazyValue() {
+            @Override
+            public COSObject load() {
+                // value that can't be parsed
+                return new COSObject();
+            }
+        });
+        assertEquals(Integer.valueOf(2), dict.size());
+        assertTrue(dict.getKeySet().contains(ASAtom.A));
+        assertFalse(dict.getKeySet().contains(ASAtom.B));
+        assertTrue(dict.getKey(ASAtom.B).empty());
+    }
+
+    private static ASAtom key(int i) {
+        return ASAtom.getASAtom("K" + i);
+    }
+}
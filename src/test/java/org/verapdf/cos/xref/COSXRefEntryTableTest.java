@@ -0,0 +1,93 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos.xref;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class COSXRefEntryTableTest {
+
+    @Test
+    public void testEntries() {
+        COSXRefEntryTable table = new COSXRefEntryTable();
+        table.set(3, 100, 0, 'n');
+        table.set(1, -7, 0, 'n');
+        table.set(5, 0, 2, 'f');
+        table.set(3, 200, 1, 'n');
+        table.set(-1, 300, 0, 'n');
+
+        assertEquals(3, table.size());
+        assertEquals(Arrays.asList(1, 3, 5), getNumbers(table));
+        assertEquals(200, table.getOffset(3));
+        assertEquals(1, table.getGeneration(3));
+        assertEquals(-7, table.getOffset(1));
+        assertTrue(table.isFree(5));
+        assertFalse(table.isFree(3));
+        assertEquals(new COSXRefEntry(0, 2, 'f'), table.getEntry(5));
+        assertNull(table.getEntry(2));
+        assertFalse(table.contains(-1));
+
+        table.remove(3);
+        assertFalse(table.contains(3));
+        assertEquals(0, table.getOffset(3));
+        assertEquals(2, table.size());
+        assertEquals(5, table.lastNumber());
+    }
+
+    @Test
+    public void testSparseNumbers() {
+        COSXRefEntryTable table = new COSXRefEntryTable();
+        table.set(Integer.MAX_VALUE, 10, 0, 'n');
+        table.set(1 << 20, 20, 0, 'n');
+        table.set(7, 30, 0, 'n');
+        assertEquals(Arrays.asList(7, 1 << 20, Integer.MAX_VALUE), getNumbers(table));
+        assertEquals(10, table.getOffset(Integer.MAX_VALUE));
+        assertEquals(20, table.getOffset(1 << 20));
+        assertEquals(Integer.MAX_VALUE, table.lastNumber());
+
+        // numbers become dense when there are enough entries
+        for (int i = (1 << 20) - 1; i >= 1 << 18; --i) {
+            table.set(i, i, 0, 'n');
+        }
+        assertEquals(20, table.getOffset(1 << 20));
+        assertEquals(1 << 18, table.getOffset(1 << 18));
+        assertEquals((1 << 20) - (1 << 18) + 3, getNumbers(table).size());
+        assertEquals(Integer.MAX_VALUE, table.lastNumber());
+        table.remove(Integer.MAX_VALUE);
+        assertEquals(1 << 20, table.lastNumber());
+    }
+
+    private static List<Integer> getNumbers(COSXRefEntryTable table) {
+        List<Integer> numbers = new ArrayList<>();
+        for (int number = table.firstNumber(); number != -1; number = table.nextNumber(number)) {
+            numbers.add(number);
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.xref.COSXRefInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class COSXRefTableReaderTest {
+
+    @Test
+    public void testIncrementalSections() {
+        COSXRefInfo first = new COSXRefInfo();
+        first.setStartXRef(100);
+        first.getXRefSection().add(new COSKey(1, 0), 10);
+        first.getXRefSection().add(new COSKey(2, 0), 20);
+        first.getXRefSection().add(new COSKey(3, 0), 30);
+        first.getXRefSection().add(new COSKey(4, 0), -5);
+
+        COSXRefInfo second = new COSXRefInfo();
+        second.setStartXRef(200);
+        // object 2 is deleted, object 3 gets new generation, object 1 is changed
+        second.getXRefSection().add(new COSKey(2, 1), 0, 'f');
+        second.getXRefSection().add(new COSKey(3, 1), 300);
+        second.getXRefSection().add(new COSKey(1, 0), 110);
+
+        List<COSXRefInfo> infos = new ArrayList<>(Arrays.asList(first, second));
+        COSXRefTableReader reader = new COSXRefTableReader(infos);
+
+        assertEquals(Arrays.asList(new COSKey(1, 0), new COSKey(3, 1), new COSKey(4, 0), new COSKey(3, 0)),
+                reader.getKeys());
+        assertEquals(110, reader.getOffset(new COSKey(1, 0)));
+        assertFalse(reader.containsKey(new COSKey(2, 0)));
+        assertEquals(0, reader.getOffset(new COSKey(2, 0)));
+        assertEquals(300, reader.getOffset(new COSKey(3, 1)));
+        assertTrue(reader.containsKey(new COSKey(3, 0)));
+        assertEquals(30, reader.getOffset(new COSKey(3, 0)));
+        assertEquals(-5, reader.getOffset(new COSKey(4, 0)));
+        assertEquals(4, reader.getGreatestKeyNumber());
+        assertEquals(Long.valueOf(200), reader.getStartXRefs().last());
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.pd.PDDocument;
+import org.verapdf.pd.linearization.PDLinearization;
+import org.verapdf.pd.linearization.PageOffsetHintTable;
+import org.verapdf.pd.linearization.SharedObjectHintTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests opening of linearized document by xref section of its first page.
+ */
+public class LinearizedOpenTest {
+
+    // indexes of offsets that are not offsets of objects
+    private static final int OFFSETS = 20;
+    private static final int LENGTH = 15;
+    private static final int PREV = 16;
+    private static final int MAIN_XREF_ENTRIES = 17;
+    private static final int FIRST_PAGE_XREF = 18;
+    private static final int SHARED_OBJECT_HINTS = 19;
+
+    @Test
+    public void testFirstPage() throws IOException {
+        File file = createFile();
+        try {
+            ReaderOptions options = new ReaderOptions();
+            options.setLinearizedFastOpen(true);
+            PDDocument document = new PDDocument(file.getAbsolutePath(), options);
+            try {
+                COSDocument cosDocument = document.getDocument();
+                assertFalse(cosDocument.isXRefLoaded());
+                assertEquals(2, document.getNumberOfPages());
+                assertArrayEquals(new double[]{0, 0, 200, 100}, document.getPage(0).getMediaBox(), 0);
+                assertFalse(cosDocument.isXRefLoaded());
+
+                PDLinearization linearization = cosDocument.getLinearization();
+                assertEquals(Long.valueOf(12), linearization.getFirstPageObjectNumber());
+                assertEquals(Long.valueOf(file.length()), linearization.getFileLength());
+                PageOffsetHintTable pageOffsets = linearization.getPageOffsetHints();
+                assertEquals(2, pageOffsets.getNumberOfPages());
+                assertEquals(4, pageOffsets.getObjectsCount(0));
+                assertEquals(3, pageOffsets.getObjectsCount(1));
+                assertEquals(120, pageOffsets.getPageLength(0));
+                assertEquals(105, pageOffsets.getPageLength(1));
+                assertEquals(0, pageOffsets.getSharedObjects(0).length);
+                assertEquals(1, pageOffsets.getSharedObjects(1)[0]);
+                SharedObjectHintTable sharedObjects = linearization.getSharedObjectHints();
+                assertEquals(1, sharedObjects.getFirstObjectNumber());
+                assertEquals(1, sharedObjects.getFirstPageEntriesCount());
+                assertEquals(2, sharedObjects.getEntriesCount());
+                assertEquals(30, sharedObjects.getGroupLength(0));
+                assertEquals(33, sharedObjects.getGroupLength(1));
+                assertEquals(1, sharedObjects.getObjectsCount(0));
+                assertEquals(2, sharedObjects.getObjectsCount(1));
+                assertFalse(cosDocument.isXRefLoaded());
+
+                // page tree is outside of the first page section
+                assertArrayEquals(new double[]{0, 0, 300, 100}, document.getPage(1).getMediaBox(), 0);
+                assertTrue(cosDocument.isXRefLoaded());
+            } finally {
+                document.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testAllObjects() throws IOException {
+        File file = createFile();
+        try {
+            PDDocument expected = new PDDocument(file.getAbsolutePath());
+            ReaderOptions options = new ReaderOptions();
+            options.setLinearizedFastOpen(true);
+            PDDocument actual = new PDDocument(file.getAbsolutePath(), options);
+            try {
+                assertTrue(expected.getDocument().isLinearized());
+                assertNull(expected.getDocument().getLinearization());
+                assertNotNull(actual.getDocument().getLinearization());
+
+                Map<COSKey, COSObject> expectedObjects = expected.getDocument().getObjectsMap();
+                Map<COSKey, COSObject> actualObjects = actual.getDocument().getObjectsMap();
+                assertEquals(expectedObjects.keySet(), actualObjects.keySet());
+                for (Map.Entry<COSKey, COSObject> entry : expectedObjects.entrySet()) {
+                    assertEquals(entry.getValue().getType(), actualObjects.get(entry.getKey()).getType());
+                }
+                assertEquals(expected.getDocument().getStartXRefs(), actual.getDocument().getStartXRefs());
+                assertEquals(expected.getDocument().getLastKeyNumber(), actual.getDocument().getLastKeyNumber());
+            } finally {
+                expected.close();
+                actual.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static File createFile() throws IOException {
+        File file = File.createTempFile("linearized_open_test", ".pdf");
+        // offsets are written with fixed width, so the second pass puts
+        // offsets found by the first one
+        long[] offsets = new long[OFFSETS];
+        createDocument(offsets);
+        byte[] document = createDocument(offsets);
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(document);
+        }
+        return file;
+    }
+
+    private static byte[] createDocument(long[] offsets) {
+        byte[] hints = createHintStream(offsets);
+        StringBuilder document = new StringBuilder("%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+        offsets[10] = document.length();
+        document.append("10 0 obj\n<< /Linearized 1 /L ").append(format(offsets[LENGTH]))
+                .append(" /H [ ").append(format(offsets[13])).append(' ').append(format(hints.length))
+                .append(" ] /O 12 /E ").append(format(offsets[1])).append(" /N 2 /T ")
+                .append(format(offsets[MAIN_XREF_ENTRIES])).append(" >>\nendobj\n");
+        offsets[FIRST_PAGE_XREF] = document.length();
+        document.append("xref\n10 5\n");
+        for (int i = 10; i < 15; ++i) {
+            document.append(format(offsets[i])).append(" 00000 n\r\n");
+        }
+        document.append("trailer\n<< /Size 15 /Prev ").append(format(offsets[PREV]))
+                .append(" /Root 11 0 R >>\nstartxref\n0\n%%EOF\n");
+        offsets[13] = document.length();
+        document.append("13 0 obj\n<< /S ").append(offsets[SHARED_OBJECT_HINTS]).append(" /Length ")
+                .append(hints.length).append(" >>\nstream\n")
+                .append(new String(hints, StandardCharsets.ISO_8859_1)).append("\nendstream\nendobj\n");
+        appendObject(document, offsets, 11, "<< /Type /Catalog /Pages 1 0 R >>");
+        appendObject(document, offsets, 12, "<< /Type /Page /Parent 1 0 R /MediaBox [0 0 200 100] >>");
+        appendObject(document, offsets, 14, "<< /N 14 >>");
+        appendObject(document, offsets, 1, "<< /Type /Pages /Kids [12 0 R 2 0 R] /Count 2 >>");
+        appendObject(document, offsets, 2, "<< /Type /Page /Parent 1 0 R /MediaBox [0 0 300 100] >>");
+        appendObject(document, offsets, 3, "<< /N 3 >>");
+        offsets[PREV] = document.length();
+        document.append("xref\n0 4");
+        offsets[MAIN_XREF_ENTRIES] = document.length();
+        document.append("\n0000000000 65535 f\r\n");
+        for (int i = 1; i < 4; ++i) {
+            document.append(format(offsets[i])).append(" 00000 n\r\n");
+        }
+        document.append("trailer\n<< /Size 15 >>\nstartxref\n").append(offsets[FIRST_PAGE_XREF]).append("\n%%EOF\n");
+        offsets[LENGTH] = document.length();
+        return document.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void appendObject(StringBuilder document, long[] offsets, int number, String object) {
+        offsets[number] = document.length();
+        document.append(number).append(" 0 obj\n").append(object).append("\nendobj\n");
+    }
+
+    private static String format(long value) {
+        return String.format("%010d", value);
+    }
+
+    private static byte[] createHintStream(long[] offsets) {
+        BitWriter hints = new BitWriter();
+        // page offset hint table header
+        hints.write(3, 32);
+        hints.write(offsets[12], 32);
+        hints.write(2, 16);
+        hints.write(100, 32);
+        hints.write(8, 16);
+        hints.write(0, 32);
+        hints.write(0, 16);
+        hints.write(0, 32);
+        hints.write(0, 16);
+        hints.write(1, 16);
+        hints.write(2, 16);
+        hints.write(0, 16);
+        hints.write(1, 16);
+        // numbers of objects, lengths, numbers of shared objects and shared object identifiers
+        hints.write(1, 2);
+        hints.write(0, 2);
+        hints.flush();
+        hints.write(20, 8);
+        hints.write(5, 8);
+        hints.flush();
+        hints.write(0, 1);
+        hints.write(1, 1);
+        hints.flush();
+        hints.write(1, 2);
+        hints.flush();
+        // shared object hint table header
+        offsets[SHARED_OBJECT_HINTS] = hints.size();
+        hints.write(1, 32);
+        hints.write(offsets[1], 32);
+        hints.write(1, 32);
+        hints.write(2, 32);
+        hints.write(1, 16);
+        hints.write(30, 32);
+        hints.write(4, 16);
+        // group lengths, signature flags and numbers of objects
+        hints.write(0, 4);
+        hints.write(3, 4);
+        hints.flush();
+        hints.write(0, 1);
+        hints.write(0, 1);
+        hints.flush();
+        hints.write(0, 1);
+        hints.write(1, 1);
+        hints.flush();
+        return hints.toByteArray();
+    }
+
+    private static class BitWriter {
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private int current;
+        private int bits;
+
+        void write(long value, int length) {
+            for (int i = length - 1; i >= 0; --i) {
+                this.current = (this.current << 1) | (int) ((value >>> i) & 1);
+                if (++this.bits == 8) {
+                    flush();
+                }
+            }
+        }
+
+        void flush() {
+            if (this.bits > 0) {
+                this.output.write(this.current << (8 - this.bits));
+                this.current = 0;
+                this.bits = 0;
+            }
+        }
+
+        int size() {
+            return this.output.size();
+        }
+
+        byte[] toByteArray() {
+            flush();
+            return this.output.toByteArray();
+        }
+    }
+}
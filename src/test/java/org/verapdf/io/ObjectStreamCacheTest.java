@@ -0,0 +1,104 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSStream;
+import org.verapdf.parser.DecodedObjectStreamParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ObjectStreamCacheTest {
+
+    private static final String HEADER = "1 0 2 4 ";
+    private static final String DATA = "(a) (b)";
+
+    @Test
+    public void testEviction() throws IOException {
+        long size = HEADER.length() + DATA.length();
+        ObjectStreamCache cache = new ObjectStreamCache(2 * size);
+        COSKey first = new COSKey(1, 0);
+        COSKey second = new COSKey(2, 0);
+
+        assertNull(cache.getObject(10, first));
+        assertEquals("a", cache.putAndGetObject(10, createParser(), first).getString());
+        assertEquals("b", cache.putAndGetObject(11, createParser(), second).getString());
+        assertEquals(2 * size, cache.getCachedBytes());
+
+        // stream 11 is the least recently used one now
+        assertEquals("b", cache.getObject(10, second).getString());
+        assertEquals("a", cache.putAndGetObject(12, createParser(), first).getString());
+        assertEquals(2 * size, cache.getCachedBytes());
+        assertNull(cache.getObject(11, first));
+        assertNotNull(cache.getObject(10, first));
+        assertNotNull(cache.getObject(12, first));
+
+        // offsets of evicted stream are kept
+        assertEquals(Long.valueOf(HEADER.length() + 4), cache.getInternalOffsets(11).get(Integer.valueOf(2)));
+
+        cache.clear();
+        assertEquals(0, cache.getCachedBytes());
+        assertNull(cache.getObject(10, first));
+    }
+
+    @Test
+    public void testStreamLargerThanBudget() throws IOException {
+        ObjectStreamCache cache = new ObjectStreamCache(1);
+        COSKey key = new COSKey(1, 0);
+        cache.putAndGetObject(10, createParser(), key);
+        assertNotNull(cache.getObject(10, key));
+        cache.putAndGetObject(11, createParser(), key);
+        assertNull(cache.getObject(10, key));
+        assertNotNull(cache.getObject(11, key));
+    }
+
+    @Test
+    public void testBatchParsing() throws IOException {
+        ObjectStreamCache cache = new ObjectStreamCache(1);
+        Map<COSKey, COSObject> objects = cache.putAndGetObjects(10, createParser());
+        assertEquals(Arrays.asList(new COSKey(1, 0), new COSKey(2, 0)), new ArrayList<>(objects.keySet()));
+        assertEquals("a", objects.get(new COSKey(1, 0)).getString());
+        assertEquals("b", objects.get(new COSKey(2, 0)).getString());
+        assertEquals(new COSKey(2, 0), objects.get(new COSKey(2, 0)).getObjectKey());
+        assertNotNull(cache.getObject(10, new COSKey(1, 0)));
+    }
+
+    private static DecodedObjectStreamParser createParser() throws IOException {
+        COSObject stream = COSStream.construct();
+        stream.setIntegerKey(ASAtom.N, 2);
+        stream.setIntegerKey(ASAtom.FIRST, HEADER.length());
+        byte[] data = (HEADER + DATA).getBytes(StandardCharsets.ISO_8859_1);
+        return new DecodedObjectStreamParser(new ASMemoryInStream(data), (COSStream) stream.getDirectBase(),
+                new COSKey(10, 0), null);
+    }
+}
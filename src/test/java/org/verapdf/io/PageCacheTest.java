@@ -0,0 +1,81 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.as.io.ASInputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reading of InternalInputStream through PageCache.
+ */
+public class PageCacheTest {
+
+    private static final int FILE_LENGTH = 10000;
+
+    @Test
+    public void test() throws IOException {
+        File file = File.createTempFile("page_cache_test", ".bin");
+        try {
+            try (FileOutputStream output = new FileOutputStream(file)) {
+                for (int i = 0; i < FILE_LENGTH; ++i) {
+                    output.write(i % 251);
+                }
+            }
+            PageCache cache = new PageCache(2048, 10);
+            InternalInputStream stream = new InternalInputStream(file.getAbsolutePath(), cache);
+            assertEquals(FILE_LENGTH, stream.getStreamLength());
+            for (int i = 0; i < FILE_LENGTH; ++i) {
+                assertEquals(i % 251, stream.read());
+            }
+            assertEquals(-1, stream.read());
+
+            stream.seek(1000);
+            byte[] buffer = new byte[3000];
+            assertEquals(3000, stream.read(buffer, 3000));
+            for (int i = 0; i < 3000; ++i) {
+                assertEquals((1000 + i) % 251, buffer[i] & 0xFF);
+            }
+            stream.unread(2000);
+            assertEquals(2000 % 251, stream.read());
+
+            ASInputStream substream = stream.getStream(1500, 100);
+            for (int i = 0; i < 100; ++i) {
+                assertEquals((1500 + i) % 251, substream.read());
+            }
+            assertEquals(-1, substream.read());
+            substream.close();
+
+            assertTrue(cache.getHits() > 0);
+            assertTrue(cache.getMisses() > 0);
+            assertTrue(cache.getCachedBytes() <= 2048);
+            stream.close();
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.pd.PDDocument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that objects parsed in parallel are the same as objects parsed one by one.
+ */
+public class ParallelObjectLoaderTest {
+
+    private static final int DIRECT_OBJECTS = 200;
+    private static final int COMPRESSED_OBJECTS = 10;
+
+    @Test
+    public void test() throws IOException {
+        File file = File.createTempFile("parallel_object_loader_test", ".pdf");
+        try {
+            try (FileOutputStream output = new FileOutputStream(file)) {
+                output.write(createDocument());
+            }
+            Map<COSKey, COSObject> expected = getObjects(file, 0);
+            assertEquals(DIRECT_OBJECTS + COMPRESSED_OBJECTS + 5, expected.size());
+            for (int threads = 1; threads <= 4; ++threads) {
+                Map<COSKey, COSObject> actual = getObjects(file, threads);
+                assertEquals(expected.size(), actual.size());
+                for (Map.Entry<COSKey, COSObject> entry : expected.entrySet()) {
+                    assertEquals(entry.getValue().getType(), actual.get(entry.getKey()).getType());
+                    assertEquals(entry.getValue().getIntegerKey(ASAtom.N), actual.get(entry.getKey()).getIntegerKey(ASAtom.N));
+                    assertEquals(entry.getValue().getString(), actual.get(entry.getKey()).getString());
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static Map<COSKey, COSObject> getObjects(File file, int threads) throws IOException {
+        PDDocument document = new PDDocument(file.getAbsolutePath());
+        try {
+            if (threads > 0) {
+                document.getDocument().loadObjects(threads);
+            }
+            return document.getDocument().getObjectsMap();
+        } finally {
+            document.close();
+        }
+    }
+
+    private static byte[] createDocument() {
+        StringBuilder document = new StringBuilder("%PDF-1.5\n");
+        int objectStream = DIRECT_OBJECTS + 4;
+        int xrefStream = objectStream + COMPRESSED_OBJECTS + 1;
+        long[] offsets = new long[xrefStream + 1];
+        String[] objects = new String[objectStream];
+        objects[1] = "<< /Type /Catalog /Pages 2 0 R >>";
+        objects[2] = "<< /Type /Pages /Kids [3 0 R] /Count 1 >>";
+        objects[3] = "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 100 100] >>";
+        for (int i = 4; i < objectStream; ++i) {
+            objects[i] = "<< /N " + i + " /Next " + (i + 1) + " 0 R >>";
+        }
+        for (int i = 1; i < objectStream; ++i) {
+            offsets[i] = document.length();
+            document.append(i).append(" 0 obj\n").append(objects[i]).append("\nendobj\n");
+        }
+
+        StringBuilder header = new StringBuilder();
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < COMPRESSED_OBJECTS; ++i) {
+            header.append(objectStream + 1 + i).append(' ').append(data.length()).append(' ');
+            data.append("(string ").append(i).append(") ");
+        }
+        offsets[objectStream] = document.length();
+        document.append(objectStream).append(" 0 obj\n<< /Type /ObjStm /N ").append(COMPRESSED_OBJECTS)
+                .append(" /First ").append(header.length()).append(" /Length ")
+                .append(header.length() + data.length()).append(" >>\nstream\n")
+                .append(header).append(data).append("\nendstream\nendobj\n");
+
+        offsets[xrefStream] = document.length();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        for (int i = 0; i <= xrefStream; ++i) {
+            boolean compressed = i > objectStream && i < xrefStream;
+            entries.write(i == 0 ? 0 : compressed ? 2 : 1);
+            long value = compressed ? objectStream : offsets[i];
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                entries.write((int) (value >>> shift) & 0xFF);
+            }
+            entries.write(compressed ? i - objectStream - 1 : 0);
+        }
+        document.append(xrefStream).append(" 0 obj\n<< /Type /XRef /Size ").append(xrefStream + 1)
+                .append(" /W [1 4 1] /Root 1 0 R /Length ").append(entries.size()).append(" >>\nstream\n")
+                .append(new String(entries.toByteArray(), StandardCharsets.ISO_8859_1))
+                .append("\nendstream\nendobj\nstartxref\n").append(offsets[xrefStream]).append("\n%%EOF\n");
+        return document.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.cos.COSKey;
+import org.verapdf.pd.PDDocument;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that document index is reused for unchanged file and rebuilt after
+ * the file is updated.
+ */
+public class ReaderIndexTest {
+
+    private static final long OLD_TIME = 1000000000000L;
+
+    @Test
+    public void test() throws IOException {
+        File directory = Files.createTempDirectory("reader_index_test").toFile();
+        File file = new File(directory, "test.pdf");
+        File indexDirectory = new File(directory, "index");
+        try {
+            String document = "%PDF-1.4\n";
+            String[] objects = {
+                    "<< /Type /Catalog /Pages 2 0 R >>",
+                    "<< /Type /Pages /Kids [4 0 R] /Count 1 >>",
+                    "(first)",
+                    "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 100 100] >>"
+            };
+            long[] offsets = new long[objects.length];
+            for (int i = 0; i < objects.length; ++i) {
+                offsets[i] = document.length();
+                document += (i + 1) + " 0 obj\n" + objects[i] + "\nendobj\n";
+            }
+            long startXRef = document.length();
+            document += "xref\n0 " + (objects.length + 1) + "\n0000000000 65535 f\r\n";
+            for (long offset : offsets) {
+                document += String.format("%010d 00000 n\r\n", Long.valueOf(offset));
+            }
+            document += "trailer\n<< /Size 5 /Root 1 0 R >>\nstartxref\n" + startXRef + "\n%%EOF\n";
+            write(file, document, false);
+
+            ReaderOptions options = new ReaderOptions();
+            options.setIndexCacheDirectory(indexDirectory);
+            assertEquals("first", readThirdObject(file, options));
+            File index = ReaderIndex.getIndexFile(indexDirectory, file);
+            assertTrue(index.isFile());
+
+            assertTrue(index.setLastModified(OLD_TIME));
+            assertEquals("first", readThirdObject(file, options));
+            assertEquals(OLD_TIME, index.lastModified());
+
+            long updateOffset = document.length();
+            String update = "3 0 obj\n(second)\nendobj\n";
+            long updateXRef = updateOffset + update.length();
+            update += "xref\n3 1\n" + String.format("%010d 00000 n\r\n", Long.valueOf(updateOffset)) +
+                    "trailer\n<< /Size 5 /Root 1 0 R /Prev " + startXRef + " >>\nstartxref\n" +
+                    updateXRef + "\n%%EOF\n";
+            write(file, update, true);
+            assertEquals("second", readThirdObject(file, options));
+            assertTrue(index.lastModified() != OLD_TIME);
+            assertEquals("second", readThirdObject(file, options));
+        } finally {
+            File[] indexes = indexDirectory.listFiles();
+            if (indexes != null) {
+                for (File index : indexes) {
+                    index.delete();
+                }
+            }
+            indexDirectory.delete();
+            file.delete();
+            directory.delete();
+        }
+    }
+
+    private static void write(File file, String data, boolean append) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file, append)) {
+            output.write(data.getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private static String readThirdObject(File file, ReaderOptions options) throws IOException {
+        PDDocument document = new PDDocument(file.getAbsolutePath(), options);
+        try {
+            COSDocument cosDocument = document.getDocument();
+            assertEquals(ASAtom.CATALOG, cosDocument.getTrailer().getRoot().getNameKey(ASAtom.TYPE));
+            return cosDocument.getObject(new COSKey(3, 0)).getString();
+        } finally {
+            document.close();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.pd.PDDocument;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reading of incrementally updated document as of its revisions.
+ */
+public class RevisionReaderTest {
+
+    @Test
+    public void testOpenAsOfRevision() throws IOException {
+        File file = createFile();
+        try {
+            PDDocument original = openRevision(file, 0);
+            PDDocument updated = openRevision(file, 1);
+            PDDocument latest = openRevision(file, ReaderOptions.LATEST_REVISION);
+            try {
+                assertEquals(3, latest.getRevisionsCount());
+                assertFalse(latest.getDocument().isXRefLoaded());
+                assertArrayEquals(new double[]{0, 0, 100, 100}, original.getPage(0).getMediaBox(), 0);
+                assertArrayEquals(new double[]{0, 0, 200, 200}, updated.getPage(0).getMediaBox(), 0);
+                assertArrayEquals(new double[]{0, 0, 200, 200}, latest.getPage(0).getMediaBox(), 0);
+
+                assertEquals(keys("1 0", "2 0", "3 0", "4 0", "5 0"), keys(original.getDocument()));
+                assertEquals(keys("1 0", "2 0", "3 0", "4 0", "6 0"), keys(updated.getDocument()));
+                assertEquals(keys("1 0", "2 0", "3 0", "4 0", "5 1", "6 0"), keys(latest.getDocument()));
+                assertTrue(latest.getDocument().isXRefLoaded());
+                assertEquals(1, original.getDocument().getStartXRefs().size());
+                assertEquals(3, latest.getDocument().getStartXRefs().size());
+            } finally {
+                original.close();
+                updated.close();
+                latest.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLatestRevision() throws IOException {
+        File file = createFile();
+        try {
+            PDDocument expected = new PDDocument(file.getAbsolutePath());
+            PDDocument actual = openRevision(file, ReaderOptions.LATEST_REVISION);
+            try {
+                Map<COSKey, COSObject> expectedObjects = expected.getDocument().getObjectsMap();
+                Map<COSKey, COSObject> actualObjects = actual.getDocument().getObjectsMap();
+                assertEquals(expectedObjects.keySet(), actualObjects.keySet());
+                for (Map.Entry<COSKey, COSObject> entry : expectedObjects.entrySet()) {
+                    assertEquals(entry.getValue().getType(), actualObjects.get(entry.getKey()).getType());
+                }
+                assertEquals(expected.getDocument().getStartXRefs(), actual.getDocument().getStartXRefs());
+                assertEquals(expected.getDocument().getLastKeyNumber(), actual.getDocument().getLastKeyNumber());
+                assertEquals(expected.getDocument().getTrailer().getSize(), actual.getDocument().getTrailer().getSize());
+            } finally {
+                expected.close();
+                actual.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRevisionViews() throws IOException {
+        File file = createFile();
+        try {
+            PDDocument document = new PDDocument(file.getAbsolutePath());
+            try {
+                assertEquals(3, document.getRevisionsCount());
+                PDDocument original = document.getRevision(0);
+                PDDocument updated = document.getRevision(1);
+                COSDocument originalDocument = original.getDocument();
+                COSDocument updatedDocument = updated.getDocument();
+                assertArrayEquals(new double[]{0, 0, 100, 100}, original.getPage(0).getMediaBox(), 0);
+                assertArrayEquals(new double[]{0, 0, 200, 200}, updated.getPage(0).getMediaBox(), 0);
+
+                // content stream is the same in both revisions and has no references
+                COSKey contents = new COSKey(4, 0);
+                assertSame(originalDocument.getObject(contents), updatedDocument.getObject(contents));
+                // pages tree refers to page that differs
+                COSKey pages = new COSKey(2, 0);
+                assertNotSame(originalDocument.getObject(pages), updatedDocument.getObject(pages));
+                assertEquals(Long.valueOf(4), originalDocument.getObject(new COSKey(5, 0)).getIntegerKey(ASAtom.N));
+                assertTrue(updatedDocument.getObject(new COSKey(5, 0)).empty());
+
+                original.close();
+                updated.close();
+                assertEquals("rev0", readStream(document.getDocument().getObject(contents)));
+                assertArrayEquals(new double[]{0, 0, 200, 200}, document.getPage(0).getMediaBox(), 0);
+            } finally {
+                document.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static PDDocument openRevision(File file, int revision) throws IOException {
+        ReaderOptions options = new ReaderOptions();
+        options.setRevisionAware(true);
+        options.setRevision(revision);
+        return new PDDocument(file.getAbsolutePath(), options);
+    }
+
+    private static HashSet<COSKey> keys(COSDocument document) {
+        return new HashSet<>(document.getObjectsMap().keySet());
+    }
+
+    private static HashSet<COSKey> keys(String... keys) {
+        HashSet<COSKey> result = new HashSet<>();
+        for (String key : keys) {
+            String[] parts = key.split(" ");
+            result.add(new COSKey(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])));
+        }
+        return result;
+    }
+
+    private static String readStream(COSObject stream) throws IOException {
+        byte[] buffer = new byte[16];
+        try (ASInputStream data = stream.getData()) {
+            int length = data.read(buffer, buffer.length);
+            return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    // original document is updated twice: the first update changes the page,
+    // frees object 5 and adds object 6, the second one reuses number 5
+    private static File createFile() throws IOException {
+        long[] offsets = new long[7];
+        StringBuilder document = new StringBuilder("%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+        appendObject(document, offsets, 1, 0, "<< /Type /Catalog /Pages 2 0 R >>");
+        appendObject(document, offsets, 2, 0, "<< /Type /Pages /Kids [3 0 R] /Count 1 >>");
+        appendObject(document, offsets, 3, 0,
+                "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 100 100] /Contents 4 0 R >>");
+        appendObject(document, offsets, 4, 0, "<< /Length 4 >>\nstream\nrev0\nendstream");
+        appendObject(document, offsets, 5, 0, "<< /N 4 >>");
+        long original = document.length();
+        document.append("xref\n0 6\n0000000000 65535 f\r\n");
+        for (int i = 1; i < 6; ++i) {
+            document.append(format(offsets[i])).append(" 00000 n\r\n");
+        }
+        document.append("trailer\n<< /Size 6 /Root 1 0 R >>\nstartxref\n").append(original).append("\n%%EOF\n");
+
+        appendObject(document, offsets, 3, 0,
+                "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 200 200] /Contents 4 0 R >>");
+        appendObject(document, offsets, 6, 0, "<< /N 6 >>");
+        long updated = document.length();
+        document.append("xref\n0 1\n0000000005 65535 f\r\n3 1\n").append(format(offsets[3]))
+                .append(" 00000 n\r\n5 2\n0000000000 00001 f\r\n").append(format(offsets[6]))
+                .append(" 00000 n\r\ntrailer\n<< /Size 7 /Root 1 0 R /Prev ").append(original)
+                .append(" >>\nstartxref\n").append(updated).append("\n%%EOF\n");
+
+        appendObject(document, offsets, 5, 1, "<< /N 5 >>");
+        long latest = document.length();
+        document.append("xref\n5 1\n").append(format(offsets[5])).append(" 00001 n\r\ntrailer\n<< /Size 7 /Root 1 0 R /Prev ")
+                .append(updated).append(" >>\nstartxref\n").append(latest).append("\n%%EOF\n");
+
+        File file = File.createTempFile("revision_reader_test", ".pdf");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(document.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return file;
+    }
+
+    private static void appendObject(StringBuilder document, long[] offsets, int number, int generation,
+                                     String object) {
+        offsets[number] = document.length();
+        document.append(number).append(' ').append(generation).append(" obj\n").append(object).append("\nendobj\n");
+    }
+
+    private static String format(long value) {
+        return String.format("%010d", value);
+    }
+}
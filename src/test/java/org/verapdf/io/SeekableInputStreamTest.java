@@ -21,13 +21,18 @@
 package org.verapdf.io;
 
 import org.junit.Test;
+import org.verapdf.as.io.ASInputStream;
 import org.verapdf.as.io.ASMemoryInStream;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Tests correct creation of InternalInputStream and ASMemoryInStream.
@@ -38,18 +43,123 @@ public class SeekableInputStreamTest {
 
     @Test
     public void test() throws IOException {
-        byte[] one = new byte[10];
-        byte[] two = new byte[10239];
-        byte[] three = new byte[15000];
-        InputStream streamOne = new ByteArrayInputStream(one);
-        InputStream streamTwo = new ByteArrayInputStream(two);
-        InputStream streamThree = new ByteArrayInputStream(three);
-        SeekableInputStream ssOne = SeekableInputStream.getSeekableStream(streamOne);
-        SeekableInputStream ssTwo = SeekableInputStream.getSeekableStream(streamTwo);
-        SeekableInputStream ssThree = SeekableInputStream.getSeekableStream(streamThree);
-        assertTrue(ssOne instanceof ASMemoryInStream);
-        assertTrue(ssTwo instanceof ASMemoryInStream);
-        assertTrue(ssThree instanceof InternalInputStream);
+        int threshold = SeekableInputStream.getInMemoryThreshold();
+        SeekableInputStream.setInMemoryThreshold(10240);
+        try {
+            byte[] one = new byte[10];
+            byte[] two = new byte[10239];
+            byte[] three = new byte[15000];
+            InputStream streamOne = new ByteArrayInputStream(one);
+            InputStream streamTwo = new ByteArrayInputStream(two);
+            InputStream streamThree = new ByteArrayInputStream(three);
+            SeekableInputStream ssOne = SeekableInputStream.getSeekableStream(streamOne);
+            SeekableInputStream ssTwo = SeekableInputStream.getSeekableStream(streamTwo);
+            SeekableInputStream ssThree = SeekableInputStream.getSeekableStream(streamThree);
+            assertTrue(ssOne instanceof ASMemoryInStream);
+            assertTrue(ssTwo instanceof ASMemoryInStream);
+            assertTrue(ssThree instanceof InternalInputStream);
+            assertEquals(15000, ssThree.getStreamLength());
+            ssOne.close();
+            ssTwo.close();
+            ssThree.close();
+        } finally {
+            SeekableInputStream.setInMemoryThreshold(threshold);
+        }
     }
 
+    @Test
+    public void testMemoryBudget() throws IOException {
+        MemoryBudget budget = SeekableInputStream.getMemoryBudget();
+        MemoryBudget testBudget = new MemoryBudget(30000);
+        SeekableInputStream.setMemoryBudget(testBudget);
+        try {
+            byte[] data = new byte[15000];
+            data[14999] = 42;
+            SeekableInputStream ssOne = SeekableInputStream.getSeekableStream(new ByteArrayInputStream(data));
+            assertTrue(ssOne instanceof ASMemoryInStream);
+            assertEquals(15000, ssOne.getStreamLength());
+            ssOne.seek(14999);
+            assertEquals(42, ssOne.read());
+            assertTrue(testBudget.getUsed() > 0);
+
+            SeekableInputStream ssTwo = SeekableInputStream.getSeekableStream(new ByteArrayInputStream(data));
+            assertTrue(ssTwo instanceof InternalInputStream);
+            assertEquals(15000, ssTwo.getStreamLength());
+            ssTwo.seek(14999);
+            assertEquals(42, ssTwo.read());
+            ssTwo.close();
+
+            ssOne.close();
+            assertEquals(0, testBudget.getUsed());
+        } finally {
+            SeekableInputStream.setMemoryBudget(budget);
+        }
+    }
+
+    @Test
+    public void testMemoryBudgetFloorAndReadError() throws IOException {
+        MemoryBudget budget = SeekableInputStream.getMemoryBudget();
+        MemoryBudget testBudget = new MemoryBudget(30000);
+        SeekableInputStream.setMemoryBudget(testBudget);
+        try {
+            byte[] small = new byte[SeekableInputStream.UNCHARGED_IN_MEMORY_SIZE];
+            SeekableInputStream ssSmall = SeekableInputStream.getSeekableStream(new ByteArrayInputStream(small));
+            assertTrue(ssSmall instanceof ASMemoryInStream);
+            assertEquals(0, testBudget.getUsed());
+
+            InputStream failing = new InputStream() {
+                private int read = 0;
+
+                @Override
+                public int read() throws IOException {
+                    if (this.read++ >= 15000) {
+                        throw new IOException("read error");
+                    }
+                    return 0;
+                }
+            };
+            try {
+                SeekableInputStream.getSeekableStream(failing);
+                fail("Read error is not propagated");
+            } catch (IOException e) {
+                assertEquals(0, testBudget.getUsed());
+            }
+            ssSmall.close();
+        } finally {
+            SeekableInputStream.setMemoryBudget(budget);
+        }
+    }
+
+    @Test
+    public void testNestedSubstreamOffsets() throws IOException {
+        byte[] data = new byte[256];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) i;
+        }
+        File file = File.createTempFile("substreams", ".bin");
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(data);
+            }
+            SeekableInputStream internal = new InternalInputStream(file, 1, false);
+            SeekableInputStream mapped = new MappedInputStream(file);
+            try {
+                assertEquals(150, readNested(internal));
+                assertEquals(150, readNested(mapped));
+            } finally {
+                internal.close();
+                mapped.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static int readNested(SeekableInputStream stream) throws IOException {
+        try (ASInputStream outer = stream.getStream(100, 100)) {
+            try (ASInputStream inner = ((SeekableInputStream) outer).getStream(150, 10)) {
+                return inner.read();
+            }
+        }
+    }
 }
@@ -0,0 +1,86 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.pd.PDDocument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class COSParserTest {
+
+    @Test
+    public void testEndstreamRecovery() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 20000; ++i) {
+            data.append("e endstrea xendstreamx ");
+        }
+        assertEquals(Long.valueOf(data.length()), getRealStreamSize(data + "\r\nendstream endobj"));
+        assertEquals(Long.valueOf(data.length()), getRealStreamSize(data + "\rendstream"));
+        assertEquals(Long.valueOf(data.length() + 1), getRealStreamSize(data + "xendstream%comment"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingEndstream() throws IOException {
+        getRealStreamSize("e endstreamx endstrea");
+    }
+
+    @Test
+    public void testLazyParsing() throws IOException {
+        String source = "<< /A [1 2 << /B (x) /C [3 4 5.5] >> [] 6 7] /D << /E 8 /F [/G null] >> /H 10 >>";
+        assertEquals(parse(source, false).get(), parse(source, true).get());
+
+        COSObject lazy = parse("<< /A [1 2 0 R [] 3 4 5 R] /B << /C 6 7 R >> >>", true);
+        COSObject array = lazy.getKey(ASAtom.getASAtom("A"));
+        assertEquals(5, array.size().intValue());
+        assertEquals(new COSKey(2, 0), array.at(1).getKey());
+        assertEquals(0, array.at(2).size().intValue());
+        assertEquals(new COSKey(4, 5), array.at(4).getKey());
+        assertEquals(new COSKey(6, 7), lazy.getKey(ASAtom.getASAtom("B")).getKey(ASAtom.getASAtom("C")).getKey());
+    }
+
+    @Test(expected = IOException.class)
+    public void testLazyParsingOfInvalidArray() throws IOException {
+        parse("<< /A [1 R] >>", true);
+    }
+
+    private static COSObject parse(String source, boolean lazy) throws IOException {
+        COSParser parser = new COSParser(new ASMemoryInStream(source.getBytes(StandardCharsets.ISO_8859_1)));
+        parser.setLazyParsing(lazy);
+        return parser.nextObject();
+    }
+
+    private static Long getRealStreamSize(String streamData) throws IOException {
+        byte[] source = ("<</Length 5>>stream\n" + streamData).getBytes(StandardCharsets.ISO_8859_1);
+        COSParser parser = new COSParser(new ASMemoryInStream(source));
+        parser.document = new COSDocument((PDDocument) null);
+        COSObject stream = parser.nextObject();
+        return stream.getRealStreamSize();
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObjType;
+import org.verapdf.cos.COSObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntegerLookaheadTest {
+
+    @Test
+    public void testRingBuffer() {
+        IntegerLookahead lookahead = new IntegerLookahead();
+        for (int i = 0; i < 10; ++i) {
+            lookahead.add(i);
+            lookahead.add(i + 1);
+            lookahead.add(i + 2);
+            assertEquals(3, lookahead.size());
+            assertEquals(i, lookahead.removeFirst());
+            lookahead.flush();
+            assertTrue(lookahead.isFlushed());
+            assertEquals(i + 1, lookahead.removeFirst());
+            assertEquals(i + 2, lookahead.removeFirst());
+            assertTrue(lookahead.isEmpty());
+            assertFalse(lookahead.isFlushed());
+        }
+    }
+
+    @Test
+    public void testIndirectReferences() throws IOException {
+        byte[] source = "[1 2 3 4 R 5 6 /Name 7 0 R]".getBytes(StandardCharsets.ISO_8859_1);
+        COSObject array = new COSParser(new ASMemoryInStream(source)).nextObject();
+        assertEquals(7, array.size().intValue());
+        assertEquals(Long.valueOf(1), array.at(0).getInteger());
+        assertEquals(Long.valueOf(2), array.at(1).getInteger());
+        assertEquals(new COSKey(3, 4), array.at(2).getKey());
+        assertEquals(Long.valueOf(5), array.at(3).getInteger());
+        assertEquals(Long.valueOf(6), array.at(4).getInteger());
+        assertEquals(COSObjType.COS_NAME, array.at(5).getType());
+        assertEquals(new COSKey(7, 0), array.at(6).getKey());
+    }
+}
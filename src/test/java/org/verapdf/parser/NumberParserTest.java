@@ -0,0 +1,99 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that NumberParser gives the same values as Long.valueOf and
+ * Double.valueOf.
+ */
+public class NumberParserTest {
+
+    @Test
+    public void testInvalidNumbers() {
+        assertFalse(parse("").isValidInteger());
+        assertFalse(parse(".").isValidReal());
+        assertFalse(parse("1.2.3").isValidReal());
+        assertFalse(parse("9223372036854775808").isValidInteger());
+        assertTrue(parse("9223372036854775807").isValidInteger());
+        assertTrue(parse("1.").isValidReal());
+        assertTrue(parse(".5").isValidReal());
+    }
+
+    @Test
+    public void testValues() {
+        Random random = new Random(42);
+        String[] fixed = {"0", "007", "1.", ".5", "0.1", "3.14159", "123456789012345678",
+                "0.000000000000000000000000001", "12345678901234567890123.5",
+                "9007199254740993.0", "1.7976931348623157", "9223372036854775807"};
+        for (String number : fixed) {
+            check(number);
+        }
+        for (int i = 0; i < 10000; ++i) {
+            StringBuilder builder = new StringBuilder();
+            int length = 1 + random.nextInt(25);
+            int point = random.nextInt(length + 3) - 1;
+            for (int j = 0; j < length; ++j) {
+                if (j == point) {
+                    builder.append('.');
+                }
+                builder.append((char) ('0' + random.nextInt(10)));
+            }
+            check(builder.toString());
+        }
+    }
+
+    private static void check(String number) {
+        NumberParser parser = parse(number);
+        if (number.indexOf('.') < 0) {
+            assertTrue(number, parser.isValidInteger() || number.length() > 18);
+            if (parser.isValidInteger()) {
+                assertEquals(number, Long.valueOf(number), Long.valueOf(parser.getInteger()));
+            }
+        } else {
+            Token token = new Token();
+            token.setByteValue(number.getBytes());
+            assertTrue(number, parser.isValidReal());
+            assertEquals(number, Double.valueOf(number), Double.valueOf(parser.getReal(token)));
+        }
+    }
+
+    private static NumberParser parse(String number) {
+        NumberParser parser = new NumberParser();
+        parser.reset();
+        for (int i = 0; i < number.length(); ++i) {
+            char c = number.charAt(i);
+            if (c == '.') {
+                parser.appendPoint();
+            } else {
+                parser.appendDigit(c - '0');
+            }
+        }
+        return parser;
+    }
+}
@@ -23,9 +23,14 @@ package org.verapdf.parser;
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.verapdf.cos.COSDocument;
 import org.verapdf.cos.xref.COSXRefEntry;
 import org.verapdf.cos.xref.COSXRefSection;
+import org.verapdf.pd.PDDocument;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * @author Maxim Plushchov
@@ -47,4 +52,69 @@ public class PDFParserTest {
         }
     }
 
+    @Test
+    public void testFixedWidthXrefEntries() throws IOException {
+        StringBuilder xref = new StringBuilder("\n1 1300\n0000000000 65535 f\r\n");
+        for (int i = 1; i < 1300; ++i) {
+            if (i == 700) {
+                // malformed entries are tokenized
+                xref.append("0000001700 00000 n\n");
+            } else if (i == 1100) {
+                xref.append("2100 0 n \n");
+            } else {
+                xref.append(String.format("%010d %05d %s \n", 1000 + i, i % 3, i % 5 == 0 ? "f" : "n"));
+            }
+        }
+        xref.append("2000 2\n0000003000 00002 n\r\n0000003001 00000 n \r\ntrailer\n<<>>\n");
+        PDFParser pdfParser = new PDFParser(new ByteArrayInputStream(xref.toString().getBytes(StandardCharsets.ISO_8859_1)));
+        COSXRefSection section = new COSXRefSection();
+        pdfParser.initializeToken();
+        pdfParser.parseXrefTable(section);
+
+        Assert.assertEquals(COSXRefEntry.FIRST_XREF_ENTRY, section.getEntry(0));
+        Assert.assertEquals(new COSXRefEntry(1001, 1, 'n'), section.getEntry(1));
+        Assert.assertEquals(new COSXRefEntry(1005, 2, 'f'), section.getEntry(5));
+        Assert.assertEquals(new COSXRefEntry(1700, 0, 'n'), section.getEntry(700));
+        Assert.assertEquals(new COSXRefEntry(1701, 2, 'n'), section.getEntry(701));
+        Assert.assertEquals(new COSXRefEntry(2100, 0, 'n'), section.getEntry(1100));
+        Assert.assertEquals(new COSXRefEntry(2299, 0, 'n'), section.getEntry(1299));
+        Assert.assertNull(section.getEntry(1300));
+        Assert.assertEquals(new COSXRefEntry(3000, 2, 'n'), section.getEntry(2000));
+        Assert.assertEquals(new COSXRefEntry(3001, 0, 'n'), section.getEntry(2001));
+
+        pdfParser.nextToken();
+        Assert.assertEquals("trailer", pdfParser.getToken().getValue());
+    }
+
+    @Test
+    public void testIndirectReferencesOfLazyValues() throws IOException {
+        String objects = "%PDF-1.4\n1 0 obj\n<< /A [1 2 3] /B << /C [(x) 2 0 R] >> >>\nendobj\n" +
+                "2 0 obj\n<< /A [1 2 3] /B << /C [(x) 2 0] >> >>\nendobj\n";
+        PDFParser pdfParser = new PDFParser(new ByteArrayInputStream(objects.getBytes(StandardCharsets.ISO_8859_1)));
+        pdfParser.document = new COSDocument((PDDocument) null);
+        pdfParser.setLazyParsing(true);
+        pdfParser.initializeToken();
+        pdfParser.getObject(objects.indexOf("1 0 obj"));
+        Assert.assertTrue(pdfParser.hasIndirectReferences());
+        pdfParser.getObject(objects.indexOf("2 0 obj"));
+        Assert.assertFalse(pdfParser.hasIndirectReferences());
+    }
+
+    @Test
+    public void testInvalidXrefSubsectionHeader() throws IOException {
+        String[] headers = {"\n0 -1\n", "\n0 4294967296\n", "\n2147483000 1000\n"};
+        for (String header : headers) {
+            PDFParser pdfParser = new PDFParser(new ByteArrayInputStream(
+                    (header + "0000000000 65535 f\r\ntrailer\n<<>>\n").getBytes(StandardCharsets.ISO_8859_1)));
+            pdfParser.document = new COSDocument((PDDocument) null);
+            pdfParser.initializeToken();
+            try {
+                pdfParser.parseXrefTable(new COSXRefSection());
+                Assert.fail("Subsection header " + header.trim() + " is accepted");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
 }
@@ -0,0 +1,167 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObjType;
+import org.verapdf.cos.COSObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingPDFParserTest {
+
+    private static final String DOCUMENT = "%PDF-1.7\n%\u00e2\u00e3\u00cf\u00d3\n" +
+            "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n" +
+            "2 0 obj\n<< /Type /Pages /Kids [] /Count 0 >>\nendobj\n" +
+            "4 0 obj\n<< /Length 5 0 R >>\nstream\r\nq endstreamx\r\nQ\nendstream\nendobj\n" +
+            "5 0 obj\n21\nendobj\n" +
+            "6 0 obj << /Length 4 >> stream\nBT\r\n\r\nendstream endobj\n" +
+            "xref\n0 1\n0000000000 65535 f \ntrailer\n<< /Size 7 /Root 1 0 R >>\nstartxref\n0\n%%EOF\n" +
+            "1 0 obj\n<< /Type /Catalog /Pages 2 0 R /Lang (en) >>\nendobj\n" +
+            "trailer << /Size 7 /Root 1 0 R /Prev 0 >>\nstartxref\n0\n%%EOF\n";
+
+    @Test
+    public void testParseInChunks() throws IOException {
+        byte[] bytes = DOCUMENT.getBytes(StandardCharsets.ISO_8859_1);
+        for (int chunkSize = 1; chunkSize <= 64; chunkSize *= 4) {
+            final List<COSKey> keys = new ArrayList<>();
+            final List<COSObject> trailers = new ArrayList<>();
+            StreamingPDFParser parser = new StreamingPDFParser(new ChunkedInputStream(bytes, chunkSize));
+            parser.parse(new StreamingPDFParser.IObjectHandler() {
+                @Override
+                public boolean object(COSKey key, long offset, COSObject object) {
+                    keys.add(key);
+                    return object.getType() == COSObjType.COS_STREAM;
+                }
+
+                @Override
+                public void trailer(long offset, COSObject trailer) {
+                    trailers.add(trailer);
+                }
+            });
+            parser.close();
+
+            assertEquals(6, keys.size());
+            assertEquals(new COSKey(1, 0), keys.get(5));
+            assertEquals(5, parser.getOffsets().size());
+            assertEquals(Long.valueOf(DOCUMENT.lastIndexOf("1 0 obj")), parser.getOffsets().get(new COSKey(1, 0)));
+            assertEquals(Long.valueOf(DOCUMENT.indexOf("4 0 obj")), parser.getOffsets().get(new COSKey(4, 0)));
+            assertEquals(Long.valueOf(DOCUMENT.indexOf("6 0 obj")), parser.getOffsets().get(new COSKey(6, 0)));
+            assertEquals(Long.valueOf(DOCUMENT.indexOf("trailer\n")), parser.getTrailerOffsets().get(0));
+            assertEquals(2, trailers.size());
+            assertEquals(Long.valueOf(7), trailers.get(0).getIntegerKey(ASAtom.SIZE));
+
+            assertEquals(2, parser.getRetainedObjects().size());
+            assertNull(parser.getRetainedObjects().get(new COSKey(1, 0)));
+            COSObject stream = parser.getRetainedObjects().get(new COSKey(4, 0));
+            assertEquals("q endstreamx\r\nQ", read(stream));
+            assertEquals(15, stream.getRealStreamSize().longValue());
+            assertTrue(stream.isStreamKeywordCRLFCompliant());
+            COSObject direct = parser.getRetainedObjects().get(new COSKey(6, 0));
+            assertEquals("BT\r\n", read(direct));
+            assertEquals(4, direct.getRealStreamSize().longValue());
+            assertTrue(direct.isEndstreamKeywordCRLFCompliant());
+        }
+    }
+
+    @Test
+    public void testStreamLengths() throws IOException {
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < 3000; ++i) {
+            padding.append((char) ('a' + i % 26));
+        }
+        String document = "%PDF-1.7\n" +
+                "7 0 obj << /Length 20 >> stream\nabc endstream endobj\nendstream\nendobj\n" +
+                "8 0 obj << /Length 3010 >> stream\n0123456789\nendstream\nendobj\n" +
+                "9 0 obj (" + padding + ")\nendobj\n" +
+                "10 0 obj << /Length 2 >> stream\r\n0123456789\r\nendstream\nendobj\n" +
+                "11 0 obj\n<< /Length 2 >>\nstream\nxy\nendstream\nendobj\n";
+        byte[] bytes = document.getBytes(StandardCharsets.ISO_8859_1);
+        for (int chunkSize = 1; chunkSize <= 4096; chunkSize *= 8) {
+            StreamingPDFParser parser = new StreamingPDFParser(new ChunkedInputStream(bytes, chunkSize));
+            parser.parse(new StreamingPDFParser.IObjectHandler() {
+                @Override
+                public boolean object(COSKey key, long offset, COSObject object) {
+                    return true;
+                }
+
+                @Override
+                public void trailer(long offset, COSObject trailer) {
+                }
+            });
+            parser.close();
+
+            for (int number = 7; number <= 11; ++number) {
+                assertEquals(Long.valueOf(document.indexOf(number + " 0 obj")),
+                        parser.getOffsets().get(new COSKey(number, 0)));
+            }
+            // data of stream with valid length contains endstream keyword
+            assertEquals("abc endstream endobj", read(parser.getRetainedObjects().get(new COSKey(7, 0))));
+            // wrong lengths are replaced with the first endstream keyword
+            assertEquals("0123456789", read(parser.getRetainedObjects().get(new COSKey(8, 0))));
+            assertEquals(padding.toString(), parser.getRetainedObjects().get(new COSKey(9, 0)).getString());
+            assertEquals("0123456789", read(parser.getRetainedObjects().get(new COSKey(10, 0))));
+            assertEquals("xy", read(parser.getRetainedObjects().get(new COSKey(11, 0))));
+        }
+    }
+
+    private static String read(COSObject stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ASInputStream data = stream.getData()) {
+            byte[] buffer = new byte[16];
+            int read;
+            while ((read = data.read(buffer, buffer.length)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns data in small portions, as pipes do.
+     */
+    private static class ChunkedInputStream extends ByteArrayInputStream {
+
+        private final int chunkSize;
+
+        ChunkedInputStream(byte[] bytes, int chunkSize) {
+            super(bytes);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, this.chunkSize));
+        }
+    }
+}
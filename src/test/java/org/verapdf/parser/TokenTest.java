@@ -0,0 +1,70 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests keyword recognition and value accessors of Token.
+ */
+public class TokenTest {
+
+    private static final String[] WORDS = {"null", "true", "false", "stream", "endstream",
+            "obj", "endobj", "R", "n", "f", "xref", "startxref", "trailer",
+            "nul", "nulL", "R1", "r", "endstreams", "startxrea", "trailers", "e", "x", "Tf", ""};
+
+    @Test
+    public void testKeywords() {
+        Token token = new Token();
+        for (String word : WORDS) {
+            token.clearValue();
+            for (byte b : word.getBytes(StandardCharsets.ISO_8859_1)) {
+                token.append(b);
+            }
+            token.toKeyword();
+            assertEquals(word, Token.getKeyword(word), token.keyword);
+        }
+    }
+
+    @Test
+    public void testValue() {
+        Token token = new Token();
+        for (int i = 0; i < 200; ++i) {
+            token.append('a' + i % 26);
+        }
+        assertEquals(200, token.getSize());
+        assertEquals('c', token.getByte(2));
+        assertEquals(200, token.getByteValue().length);
+        token.clearValue();
+        token.setByteValue("endobj".getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals("endobj", token.getValue());
+        assertTrue(token.valueEquals("endobj".getBytes(StandardCharsets.ISO_8859_1)));
+        token.clearValue();
+        token.toKeyword();
+        assertNull(token.keyword);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.io.ASMemoryInStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class XRefScannerTest {
+
+    private static final String DOCUMENT = "%PDF-1.5\n" +
+            "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n" +
+            "2 0 obj<</Type/Pages/Kids[]/Count 0>>endobj\r\n" +
+            "x3 0 obj 4 obj endobj 12  7\tobj\n(trailers)\nendobj\n" +
+            "10 0 obj\n<< /Type /ObjStm /N 0 /First 0 /Length 0 >>\nstream\n\nendstream\nendobj\n" +
+            "trailer\n<< /Root 1 0 R >>\n" +
+            "1 1 obj";
+
+    @Test
+    public void testScanInChunks() throws IOException {
+        for (int chunkSize = 1; chunkSize <= DOCUMENT.length(); ++chunkSize) {
+            XRefScanner scanner = scan(chunkSize);
+            assertEquals(5, scanner.getObjectsNumber());
+            assertEquals(DOCUMENT.indexOf("1 0 obj"), scanner.getObjectOffset(0));
+            assertEquals(DOCUMENT.indexOf("12  7"), scanner.getObjectOffset(2));
+            assertEquals(12, scanner.getObjectNumber(2));
+            assertEquals(7, scanner.getObjectGeneration(2));
+            assertEquals(1, scanner.getObjectNumber(4));
+            assertEquals(1, scanner.getObjectGeneration(4));
+            assertEquals(Arrays.asList(Long.valueOf(DOCUMENT.indexOf("trailer\n"))), scanner.getTrailerOffsets());
+            assertEquals(Arrays.asList(Integer.valueOf(0)), scanner.getNamedObjects(XRefScanner.CATALOG));
+            assertEquals(Arrays.asList(Integer.valueOf(3)), scanner.getNamedObjects(XRefScanner.OBJECT_STREAM));
+            assertEquals(0, scanner.getNamedObjects(XRefScanner.XREF_STREAM).size());
+        }
+    }
+
+    private static XRefScanner scan(int chunkSize) throws IOException {
+        XRefScanner scanner = new XRefScanner(
+                new ASMemoryInStream(DOCUMENT.getBytes(StandardCharsets.ISO_8859_1)), chunkSize);
+        scanner.scan();
+        return scanner;
+    }
+}
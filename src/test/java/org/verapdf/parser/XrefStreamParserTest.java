@@ -0,0 +1,96 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.cos.COSArray;
+import org.verapdf.cos.COSInteger;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSStream;
+import org.verapdf.cos.xref.COSXRefEntry;
+import org.verapdf.cos.xref.COSXRefEntryTable;
+import org.verapdf.cos.xref.COSXRefInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class XrefStreamParserTest {
+
+    @Test
+    public void testSubsections() throws IOException {
+        // entries cross boundaries of stream reads
+        int first = 1000;
+        int count = 1000;
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (int i = 0; i < count; ++i) {
+            writeEntry(data, 1, 0x80000000L + i, 1, 5);
+        }
+        writeEntry(data, 2, 7, 3, 5);
+        writeEntry(data, 0, 0, 0, 5);
+        // entries without object numbers are ignored
+        writeEntry(data, 1, 5, 0, 5);
+
+        COSXRefInfo info = parse(data.toByteArray(), new long[]{first, count, 5, 0, 20, 2}, 5);
+        COSXRefEntryTable entries = info.getXRefSection().getEntries();
+        assertEquals(count + 2, entries.size());
+        assertEquals(new COSXRefEntry(0x80000000L, 1), entries.getEntry(first));
+        assertEquals(new COSXRefEntry(0x80000000L + count - 1, 1), entries.getEntry(first + count - 1));
+        assertEquals(new COSXRefEntry(-7, 0), entries.getEntry(20));
+        assertFalse(entries.contains(21));
+        assertEquals(Long.valueOf(5000), Long.valueOf(info.getTrailer().getSize()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidType() throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        writeEntry(data, 3, 0, 0, 2);
+        parse(data.toByteArray(), new long[]{0, 1}, 2);
+    }
+
+    private static COSXRefInfo parse(byte[] data, long[] index, int offsetSize) throws IOException {
+        COSObject stream = COSStream.construct(new ASMemoryInStream(data));
+        stream.setIntegerKey(ASAtom.SIZE, 5000);
+        COSObject[] indexValues = new COSObject[index.length];
+        for (int i = 0; i < index.length; ++i) {
+            indexValues[i] = COSInteger.construct(index[i]);
+        }
+        stream.setKey(ASAtom.INDEX, COSArray.construct(index.length, indexValues));
+        stream.setKey(ASAtom.W, COSArray.construct(3, new COSObject[]{
+                COSInteger.construct(1), COSInteger.construct(offsetSize), COSInteger.construct(2)}));
+        COSXRefInfo info = new COSXRefInfo();
+        new XrefStreamParser(info, (COSStream) stream.getDirectBase()).parseStreamAndTrailer();
+        return info;
+    }
+
+    private static void writeEntry(ByteArrayOutputStream data, int type, long field1, int field2, int offsetSize) {
+        data.write(type);
+        for (int i = offsetSize - 1; i >= 0; --i) {
+            data.write((int) (field1 >>> (8 * i)));
+        }
+        data.write(field2 >>> 8);
+        data.write(field2);
+    }
+}